@@ -1,26 +1,117 @@
 package com.spring.notes.app.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.notes.app.dto.response.NoteResponse;
+import com.spring.notes.app.dto.response.PageResponse;
+import com.spring.notes.app.service.cache.CacheEnvelope;
+import com.spring.notes.app.service.cache.CacheInvalidationBus;
+import com.spring.notes.app.service.cache.CacheNamespace;
+import com.spring.notes.app.service.cache.CacheRegion;
+import com.spring.notes.app.service.cache.ClientSideCache;
+import com.spring.notes.app.service.cache.CacheSchemaVersion;
+import com.spring.notes.app.service.cache.CompactCacheSerializer;
+import com.spring.notes.app.service.cache.RedisCircuitBreaker;
+import com.spring.notes.app.service.cache.RedisShards;
+import com.spring.notes.app.service.cache.ShardedRedisCacheWriter;
+import com.spring.notes.app.service.cache.TwoLevelCacheManager;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.protocol.ProtocolVersion;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.util.unit.DataSize;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+@Slf4j
 @Configuration
 @EnableCaching
+@Profile("!standalone")
 public class RedisConfig {
 
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory, ObjectMapper objectMapper) {
+        return template(connectionFactory, objectMapper);
+    }
+
+    /**
+     * The Redis nodes the cache is sharded over: the primary from {@code spring.data.redis}
+     * plus any other node listed in {@code app.redis.nodes}, each as {@code host:port} and
+     * sharing the primary's credentials, database and client settings.
+     */
+    @Bean(destroyMethod = "close")
+    public RedisShards redisShards(
+            RedisConnectionFactory connectionFactory,
+            RedisTemplate<String, Object> redisTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.redis.nodes:}") String[] nodes,
+            @Value("${app.redis.virtual-nodes:160}") int virtualNodes) {
+        List<String> otherNodes = Arrays.stream(nodes).map(String::trim).filter(node -> !node.isEmpty()).toList();
+        if (!(connectionFactory instanceof LettuceConnectionFactory lettuce)
+                || lettuce.isRedisSentinelAware() || lettuce.isClusterAware()) {
+            if (!otherNodes.isEmpty()) {
+                throw new IllegalStateException("Sharding the cache needs a standalone Lettuce connection to Redis");
+            }
+            return RedisShards.of(redisTemplate, meterRegistry);
+        }
+
+        RedisStandaloneConfiguration primary = lettuce.getStandaloneConfiguration();
+        String primaryName = primary.getHostName() + ":" + primary.getPort();
+        Map<String, RedisTemplate<String, Object>> templates = new LinkedHashMap<>();
+        templates.put(primaryName, redisTemplate);
+        List<LettuceConnectionFactory> ownedFactories = new ArrayList<>();
+        for (String node : otherNodes) {
+            int colon = node.lastIndexOf(':');
+            if (colon <= 0 || colon == node.length() - 1) {
+                throw new IllegalArgumentException("Invalid Redis node: " + node + " (expected host:port)");
+            }
+            if (templates.containsKey(node)) {
+                continue;
+            }
+            RedisStandaloneConfiguration standalone = new RedisStandaloneConfiguration(
+                    node.substring(0, colon), Integer.parseInt(node.substring(colon + 1)));
+            standalone.setDatabase(primary.getDatabase());
+            standalone.setUsername(primary.getUsername());
+            standalone.setPassword(primary.getPassword());
+            LettuceConnectionFactory factory = new LettuceConnectionFactory(standalone, lettuce.getClientConfiguration());
+            factory.afterPropertiesSet();
+            factory.start();
+            ownedFactories.add(factory);
+            templates.put(node, template(factory, objectMapper));
+        }
+        return new RedisShards(templates, virtualNodes, meterRegistry, ownedFactories);
+    }
+
+    private RedisTemplate<String, Object> template(RedisConnectionFactory connectionFactory, ObjectMapper objectMapper) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
@@ -29,7 +120,7 @@ public class RedisConfig {
         template.setHashKeySerializer(new StringRedisSerializer());
 
         // Use JSON serializer for values with custom ObjectMapper
-        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+        GenericJackson2JsonRedisSerializer jsonSerializer = jsonSerializer(objectMapper);
         template.setValueSerializer(jsonSerializer);
         template.setHashValueSerializer(jsonSerializer);
 
@@ -37,18 +128,168 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * Trips on the error or slow-call rate of Redis calls, after which the cache layer stops
+     * calling Redis until a background PING of every shard succeeds again.
+     */
+    @Bean(destroyMethod = "close")
+    public RedisCircuitBreaker redisCircuitBreaker(
+            RedisShards redisShards,
+            MeterRegistry meterRegistry,
+            @Value("${app.redis.circuit-breaker.window-size:50}") int windowSize,
+            @Value("${app.redis.circuit-breaker.minimum-calls:20}") int minimumCalls,
+            @Value("${app.redis.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${app.redis.circuit-breaker.slow-call-rate-threshold:0.8}") double slowCallRateThreshold,
+            @Value("${app.redis.circuit-breaker.slow-call-duration:500ms}") Duration slowCallDuration,
+            @Value("${app.redis.circuit-breaker.probe-interval:5s}") Duration probeInterval) {
+        Runnable probe = () -> redisShards.all().forEach(
+                shard -> shard.getTemplate().execute((RedisCallback<String>) RedisConnection::ping));
+        return new RedisCircuitBreaker(probe,
+                meterRegistry, windowSize, minimumCalls, failureRateThreshold, slowCallRateThreshold,
+                slowCallDuration, probeInterval);
+    }
+
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory, ObjectMapper objectMapper) {
-        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
-        
+    public CacheInvalidationBus cacheInvalidationBus(
+            RedisTemplate<String, Object> redisTemplate,
+            ObjectMapper objectMapper,
+            @Value("${app.cache.near.invalidation-channel:notes:cache:invalidation}") String channel) {
+        return new CacheInvalidationBus(redisTemplate, objectMapper, channel);
+    }
+
+    @Bean
+    public CacheNamespace cacheNamespace(
+            @Value("${app.cache.codec:compact}") String codec,
+            @Value("${app.cache.key-version:}") String keyVersion) {
+        // Versions with a different cached shape use disjoint keys, so a rolling deploy needs no flush
+        String namespace = keyVersion.isBlank()
+                ? CacheSchemaVersion.of(codec, NoteResponse.class, PageResponse.class, CacheEnvelope.class)
+                : keyVersion;
+        log.info("Using cache key namespace: {}", namespace);
+        return new CacheNamespace(namespace);
+    }
+
+    /**
+     * Opt-in local copy of values read through {@code RedisService.get}, invalidated by Redis
+     * over RESP3 client tracking. Needs Redis 6+ and a standalone Lettuce connection.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.redis.client-tracking.enabled", havingValue = "true")
+    @SuppressWarnings("unchecked")
+    public ClientSideCache clientSideCache(
+            RedisConnectionFactory connectionFactory,
+            RedisTemplate<String, Object> redisTemplate,
+            RedisShards redisShards,
+            MeterRegistry meterRegistry,
+            @Value("${app.redis.client-tracking.max-size:16MB}") DataSize maxSize,
+            @Value("${app.redis.client-tracking.ttl:10m}") Duration ttl) {
+        if (!(connectionFactory instanceof LettuceConnectionFactory lettuce)
+                || lettuce.isRedisSentinelAware() || lettuce.isClusterAware()) {
+            throw new IllegalStateException("Client tracking needs a standalone Lettuce connection to Redis");
+        }
+        if (redisShards.isSharded()) {
+            throw new IllegalStateException("Client tracking is not supported with the cache sharded over several Redis nodes");
+        }
+        RedisStandaloneConfiguration standalone = lettuce.getStandaloneConfiguration();
+        RedisURI.Builder uri = RedisURI.builder()
+                .withHost(standalone.getHostName())
+                .withPort(standalone.getPort())
+                .withDatabase(standalone.getDatabase())
+                .withSsl(lettuce.isUseSsl())
+                .withTimeout(Duration.ofMillis(lettuce.getTimeout()));
+        standalone.getPassword().toOptional().ifPresent(password -> {
+            if (standalone.getUsername() != null) {
+                uri.withAuthentication(standalone.getUsername(), password);
+            } else {
+                uri.withPassword(password);
+            }
+        });
+
+        RedisClient client = lettuce.getClientResources() != null
+                ? RedisClient.create(lettuce.getClientResources(), uri.build())
+                : RedisClient.create(uri.build());
+        // Tracking state dies with the connection, so reconnects are left to the cache itself
+        client.setOptions(ClientOptions.builder()
+                .protocolVersion(ProtocolVersion.RESP3)
+                .autoReconnect(false)
+                .build());
+        log.info("Client-side caching with Redis client tracking enabled (max {} locally)", maxSize);
+        return new ClientSideCache(client, (RedisSerializer<Object>) redisTemplate.getValueSerializer(),
+                maxSize.toBytes(), ttl, meterRegistry);
+    }
+
+    @Bean
+    public CacheManager cacheManager(
+            RedisConnectionFactory connectionFactory,
+            RedisShards redisShards,
+            ObjectMapper objectMapper,
+            CacheInvalidationBus cacheInvalidationBus,
+            CacheNamespace cacheNamespace,
+            RedisCircuitBreaker redisCircuitBreaker,
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.near.enabled:true}") boolean nearCacheEnabled,
+            @Value("${app.cache.near.max-size-per-cache:16MB}") DataSize nearCacheMaxSize,
+            @Value("${app.cache.near.ttl:60s}") Duration nearCacheTtl,
+            @Value("${app.cache.near.admission.min-frequency:2}") int nearCacheMinFrequency,
+            @Value("${app.cache.near.off-heap.caches:}") String[] offHeapCaches,
+            @Value("${app.cache.near.off-heap.max-size-per-cache:32MB}") DataSize offHeapMaxSize,
+            @Value("${app.cache.codec:compact}") String codec,
+            @Value("${app.cache.codec.compression-threshold:1KB}") DataSize compressionThreshold) {
+        RedisSerializer<Object> valueSerializer = cacheValueSerializer(
+                jsonSerializer(objectMapper), codec, compressionThreshold);
+
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(10)) // Default TTL of 10 minutes
+                .computePrefixWith(cacheNamespace::prefix)
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(jsonSerializer))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer))
                 .disableCachingNullValues();
 
-        return RedisCacheManager.builder(connectionFactory)
+        // Each note cache region carries its own TTL
+        Map<String, RedisCacheConfiguration> regionConfigs = new HashMap<>();
+        for (CacheRegion region : CacheRegion.values()) {
+            regionConfigs.put(region.getCacheName(), config.entryTtl(region.getStoreTtl()));
+        }
+
+        // A sharded writer routes every entry to the node owning its key
+        RedisCacheWriter cacheWriter = redisShards.isSharded()
+                ? new ShardedRedisCacheWriter(redisShards)
+                : RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory);
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(cacheWriter)
                 .cacheDefaults(config)
+                .withInitialCacheConfigurations(regionConfigs)
+                .build();
+        redisCacheManager.afterPropertiesSet();
+
+        if (!nearCacheEnabled) {
+            return redisCacheManager;
+        }
+
+        // Front the Redis caches with a bounded in-process tier kept coherent over pub/sub;
+        // the off-heap caches keep their local values in the encoding used for Redis
+        return new TwoLevelCacheManager(redisCacheManager, cacheInvalidationBus, meterRegistry,
+                nearCacheMaxSize.toBytes(), nearCacheTtl, nearCacheMinFrequency,
+                Set.copyOf(Arrays.asList(offHeapCaches)), offHeapMaxSize.toBytes(), valueSerializer,
+                redisCircuitBreaker);
+    }
+
+    private RedisSerializer<Object> cacheValueSerializer(GenericJackson2JsonRedisSerializer jsonSerializer,
+                                                         String codec, DataSize compressionThreshold) {
+        if ("json".equalsIgnoreCase(codec)) {
+            return jsonSerializer;
+        }
+        if (!"compact".equalsIgnoreCase(codec)) {
+            throw new IllegalArgumentException("Unknown cache codec: " + codec + " (expected json or compact)");
+        }
+        return new CompactCacheSerializer(jsonSerializer, (int) compressionThreshold.toBytes());
+    }
+
+    private GenericJackson2JsonRedisSerializer jsonSerializer(ObjectMapper objectMapper) {
+        // Type hints are required to read cached DTOs back as DTOs rather than as plain maps;
+        // work on a copy so the application-wide ObjectMapper stays untouched
+        return GenericJackson2JsonRedisSerializer.builder()
+                .objectMapper(objectMapper.copy())
+                .defaultTyping(true)
                 .build();
     }
 }
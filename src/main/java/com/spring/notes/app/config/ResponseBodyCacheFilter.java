@@ -0,0 +1,174 @@
+package com.spring.notes.app.config;
+
+import com.spring.notes.app.entity.User;
+import com.spring.notes.app.service.cache.ResponseBodyCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * Serves the hot note read endpoints from the {@link ResponseBodyCache} to clients that accept
+ * gzip: a hit writes the stored compressed bytes straight to the output stream without reaching
+ * the controller. On a miss the response is built as usual, captured, compressed once, stored
+ * and sent compressed. Other clients, other paths and non-200 responses pass through untouched.
+ * <p>
+ * Registered after the security filter chain, so the request is already authenticated and the
+ * cache key is scoped to the calling user.
+ */
+@Component
+public class ResponseBodyCacheFilter extends OncePerRequestFilter {
+
+    private static final String GZIP = "gzip";
+
+    private final ResponseBodyCache responseBodyCache;
+    private final List<String> paths;
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public ResponseBodyCacheFilter(
+            ResponseBodyCache responseBodyCache,
+            @Value("${app.cache.response.paths:/api/v1/notes,/api/v1/notes/status/*,/api/v1/notes/priority/*,"
+                    + "/api/v1/notes/category/*,/api/v1/notes/search,/api/v1/notes/categories,"
+                    + "/api/v1/notes/statistics}") String[] paths) {
+        this.responseBodyCache = responseBodyCache;
+        this.paths = List.of(paths);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!responseBodyCache.isEnabled() || !"GET".equals(request.getMethod())) {
+            return true;
+        }
+        String path = urlPathHelper.getPathWithinApplication(request);
+        return paths.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        // The body depends on the encoding the client accepts
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        User user = currentUser();
+        if (user == null || !acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String key = responseBodyCache.key(user, resource(request));
+        if (key == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ResponseBodyCache.Body cached = responseBodyCache.get(key);
+        if (cached != null) {
+            write(response, cached);
+            return;
+        }
+
+        ContentCachingResponseWrapper captured = new ContentCachingResponseWrapper(response);
+        boolean written = false;
+        try {
+            filterChain.doFilter(request, captured);
+            if (isCacheable(captured)) {
+                ResponseBodyCache.Body body = responseBodyCache.put(
+                        key, captured.getContentType(), captured.getContentAsByteArray());
+                captured.resetBuffer();
+                write(response, body);
+                written = true;
+            }
+        } finally {
+            if (!written) {
+                captured.copyBodyToResponse();
+            }
+        }
+    }
+
+    /**
+     * Whether an {@code Accept-Encoding} header admits gzip, honouring {@code q=0} exclusions.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!GZIP.equalsIgnoreCase(name) && !"*".equals(name)) {
+                continue;
+            }
+            boolean excluded = Arrays.stream(parts).skip(1)
+                    .map(String::trim)
+                    .anyMatch(parameter -> parameter.matches("(?i)q=0(\\.0{0,3})?"));
+            if (!excluded) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Path plus the query parameters in a canonical order, so equivalent queries share one entry.
+     */
+    private String resource(HttpServletRequest request) {
+        StringJoiner query = new StringJoiner("&");
+        for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            for (String value : parameter.getValue()) {
+                query.add(encode(parameter.getKey()) + "=" + encode(value));
+            }
+        }
+        return urlPathHelper.getPathWithinApplication(request) + "?" + query;
+    }
+
+    private static boolean isCacheable(ContentCachingResponseWrapper response) {
+        if (response.getStatus() != HttpServletResponse.SC_OK || response.getContentSize() == 0
+                || response.getHeader(HttpHeaders.CONTENT_ENCODING) != null || response.getContentType() == null) {
+            return false;
+        }
+        return MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(response.getContentType()));
+    }
+
+    private static void write(HttpServletResponse response, ResponseBodyCache.Body body) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(body.contentType());
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+        response.setContentLength(body.gzip().length);
+        response.getOutputStream().write(body.gzip());
+        response.flushBuffer();
+    }
+
+    private static User currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof User user ? user : null;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,63 @@
+package com.spring.notes.app.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.spring.notes.app.service.cache.CacheEntrySizeEstimator;
+import com.spring.notes.app.service.cache.CacheInvalidationBus;
+import com.spring.notes.app.service.cache.CacheNamespace;
+import com.spring.notes.app.service.cache.CacheRegion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Single-node mode without Redis: every cache lives in this process. Takes the place of
+ * {@link RedisConfig} when the {@code standalone} profile is active.
+ */
+@Slf4j
+@Configuration
+@EnableCaching
+@Profile("standalone")
+public class StandaloneConfig {
+
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus() {
+        return CacheInvalidationBus.local();
+    }
+
+    @Bean
+    public CacheNamespace cacheNamespace() {
+        // Nothing outlives the process, so there is no earlier version to keep apart from
+        return new CacheNamespace("local");
+    }
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${app.standalone.cache.max-size-per-cache:64MB}") DataSize maxSizePerCache) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCaffeine(caffeine(maxSizePerCache, Duration.ofMinutes(10)));
+
+        // Each note cache region carries its own TTL
+        for (CacheRegion region : CacheRegion.values()) {
+            cacheManager.registerCustomCache(region.getCacheName(),
+                    caffeine(maxSizePerCache, region.getStoreTtl()).build());
+        }
+        log.info("Standalone mode: caching in process (max {} per cache)", maxSizePerCache);
+        return cacheManager;
+    }
+
+    private Caffeine<Object, Object> caffeine(DataSize maxSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Object key, Object value) -> CacheEntrySizeEstimator.estimate(value))
+                .expireAfterWrite(ttl);
+    }
+}
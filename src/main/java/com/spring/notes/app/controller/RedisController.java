@@ -1,7 +1,12 @@
 package com.spring.notes.app.controller;
 
 import com.spring.notes.app.dto.response.ApiResponse;
+import com.spring.notes.app.dto.response.CacheKeyspaceReport;
+import com.spring.notes.app.dto.response.CachePurgeResponse;
+import com.spring.notes.app.service.CacheKeyspaceService;
+import com.spring.notes.app.service.CachePurgeService;
 import com.spring.notes.app.service.RedisService;
+import com.spring.notes.app.service.cache.NoteCacheEngine;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +16,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -22,6 +28,9 @@ import java.util.Optional;
 public class RedisController {
 
     private final RedisService redisService;
+    private final NoteCacheEngine noteCacheEngine;
+    private final CachePurgeService cachePurgeService;
+    private final CacheKeyspaceService cacheKeyspaceService;
 
     @GetMapping("/health")
     @Operation(summary = "Check Redis health", description = "Check if Redis is accessible")
@@ -154,23 +163,114 @@ public class RedisController {
     }
 
     @DeleteMapping("/clear")
-    @Operation(summary = "Clear all cache", description = "Clear all keys from Redis (use with caution)")
+    @Operation(summary = "Purge cache", description = "Start a background purge of the current cache namespace, the keys under a prefix, or one user's keys")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<Void>> clearAllCache() {
-        try {
-            redisService.clearAll();
-            return ResponseEntity.ok(ApiResponse.<Void>builder()
-                    .success(true)
-                    .message("All cache cleared successfully")
-                    .data(null)
-                    .build());
-        } catch (Exception e) {
-            log.error("Error clearing all cache", e);
-            return ResponseEntity.status(500).body(ApiResponse.<Void>builder()
-                    .success(false)
-                    .message("Error clearing cache: " + e.getMessage())
-                    .data(null)
-                    .build());
+    public ResponseEntity<ApiResponse<CachePurgeResponse>> clearAllCache(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(required = false) Long userId) {
+        if (prefix != null && userId != null) {
+            throw new IllegalArgumentException("Specify either a prefix or a user ID, not both");
+        }
+        CachePurgeResponse job;
+        if (prefix != null) {
+            job = cachePurgeService.purgeByPrefix(prefix);
+        } else if (userId != null) {
+            job = cachePurgeService.purgeByUser(userId);
+        } else {
+            job = cachePurgeService.purgeAll();
         }
+        return ResponseEntity.accepted().body(ApiResponse.<CachePurgeResponse>builder()
+                .success(true)
+                .message("Cache purge started")
+                .data(job)
+                .build());
+    }
+
+    @GetMapping("/purge")
+    @Operation(summary = "List cache purges", description = "Recent background cache purges, newest first")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<CachePurgeResponse>>> getCachePurges() {
+        return ResponseEntity.ok(ApiResponse.<List<CachePurgeResponse>>builder()
+                .success(true)
+                .message("Cache purges retrieved successfully")
+                .data(cachePurgeService.getJobs())
+                .build());
+    }
+
+    @GetMapping("/purge/{id}")
+    @Operation(summary = "Get cache purge progress", description = "Status and key counts of a background cache purge")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CachePurgeResponse>> getCachePurge(@PathVariable String id) {
+        return ResponseEntity.ok(ApiResponse.<CachePurgeResponse>builder()
+                .success(true)
+                .message("Cache purge retrieved successfully")
+                .data(cachePurgeService.getJob(id))
+                .build());
+    }
+
+    @DeleteMapping("/purge/{id}")
+    @Operation(summary = "Cancel cache purge", description = "Stop a background cache purge after its current batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CachePurgeResponse>> cancelCachePurge(@PathVariable String id) {
+        return ResponseEntity.ok(ApiResponse.<CachePurgeResponse>builder()
+                .success(true)
+                .message("Cache purge cancellation requested")
+                .data(cachePurgeService.cancel(id))
+                .build());
+    }
+
+    @PostMapping("/keyspace")
+    @Operation(summary = "Analyze keyspace", description = "Start a background SCAN reporting key counts, estimated memory, TTLs and largest keys per key prefix")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CacheKeyspaceReport>> analyzeKeyspace() {
+        return ResponseEntity.accepted().body(ApiResponse.<CacheKeyspaceReport>builder()
+                .success(true)
+                .message("Keyspace analysis started")
+                .data(cacheKeyspaceService.analyze())
+                .build());
+    }
+
+    @GetMapping("/keyspace")
+    @Operation(summary = "List keyspace analyses", description = "Recent keyspace analyses, newest first")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<CacheKeyspaceReport>>> getKeyspaceReports() {
+        return ResponseEntity.ok(ApiResponse.<List<CacheKeyspaceReport>>builder()
+                .success(true)
+                .message("Keyspace analyses retrieved successfully")
+                .data(cacheKeyspaceService.getReports())
+                .build());
+    }
+
+    @GetMapping("/keyspace/{id}")
+    @Operation(summary = "Get keyspace analysis", description = "Per-prefix and per-node keyspace report; a running analysis covers the keys scanned so far")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CacheKeyspaceReport>> getKeyspaceReport(@PathVariable String id) {
+        return ResponseEntity.ok(ApiResponse.<CacheKeyspaceReport>builder()
+                .success(true)
+                .message("Keyspace analysis retrieved successfully")
+                .data(cacheKeyspaceService.getReport(id))
+                .build());
+    }
+
+    @DeleteMapping("/keyspace/{id}")
+    @Operation(summary = "Cancel keyspace analysis", description = "Stop a background keyspace analysis after its current batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<CacheKeyspaceReport>> cancelKeyspaceAnalysis(@PathVariable String id) {
+        return ResponseEntity.ok(ApiResponse.<CacheKeyspaceReport>builder()
+                .success(true)
+                .message("Keyspace analysis cancellation requested")
+                .data(cacheKeyspaceService.cancel(id))
+                .build());
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Get cache statistics", description = "Hit, miss and load statistics per note cache region")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Map<String, Object>>>> getCacheStatistics() {
+        return ResponseEntity.ok(ApiResponse.<Map<String, Map<String, Object>>>builder()
+                .success(true)
+                .message("Cache statistics retrieved successfully")
+                .data(noteCacheEngine.getStatistics())
+                .build());
     }
 }
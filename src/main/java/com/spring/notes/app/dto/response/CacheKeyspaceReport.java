@@ -0,0 +1,74 @@
+package com.spring.notes.app.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheKeyspaceReport {
+
+    private String id;
+    private Status status;
+    private double sampleRate;
+    private long scanned;
+    private long sampled;
+    private Long estimatedMemoryBytes;
+    private List<PrefixStats> prefixes;
+    private List<NodeStats> nodes;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    /**
+     * Keys sharing a prefix; memory is extrapolated from the sampled keys, TTLs are counted over them.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PrefixStats {
+
+        private String prefix;
+        private long keys;
+        private long sampledKeys;
+        private Long estimatedMemoryBytes;
+        private Long averageBytes;
+        private Map<String, Long> ttl;
+        private List<KeySize> largestKeys;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class KeySize {
+
+        private String key;
+        private String node;
+        private long memoryBytes;
+        private long ttlMillis;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class NodeStats {
+
+        private String node;
+        private long sampledKeys;
+        private Long estimatedMemoryBytes;
+    }
+}
@@ -23,6 +23,7 @@ public class NoteResponse {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private LocalDateTime completedAt;
+    private Long version;
     
     public static NoteResponse from(Note note) {
         return NoteResponse.builder()
@@ -35,6 +36,7 @@ public class NoteResponse {
                 .createdAt(note.getCreatedAt())
                 .updatedAt(note.getUpdatedAt())
                 .completedAt(note.getCompletedAt())
+                .version(note.getVersion())
                 .build();
     }
 }
@@ -63,6 +63,10 @@ public class Note {
     @Column
     private LocalDateTime completedAt;
     
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
     public enum Priority {
         LOW, MEDIUM, HIGH, URGENT
     }
@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -57,6 +58,18 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
     long countByUser(User user);
     long countByStatusAndUser(Note.Status status, User user);
     
+    // Owned note IDs for user (negative lookup filter)
+    @Query("SELECT n.id FROM Note n WHERE n.user = :user")
+    List<Long> findIdsByUser(@Param("user") User user);
+    
+    @Query("SELECT COALESCE(MAX(n.id), 0) FROM Note n")
+    long findMaxId();
+    
+    // Users who wrote notes most recently, and the notes of several users at once (cache warm-up)
+    @Query("SELECT n.user.id FROM Note n WHERE n.updatedAt >= :since GROUP BY n.user.id ORDER BY MAX(n.updatedAt) DESC")
+    List<Long> findRecentlyActiveUserIds(@Param("since") LocalDateTime since, Pageable pageable);
+    List<Note> findByUserIdIn(Collection<Long> userIds);
+    
     // Get distinct categories for user
     @Query("SELECT DISTINCT n.category FROM Note n WHERE n.user = :user AND n.category IS NOT NULL")
     List<String> findDistinctCategoriesByUser(@Param("user") User user);
@@ -0,0 +1,28 @@
+package com.spring.notes.app.service;
+
+import com.spring.notes.app.dto.response.CacheKeyspaceReport;
+
+import java.util.List;
+
+public interface CacheKeyspaceService {
+
+    /**
+     * Start a background analysis of the whole keyspace: key counts, estimated memory, TTLs and largest keys per prefix
+     */
+    CacheKeyspaceReport analyze();
+
+    /**
+     * Progress of an analysis; a running one reports the keys seen so far
+     */
+    CacheKeyspaceReport getReport(String id);
+
+    /**
+     * Recent analyses, newest first
+     */
+    List<CacheKeyspaceReport> getReports();
+
+    /**
+     * Stop a queued or running analysis after its current batch
+     */
+    CacheKeyspaceReport cancel(String id);
+}
@@ -0,0 +1,38 @@
+package com.spring.notes.app.service;
+
+import com.spring.notes.app.dto.response.CachePurgeResponse;
+
+import java.util.List;
+
+public interface CachePurgeService {
+    
+    /**
+     * Start a background purge of every key in the current cache namespace (generation counters and version keys are kept)
+     */
+    CachePurgeResponse purgeAll();
+    
+    /**
+     * Start a background purge of the keys starting with a prefix, e.g. a retired namespace such as {@code v3f9a1c2e:}
+     */
+    CachePurgeResponse purgeByPrefix(String prefix);
+    
+    /**
+     * Start a background purge of one user's cache entries across all note caches
+     */
+    CachePurgeResponse purgeByUser(Long userId);
+    
+    /**
+     * Progress of a purge job
+     */
+    CachePurgeResponse getJob(String id);
+    
+    /**
+     * Recent purge jobs, newest first
+     */
+    List<CachePurgeResponse> getJobs();
+    
+    /**
+     * Stop a queued or running purge after its current batch
+     */
+    CachePurgeResponse cancel(String id);
+}
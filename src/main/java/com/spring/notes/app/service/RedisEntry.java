@@ -0,0 +1,22 @@
+package com.spring.notes.app.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * One key-value pair of a batch write, with its own expiration ({@code null} means no expiration).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RedisEntry {
+
+    private String key;
+    private Object value;
+    private Duration ttl;
+}
@@ -0,0 +1,22 @@
+package com.spring.notes.app.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Footprint of one key: the node holding it, its estimated memory ({@code -1} if the store
+ * cannot measure it) and its remaining TTL ({@code -1} for a key without expiration).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RedisKeyInfo {
+
+    private String key;
+    private String node;
+    private long memoryBytes;
+    private long ttlMillis;
+}
@@ -1,7 +1,11 @@
 package com.spring.notes.app.service;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 public interface RedisService {
     
@@ -25,6 +29,63 @@ public interface RedisService {
      */
     <T> Optional<T> get(String key, Class<T> clazz);
     
+    /**
+     * Get several values in one round trip (MGET); keys that are missing or hold another type are left out
+     */
+    <T> Map<String, T> multiGet(Collection<String> keys, Class<T> clazz);
+    
+    /**
+     * Set several key-value pairs, each with its own TTL, in one pipelined round trip
+     */
+    void multiSet(Collection<RedisEntry> entries);
+    
+    /**
+     * Set several key-value pairs with the same TTL in one pipelined round trip
+     */
+    void multiSet(Map<String, ?> values, long timeout, TimeUnit unit);
+    
+    /**
+     * Delete several keys in one round trip, returning how many existed
+     */
+    long multiDelete(Collection<String> keys);
+    
+    /**
+     * Delete several keys without blocking Redis (UNLINK frees memory in the background), returning how many existed
+     */
+    long unlink(Collection<String> keys);
+    
+    /**
+     * Walk the keys matching a glob pattern with SCAN, handing them to the consumer in batches of up to
+     * {@code batchSize}; the walk stops early when the consumer returns false
+     */
+    void scan(String pattern, int batchSize, Predicate<List<String>> batchConsumer);
+    
+    /**
+     * Estimated memory (MEMORY USAGE) and TTL of several keys, in one script call per node; keys that no
+     * longer exist are left out
+     */
+    Map<String, RedisKeyInfo> inspect(Collection<String> keys);
+    
+    /**
+     * Atomically increment a numeric value by delta, creating it at zero if absent
+     */
+    long increment(String key, long delta);
+    
+    /**
+     * Atomically increment a numeric value by delta, creating it at {@code initial} if absent
+     */
+    long increment(String key, long delta, long initial);
+    
+    /**
+     * Take a short-lived exclusive lease on a key (SET NX PX); true if this owner now holds it
+     */
+    boolean tryLease(String key, String owner, long timeout, TimeUnit unit);
+    
+    /**
+     * Release a lease, but only if it is still held by the given owner
+     */
+    void releaseLease(String key, String owner);
+    
     /**
      * Delete a key
      */
@@ -44,9 +105,4 @@ public interface RedisService {
      * Get time to live for a key
      */
     Long getTtl(String key);
-    
-    /**
-     * Clear all keys (use with caution)
-     */
-    void clearAll();
 }
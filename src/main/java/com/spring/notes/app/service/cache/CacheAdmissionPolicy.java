@@ -0,0 +1,184 @@
+package com.spring.notes.app.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Decides whether a value may be written to the shared cache tier. Values above the
+ * per-entry limit are refused outright, so an unusually large value is served from the
+ * database instead of being rewritten to and fetched from Redis as one multi-megabyte
+ * blob. Each user also has a byte budget: once the entries written for a user add up to
+ * it, further entries are refused until older ones expire.
+ * <p>
+ * Sizes are the heap estimates of {@link CacheEntrySizeEstimator}, which run about twice
+ * the encoded size for text. Usage is tracked per node and per key, so rewriting an entry
+ * replaces its previous size; entries are released on eviction or when their store TTL
+ * has passed. Keys are charged without their cache generation, so the entry cached after
+ * a user's write takes over the charge of the one the write made unreachable.
+ */
+@Slf4j
+@Component
+public class CacheAdmissionPolicy {
+
+    private final long maxEntryBytes;
+    private final long userBudgetBytes;
+    private final Cache<Long, UserUsage> usages;
+    private final Map<CacheRegion, Map<String, Counter>> decisions = new EnumMap<>(CacheRegion.class);
+    private final DistributionSummary userBytes;
+
+    public CacheAdmissionPolicy(MeterRegistry meterRegistry,
+                                @Value("${app.cache.admission.max-entry-size:1MB}") DataSize maxEntrySize,
+                                @Value("${app.cache.admission.user-budget:8MB}") DataSize userBudget,
+                                @Value("${app.cache.admission.max-users:100000}") long maxUsers) {
+        this.maxEntryBytes = maxEntrySize.toBytes();
+        this.userBudgetBytes = userBudget.toBytes();
+        this.usages = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(CacheRegion.maxStoreTtl())
+                .build();
+        for (CacheRegion region : CacheRegion.values()) {
+            Map<String, Counter> counters = new HashMap<>();
+            for (String outcome : new String[]{CacheMetrics.ADMITTED, CacheMetrics.REJECTED_SIZE, CacheMetrics.REJECTED_BUDGET}) {
+                counters.put(outcome, CacheMetrics.admissions(meterRegistry, region.getCacheName(), CacheMetrics.TIER_L2, outcome));
+            }
+            decisions.put(region, counters);
+        }
+        this.userBytes = DistributionSummary.builder(CacheMetrics.USER_BYTES)
+                .description("Estimated bytes held in the shared cache for a user, sampled on admission")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether {@code value} may be cached under {@code key}; if so, its size is charged to the user.
+     */
+    public boolean admit(CacheRegion region, Long userId, String key, Object value) {
+        long size = CacheEntrySizeEstimator.estimate(value);
+        return admit(region, userId, key, size, size);
+    }
+
+    /**
+     * Like {@link #admit} for a structure that stores {@code values} as separate entries under
+     * one key: each value must fit the entry limit and their total is charged to the user.
+     */
+    public boolean admitAll(CacheRegion region, Long userId, String key, Collection<?> values) {
+        long largest = 0;
+        long total = 0;
+        for (Object value : values) {
+            long size = CacheEntrySizeEstimator.estimate(value);
+            largest = Math.max(largest, size);
+            total += size;
+        }
+        return admit(region, userId, key, largest, total);
+    }
+
+    private boolean admit(CacheRegion region, Long userId, String key, long entrySize, long size) {
+        if (entrySize > maxEntryBytes) {
+            decisions.get(region).get(CacheMetrics.REJECTED_SIZE).increment();
+            log.debug("Refused {} bytes in {} for key: {} (entry limit {})", entrySize, region.getCacheName(), key, maxEntryBytes);
+            return false;
+        }
+        UserUsage usage = usages.get(userId, id -> new UserUsage());
+        long total;
+        synchronized (usage) {
+            long now = System.currentTimeMillis();
+            usage.expire(now);
+            String entryKey = entryKey(region, key);
+            if (usage.bytes - usage.sizeOf(entryKey) + size > userBudgetBytes) {
+                decisions.get(region).get(CacheMetrics.REJECTED_BUDGET).increment();
+                log.debug("Refused {} bytes in {} for user ID: {} (budget {} bytes, in use {})",
+                        size, region.getCacheName(), userId, userBudgetBytes, usage.bytes);
+                return false;
+            }
+            usage.charge(entryKey, size, now + region.getStoreTtl().toMillis());
+            total = usage.bytes;
+        }
+        decisions.get(region).get(CacheMetrics.ADMITTED).increment();
+        userBytes.record(total);
+        return true;
+    }
+
+    /**
+     * Give back the bytes charged for an entry that was evicted.
+     */
+    public void release(CacheRegion region, Long userId, String key) {
+        UserUsage usage = usages.getIfPresent(userId);
+        if (usage != null) {
+            synchronized (usage) {
+                usage.release(entryKey(region, key));
+            }
+        }
+    }
+
+    /**
+     * Estimated bytes currently charged to a user on this node.
+     */
+    public long usage(Long userId) {
+        UserUsage usage = usages.getIfPresent(userId);
+        if (usage == null) {
+            return 0;
+        }
+        synchronized (usage) {
+            usage.expire(System.currentTimeMillis());
+            return usage.bytes;
+        }
+    }
+
+    private static String entryKey(CacheRegion region, String key) {
+        return region.getCacheName() + ":" + UserCacheGenerations.unstamped(key);
+    }
+
+    private static final class UserUsage {
+
+        private final Map<String, Charge> charges = new HashMap<>();
+        private final PriorityQueue<Charge> byExpiry = new PriorityQueue<>((a, b) -> Long.compare(a.expiresAt, b.expiresAt));
+        private long bytes;
+
+        private long sizeOf(String key) {
+            Charge charge = charges.get(key);
+            return charge != null ? charge.size : 0;
+        }
+
+        private void charge(String key, long size, long expiresAt) {
+            release(key);
+            Charge charge = new Charge(key, size, expiresAt);
+            charges.put(key, charge);
+            byExpiry.add(charge);
+            bytes += size;
+        }
+
+        private void release(String key) {
+            Charge charge = charges.remove(key);
+            if (charge != null) {
+                // Left in the expiry queue; expire() skips charges that are no longer current
+                bytes -= charge.size;
+            }
+        }
+
+        private void expire(long now) {
+            while (!byExpiry.isEmpty() && byExpiry.peek().expiresAt <= now) {
+                Charge charge = byExpiry.poll();
+                if (charges.get(charge.key) == charge) {
+                    charges.remove(charge.key);
+                    bytes -= charge.size;
+                }
+            }
+        }
+    }
+
+    private record Charge(String key, long size, long expiresAt) {
+    }
+}
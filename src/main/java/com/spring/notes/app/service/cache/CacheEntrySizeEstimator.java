@@ -0,0 +1,72 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.dto.response.NoteResponse;
+import com.spring.notes.app.dto.response.PageResponse;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Cheap, allocation-free estimate of the retained heap size of cached values.
+ * Used as the weigher of the in-process cache tier so that it is bounded by bytes
+ * rather than by entry count (a list of long notes weighs far more than a count).
+ */
+public final class CacheEntrySizeEstimator {
+
+    private static final int OBJECT_OVERHEAD = 16;
+    private static final int REFERENCE_SIZE = 8;
+    private static final int STRING_OVERHEAD = 40;
+    private static final int BOXED_SIZE = 16;
+    private static final int DATE_TIME_SIZE = 48;
+
+    private CacheEntrySizeEstimator() {
+    }
+
+    public static int estimate(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String string) {
+            return STRING_OVERHEAD + string.length() * 2;
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Enum<?>) {
+            return BOXED_SIZE;
+        }
+        if (value instanceof NoteResponse note) {
+            return estimateNote(note);
+        }
+        if (value instanceof PageResponse<?> page) {
+            return OBJECT_OVERHEAD + REFERENCE_SIZE + 32 + estimate(page.getContent());
+        }
+        if (value instanceof CacheEnvelope envelope) {
+            return OBJECT_OVERHEAD + REFERENCE_SIZE + 16 + estimate(envelope.getValue());
+        }
+        if (value instanceof Collection<?> collection) {
+            int size = OBJECT_OVERHEAD + collection.size() * REFERENCE_SIZE;
+            for (Object element : collection) {
+                size += estimate(element);
+            }
+            return size;
+        }
+        if (value instanceof Map<?, ?> map) {
+            int size = OBJECT_OVERHEAD + map.size() * 4 * REFERENCE_SIZE;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += estimate(entry.getKey()) + estimate(entry.getValue());
+            }
+            return size;
+        }
+        // Unknown shapes are weighed as a small object; they are rare in the note caches
+        return OBJECT_OVERHEAD * 4;
+    }
+
+    private static int estimateNote(NoteResponse note) {
+        int size = OBJECT_OVERHEAD + 10 * REFERENCE_SIZE + 2 * BOXED_SIZE;
+        size += estimate(note.getTitle());
+        size += estimate(note.getContent());
+        size += estimate(note.getCategory());
+        size += note.getCreatedAt() != null ? DATE_TIME_SIZE : 0;
+        size += note.getUpdatedAt() != null ? DATE_TIME_SIZE : 0;
+        size += note.getCompletedAt() != null ? DATE_TIME_SIZE : 0;
+        return size;
+    }
+}
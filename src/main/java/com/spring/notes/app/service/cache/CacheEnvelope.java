@@ -0,0 +1,31 @@
+package com.spring.notes.app.service.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cached value of a refresh-ahead region together with what XFetch needs to decide on an
+ * early recomputation: how long the value took to compute and when it logically expires.
+ * The stored entry outlives {@code expiresAt} so stale values can still be served while
+ * the refresh runs.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheEnvelope {
+
+    private Object value;
+
+    /**
+     * Time the last recomputation took, in milliseconds.
+     */
+    private long delta;
+
+    /**
+     * Logical expiry, in epoch milliseconds.
+     */
+    private long expiresAt;
+}
@@ -0,0 +1,183 @@
+package com.spring.notes.app.service.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the in-process cache tiers of all app instances coherent. Every local mutation
+ * is published on a Redis pub/sub channel; the other nodes drop their L1 copy when
+ * the message arrives. Messages originating from this node are ignored.
+ * <p>
+ * The subscription is established in the background and retried until Redis is reachable,
+ * so a Redis outage never prevents the application from starting.
+ * <p>
+ * A single-node deployment has no peers to tell: its bus ({@link #local()}) publishes nothing.
+ */
+@Slf4j
+public class CacheInvalidationBus implements MessageListener, SmartLifecycle {
+
+    private static final Duration SUBSCRIBE_RETRY_INTERVAL = Duration.ofSeconds(5);
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String channel;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final List<Consumer<CacheInvalidationMessage>> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean running;
+    private Thread subscriber;
+
+    /**
+     * A bus for a single node without Redis; listeners are registered but never called.
+     */
+    public static CacheInvalidationBus local() {
+        return new CacheInvalidationBus();
+    }
+
+    private CacheInvalidationBus() {
+        this.redisTemplate = null;
+        this.objectMapper = null;
+        this.channel = null;
+        this.listenerContainer = null;
+    }
+
+    public CacheInvalidationBus(RedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+        // Owned rather than registered as a bean: a container bean would subscribe eagerly on startup
+        this.listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(redisTemplate.getRequiredConnectionFactory());
+        listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+        listenerContainer.afterPropertiesSet();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public void subscribe(Consumer<CacheInvalidationMessage> listener) {
+        listeners.add(listener);
+    }
+
+    public void publish(String cacheName, String key) {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.execute(connection -> publish(connection, cacheName, key), true);
+        } catch (Exception e) {
+            // Peers fall back to the L1 TTL; a failed broadcast must never fail the write itself
+            log.warn("Failed to publish cache invalidation for {}::{}", cacheName, key, e);
+        }
+    }
+
+    public void publishClear(String cacheName) {
+        publish(cacheName, null);
+    }
+
+    /**
+     * Issue the invalidation on a connection the caller holds, e.g. as part of a pipeline.
+     */
+    public Long publish(RedisConnection connection, String cacheName, String key) {
+        CacheInvalidationMessage message = CacheInvalidationMessage.builder()
+                .origin(nodeId)
+                .cacheName(cacheName)
+                .key(key)
+                .build();
+        try {
+            return connection.publish(channel.getBytes(StandardCharsets.UTF_8), objectMapper.writeValueAsBytes(message));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode cache invalidation for " + cacheName, e);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        if (listenerContainer == null) {
+            return;
+        }
+        subscriber = new Thread(this::subscribeUntilConnected, "cache-invalidation-subscriber");
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (subscriber != null) {
+            subscriber.interrupt();
+        }
+        if (listenerContainer == null) {
+            return;
+        }
+        try {
+            listenerContainer.destroy();
+        } catch (Exception e) {
+            log.debug("Error while closing cache invalidation subscription", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void subscribeUntilConnected() {
+        while (running && !listenerContainer.isRunning()) {
+            try {
+                listenerContainer.start();
+                log.info("Subscribed to cache invalidation channel {} as node {}", channel, nodeId);
+            } catch (Exception e) {
+                log.warn("Cache invalidation subscription failed, retrying in {}s: {}",
+                        SUBSCRIBE_RETRY_INTERVAL.toSeconds(), e.getMessage());
+                try {
+                    Thread.sleep(SUBSCRIBE_RETRY_INTERVAL.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidationMessage invalidation;
+        try {
+            invalidation = objectMapper.readValue(message.getBody(), CacheInvalidationMessage.class);
+        } catch (Exception e) {
+            log.warn("Discarding unreadable cache invalidation message", e);
+            return;
+        }
+        if (nodeId.equals(invalidation.getOrigin())) {
+            return;
+        }
+        log.debug("Received cache invalidation for {}::{} from {}",
+                invalidation.getCacheName(), invalidation.getKey(), invalidation.getOrigin());
+        listeners.forEach(listener -> listener.accept(invalidation));
+    }
+}
@@ -0,0 +1,21 @@
+package com.spring.notes.app.service.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Broadcast on the invalidation channel whenever a node mutates a cache entry.
+ * A {@code null} key means the whole cache was cleared.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidationMessage {
+
+    private String origin;
+    private String cacheName;
+    private String key;
+}
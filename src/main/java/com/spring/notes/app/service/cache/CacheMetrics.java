@@ -0,0 +1,86 @@
+package com.spring.notes.app.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Meter names and tags shared by the cache tiers.
+ */
+public final class CacheMetrics {
+
+    public static final String REQUESTS = "notes.cache.requests";
+    public static final String L1_WEIGHT = "notes.cache.l1.weight";
+    public static final String L1_OFF_HEAP_USED = "notes.cache.l1.offheap.used";
+    public static final String L1_OFF_HEAP_CAPACITY = "notes.cache.l1.offheap.capacity";
+    public static final String REGION_EVENTS = "notes.cache.region.events";
+    public static final String REGION_LOADS = "notes.cache.region.loads";
+    public static final String SINGLE_FLIGHT = "notes.cache.singleflight";
+    public static final String REFRESHES = "notes.cache.refresh";
+    public static final String REFRESH_DURATION = "notes.cache.refresh.duration";
+    public static final String REFRESH_QUEUE = "notes.cache.refresh.queue";
+    public static final String OWNED_NOTE_FILTER_CHECKS = "notes.cache.owned_filter.checks";
+    public static final String OWNED_NOTE_FILTER_FALSE_POSITIVES = "notes.cache.owned_filter.false_positives";
+    public static final String OWNED_NOTE_FILTER_FALSE_POSITIVE_RATE = "notes.cache.owned_filter.false_positive_rate";
+    public static final String PURGED_KEYS = "notes.cache.purge.keys";
+    public static final String ADMISSIONS = "notes.cache.admission";
+    public static final String USER_BYTES = "notes.cache.user.bytes";
+    public static final String LISTING_INDEX = "notes.cache.listing_index";
+    public static final String WRITE_BATCH_SIZE = "notes.cache.write_batch.size";
+    public static final String WRITE_BATCH_LATENCY = "notes.cache.write_batch.latency";
+    public static final String WRITE_BATCHES = "notes.cache.write_batch.outcomes";
+    public static final String TRACKING_INVALIDATIONS = "notes.cache.tracking.invalidations";
+    public static final String TRACKING_WEIGHT = "notes.cache.tracking.weight";
+    public static final String TRACKING_ENTRIES = "notes.cache.tracking.entries";
+    public static final String WARMUP_DURATION = "notes.cache.warmup.duration";
+    public static final String WARMUP_COVERAGE = "notes.cache.warmup.coverage";
+    public static final String WARMUP_USERS = "notes.cache.warmup.users";
+    public static final String CIRCUIT_STATE = "notes.redis.circuit.state";
+    public static final String CIRCUIT_CALLS = "notes.redis.circuit.calls";
+    public static final String CIRCUIT_TRANSITIONS = "notes.redis.circuit.transitions";
+    public static final String DEFERRED_WRITES = "notes.cache.write_batch.deferred";
+    public static final String WRITE_BEHIND = "notes.cache.write_behind.populations";
+    public static final String WRITE_BEHIND_QUEUE = "notes.cache.write_behind.queue";
+    public static final String WRITE_BEHIND_LATENCY = "notes.cache.write_behind.latency";
+    public static final String SHARD_COMMANDS = "notes.redis.shard.commands";
+    public static final String SHARD_SHARE = "notes.redis.shard.share";
+
+    public static final String TRACKING_CACHE = "redis";
+
+    public static final String TIER_L1 = "l1";
+    public static final String TIER_L2 = "l2";
+    public static final String TIER_CLIENT = "client";
+
+    public static final String RESULT_HIT = "hit";
+    public static final String RESULT_MISS = "miss";
+    public static final String RESULT_BYPASS = "bypass";
+
+    public static final String EVENT_PUT = "put";
+    public static final String EVENT_EVICT = "evict";
+    public static final String EVENT_REJECT = "reject";
+
+    public static final String ADMITTED = "admitted";
+    public static final String REJECTED_FREQUENCY = "rejected_frequency";
+    public static final String REJECTED_SIZE = "rejected_size";
+    public static final String REJECTED_BUDGET = "rejected_budget";
+
+    private CacheMetrics() {
+    }
+
+    public static Counter requests(MeterRegistry meterRegistry, String cacheName, String tier, String result) {
+        return Counter.builder(REQUESTS)
+                .description("Cache lookups per tier and outcome")
+                .tag("cache", cacheName)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public static Counter admissions(MeterRegistry meterRegistry, String cacheName, String tier, String outcome) {
+        return Counter.builder(ADMISSIONS)
+                .description("Cache admission decisions per tier and outcome")
+                .tag("cache", cacheName)
+                .tag("tier", tier)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,30 @@
+package com.spring.notes.app.service.cache;
+
+/**
+ * The versioned key namespace shared by every cache structure this app version writes to
+ * Redis (see {@link CacheSchemaVersion}).
+ */
+public class CacheNamespace {
+
+    private final String value;
+
+    public CacheNamespace(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Key prefix of a named cache, e.g. {@code v3f9a1c2e:notes::}.
+     */
+    public String prefix(String cacheName) {
+        return value + ":" + cacheName + "::";
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -0,0 +1,62 @@
+package com.spring.notes.app.service.cache;
+
+import java.time.Duration;
+
+/**
+ * The note cache regions together with their TTL policy. Each region maps to one
+ * named cache of the {@link org.springframework.cache.CacheManager}.
+ * <p>
+ * Refresh-ahead regions store {@link CacheEnvelope}s whose logical expiry is the region
+ * TTL; the stored entry is kept for half a TTL longer so a stale value can be served
+ * while it is recomputed in the background.
+ */
+public enum CacheRegion {
+
+    NOTES("notes", Duration.ofMinutes(30), false),
+    USER_NOTES("userNotes", Duration.ofMinutes(15), true),
+    NOTE_CATEGORIES("noteCategories", Duration.ofMinutes(30), true),
+    NOTE_COUNTS("noteCounts", Duration.ofMinutes(10), true),
+    NOTE_PAGES("notePages", Duration.ofMinutes(5), false);
+
+    private final String cacheName;
+    private final Duration ttl;
+    private final boolean refreshAhead;
+
+    CacheRegion(String cacheName, Duration ttl, boolean refreshAhead) {
+        this.cacheName = cacheName;
+        this.ttl = ttl;
+        this.refreshAhead = refreshAhead;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public boolean isRefreshAhead() {
+        return refreshAhead;
+    }
+
+    /**
+     * How long the cache store keeps an entry of this region.
+     */
+    public Duration getStoreTtl() {
+        return refreshAhead ? ttl.plus(ttl.dividedBy(2)) : ttl;
+    }
+
+    /**
+     * The longest store TTL of any region.
+     */
+    public static Duration maxStoreTtl() {
+        Duration max = Duration.ZERO;
+        for (CacheRegion region : values()) {
+            if (region.getStoreTtl().compareTo(max) > 0) {
+                max = region.getStoreTtl();
+            }
+        }
+        return max;
+    }
+}
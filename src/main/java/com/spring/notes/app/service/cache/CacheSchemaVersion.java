@@ -0,0 +1,102 @@
+package com.spring.notes.app.service.cache;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Derives the cache key namespace from the shape of the cached types, so that app versions
+ * whose cached values are not interchangeable read and write disjoint key spaces during a
+ * rolling deploy. Versions that agree on the shape share the namespace and keep each
+ * other's entries warm; entries of a retired namespace are never read again and expire by
+ * TTL, so a deploy never needs a flush.
+ * <p>
+ * The shape covers the class name, every instance field's name and declared type, and the
+ * constants of enums, following fields into the application's own types. The codec takes
+ * part too, since the compact and JSON encodings cannot read each other's values.
+ */
+public final class CacheSchemaVersion {
+
+    private static final String APP_PACKAGE = "com.spring.notes.app.";
+    private static final int HASH_LENGTH = 8;
+
+    private CacheSchemaVersion() {
+    }
+
+    /**
+     * Namespace for the given codec and cached types, e.g. {@code v3f9a1c2e}.
+     */
+    public static String of(String codec, Class<?>... cachedTypes) {
+        return "v" + hash(shape(codec, cachedTypes));
+    }
+
+    static String shape(String codec, Class<?>... cachedTypes) {
+        StringBuilder shape = new StringBuilder(codec.toLowerCase());
+        if ("compact".equalsIgnoreCase(codec)) {
+            shape.append('#').append(CompactCacheSerializer.SCHEMA_VERSION);
+        }
+        Set<Class<?>> visited = new LinkedHashSet<>();
+        for (Class<?> type : cachedTypes) {
+            describe(type, shape, visited);
+        }
+        return shape.toString();
+    }
+
+    private static void describe(Class<?> type, StringBuilder shape, Set<Class<?>> visited) {
+        if (!visited.add(type)) {
+            return;
+        }
+        shape.append('|').append(type.getName());
+        if (type.isEnum()) {
+            for (Object constant : type.getEnumConstants()) {
+                shape.append(',').append(((Enum<?>) constant).name());
+            }
+            return;
+        }
+        // Declared field order is not guaranteed across compilers, so sort by name
+        Field[] fields = type.getDeclaredFields();
+        Arrays.sort(fields, Comparator.comparing(Field::getName));
+        List<Field> serialized = Arrays.stream(fields)
+                .filter(field -> !Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers()))
+                .toList();
+        for (Field field : serialized) {
+            shape.append(',').append(field.getName()).append(':').append(field.getGenericType().getTypeName());
+        }
+        for (Field field : serialized) {
+            follow(field.getGenericType(), shape, visited);
+        }
+    }
+
+    private static void follow(Type type, StringBuilder shape, Set<Class<?>> visited) {
+        if (type instanceof ParameterizedType parameterized) {
+            follow(parameterized.getRawType(), shape, visited);
+            for (Type argument : parameterized.getActualTypeArguments()) {
+                follow(argument, shape, visited);
+            }
+        } else if (type instanceof Class<?> cls) {
+            Class<?> component = cls.isArray() ? cls.getComponentType() : cls;
+            if (component.getName().startsWith(APP_PACKAGE)) {
+                describe(component, shape, visited);
+            }
+        }
+    }
+
+    private static String hash(String shape) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(shape.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest).substring(0, HASH_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
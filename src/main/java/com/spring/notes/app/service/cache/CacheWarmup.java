@@ -0,0 +1,245 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.dto.response.NoteResponse;
+import com.spring.notes.app.entity.Note;
+import com.spring.notes.app.entity.User;
+import com.spring.notes.app.repository.NoteRepository;
+import com.spring.notes.app.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Preloads the note list, categories and total count of recently active users once the
+ * application has started, so a deploy or a Redis restart does not send every first
+ * request to the database. Recently active means having written a note within
+ * {@code active-within}, most recent first.
+ * <p>
+ * Users are warmed in batches on a small pool: one query loads the notes of a whole batch,
+ * and categories and counts are derived from them. Each value enters the cache through the
+ * {@link NoteCacheEngine}, so admission and concurrent loads are handled as for requests, and
+ * is stored as of a snapshot taken before the query, so a write racing the warm-up wins.
+ * <p>
+ * As a health indicator (in the readiness group) the warm-up reports {@code OUT_OF_SERVICE}
+ * until the share of warmed users reaches {@code min-coverage} or the {@code deadline}
+ * passes; warming then carries on in the background until every candidate is done.
+ */
+@Slf4j
+@Component
+public class CacheWarmup implements HealthIndicator {
+
+    private final NoteRepository noteRepository;
+    private final UserRepository userRepository;
+    private final NoteCacheEngine noteCacheEngine;
+    private final boolean enabled;
+    private final Duration activeWithin;
+    private final int maxUsers;
+    private final int batchSize;
+    private final int parallelism;
+    private final double minCoverage;
+    private final Duration deadline;
+
+    private final AtomicInteger warmedUsers = new AtomicInteger();
+    private final AtomicInteger failedUsers = new AtomicInteger();
+    private volatile int candidateUsers = -1;
+    private volatile long startedAt;
+    private volatile boolean finished;
+
+    private final Counter warmed;
+    private final Counter failed;
+    private final Timer duration;
+
+    public CacheWarmup(NoteRepository noteRepository,
+                       UserRepository userRepository,
+                       NoteCacheEngine noteCacheEngine,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.cache.warmup.enabled:true}") boolean enabled,
+                       @Value("${app.cache.warmup.active-within:7d}") Duration activeWithin,
+                       @Value("${app.cache.warmup.max-users:1000}") int maxUsers,
+                       @Value("${app.cache.warmup.batch-size:50}") int batchSize,
+                       @Value("${app.cache.warmup.parallelism:4}") int parallelism,
+                       @Value("${app.cache.warmup.min-coverage:0.9}") double minCoverage,
+                       @Value("${app.cache.warmup.deadline:60s}") Duration deadline) {
+        this.noteRepository = noteRepository;
+        this.userRepository = userRepository;
+        this.noteCacheEngine = noteCacheEngine;
+        this.enabled = enabled;
+        this.activeWithin = activeWithin;
+        this.maxUsers = maxUsers;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.minCoverage = minCoverage;
+        this.deadline = deadline;
+        this.warmed = users(meterRegistry, "warmed");
+        this.failed = users(meterRegistry, "failed");
+        this.duration = Timer.builder(CacheMetrics.WARMUP_DURATION)
+                .description("Time taken by the startup cache warm-up")
+                .register(meterRegistry);
+        Gauge.builder(CacheMetrics.WARMUP_COVERAGE, this, CacheWarmup::coverage)
+                .description("Share of recently active users whose caches have been warmed")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            finished = true;
+            return;
+        }
+        startedAt = System.nanoTime();
+        Thread thread = new Thread(this::warmUp, "cache-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Warm every candidate user; returns once all batches are done.
+     */
+    void warmUp() {
+        if (startedAt == 0) {
+            startedAt = System.nanoTime();
+        }
+        ExecutorService pool = null;
+        try {
+            List<Long> userIds = noteRepository.findRecentlyActiveUserIds(
+                    LocalDateTime.now().minus(activeWithin), PageRequest.of(0, maxUsers));
+            candidateUsers = userIds.size();
+            log.info("Cache warm-up started for {} recently active users", userIds.size());
+
+            AtomicInteger threadCount = new AtomicInteger();
+            pool = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+                Thread thread = new Thread(runnable, "cache-warmup-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            for (int from = 0; from < userIds.size(); from += batchSize) {
+                List<Long> batch = userIds.subList(from, Math.min(from + batchSize, userIds.size()));
+                pool.execute(() -> warmBatch(batch));
+            }
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Cache warm-up failed; caches fill on demand", e);
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+            long elapsed = System.nanoTime() - startedAt;
+            duration.record(elapsed, TimeUnit.NANOSECONDS);
+            finished = true;
+            log.info("Cache warm-up finished in {} ms: {} of {} users warmed ({} failed)",
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), warmedUsers.get(), Math.max(candidateUsers, 0),
+                    failedUsers.get());
+        }
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder health = isReady() ? Health.up() : Health.outOfService();
+        if (!enabled) {
+            return health.withDetail("enabled", false).build();
+        }
+        return health
+                .withDetail("finished", finished)
+                .withDetail("coverage", coverage())
+                .withDetail("warmedUsers", warmedUsers.get())
+                .withDetail("failedUsers", failedUsers.get())
+                .withDetail("candidateUsers", Math.max(candidateUsers, 0))
+                .withDetail("elapsedMs", startedAt == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt))
+                .build();
+    }
+
+    public boolean isReady() {
+        if (finished) {
+            return true;
+        }
+        if (startedAt == 0) {
+            return false;
+        }
+        return coverage() >= minCoverage || System.nanoTime() - startedAt >= deadline.toNanos();
+    }
+
+    /**
+     * Share of the candidate users warmed so far; 0 until they are known.
+     */
+    public double coverage() {
+        int candidates = candidateUsers;
+        if (candidates < 0) {
+            return 0.0;
+        }
+        return candidates == 0 ? 1.0 : (double) warmedUsers.get() / candidates;
+    }
+
+    private void warmBatch(List<Long> userIds) {
+        Map<Long, List<NoteResponse>> notesByUser = new HashMap<>();
+        List<User> users;
+        Map<Long, NoteCacheEngine.Snapshot> snapshots = new HashMap<>();
+        try {
+            users = userRepository.findAllById(userIds);
+            // Taken before the query: a write landing after it must not be hidden by the older snapshot
+            for (User user : users) {
+                snapshots.put(user.getId(), noteCacheEngine.snapshot(user));
+            }
+            for (Note note : noteRepository.findByUserIdIn(userIds)) {
+                notesByUser.computeIfAbsent(note.getUser().getId(), id -> new ArrayList<>()).add(NoteResponse.from(note));
+            }
+        } catch (Exception e) {
+            failedUsers.addAndGet(userIds.size());
+            failed.increment(userIds.size());
+            log.warn("Cache warm-up could not load a batch of {} users", userIds.size(), e);
+            return;
+        }
+
+        for (User user : users) {
+            try {
+                warm(user, snapshots.get(user.getId()), notesByUser.getOrDefault(user.getId(), List.of()));
+                warmedUsers.incrementAndGet();
+                warmed.increment();
+            } catch (Exception e) {
+                failedUsers.incrementAndGet();
+                failed.increment();
+                log.debug("Cache warm-up failed for user: {}", user.getId(), e);
+            }
+        }
+    }
+
+    private void warm(User user, NoteCacheEngine.Snapshot snapshot, List<NoteResponse> notes) {
+        List<String> categories = notes.stream()
+                .map(NoteResponse::getCategory)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        noteCacheEngine.preload(user, snapshot, notes, categories, notes.size());
+    }
+
+    private static Counter users(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(CacheMetrics.WARMUP_USERS)
+                .description("Users processed by the startup cache warm-up")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
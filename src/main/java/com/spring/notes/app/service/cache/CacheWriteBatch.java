@@ -0,0 +1,667 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.service.CachePurgeService;
+import com.spring.notes.app.service.RedisService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Collects the cache mutations of a transaction and applies them once it has committed,
+ * as a single pipelined round trip. A rolled-back transaction leaves the cache untouched,
+ * and the transaction itself never waits on Redis. Outside a transaction every mutation
+ * is applied immediately.
+ * <p>
+ * Entries of Redis-backed caches are written as raw commands using the cache's own key
+ * prefix, serializer and TTL, so they land exactly where a {@link Cache#put} would have put
+ * them; the in-process tier is updated once the pipeline has returned. Other caches are
+ * updated through the {@link Cache} API after the pipeline. If the pipeline fails, the
+ * database change stands and the affected entries stay stale until their TTL; the failure
+ * is logged and counted.
+ * <p>
+ * Versioned writes ({@link #putIfNewer}) keep the version of a cached value in a companion
+ * key and are applied by a Lua compare-and-set that refuses any version not newer than the
+ * cached one, so a slow reader can never replace a value with an older or equally old one.
+ * The version key outlives deletions of the value: a plain evict leaves it in place and
+ * {@link #evictFenced} replaces it with a tombstone.
+ * <p>
+ * Without Redis (the standalone profile) every mutation is a local update: counters go to the
+ * {@link RedisService}, there are no peers to publish to and scripts are not available.
+ * <p>
+ * While the {@link RedisCircuitBreaker} is open, batches are not sent but deferred, up to
+ * {@code max-deferred-writes} commands, and the in-process tier is only invalidated, never
+ * filled. Once Redis is reachable again the deferred batches are replayed in order before
+ * the breaker closes; batches flushed meanwhile queue up behind them. If the limit was
+ * exceeded the deferred writes are dropped and every cache key is purged instead.
+ * <p>
+ * With write-behind enabled, values stored within a transaction are not part of its
+ * pipeline: the pipeline only removes the cached value (for {@link #putIfNewer} it also
+ * raises the version key to just below the new version), and the value itself is serialized and sent
+ * by the {@link CacheWriteBehind} worker. The write therefore does not wait for the value
+ * to reach Redis, a read that follows it misses rather than seeing the old value, and an
+ * older value sent late is refused by the version check.
+ * <p>
+ * Each command goes to the {@link RedisShards shard} owning its key, one pipeline per
+ * shard; the primary's pipeline, which carries the invalidation messages, is sent last so
+ * that peers never re-read a value ahead of its write. Scripts must only touch keys of one
+ * shard, such as keys sharing a hash tag.
+ */
+@Slf4j
+@Component
+public class CacheWriteBatch {
+
+    private static final String VERSION_SUFFIX = "#v";
+    // Versions are compared as Lua numbers (doubles), exact up to 2^53
+    private static final String TOMBSTONE = String.valueOf((1L << 53) - 1);
+
+    private static final byte[] PUT_IF_NEWER_SCRIPT = """
+            local current = redis.call('get', KEYS[2])
+            if current and tonumber(current) >= tonumber(ARGV[2]) then return 0 end
+            redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[3])
+            redis.call('set', KEYS[2], ARGV[2], 'PX', ARGV[3])
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+
+    // Clears the value ahead of a write-behind put and refuses every version older than the put's;
+    // the version is never lowered, so a tombstone stays
+    private static final byte[] RESERVE_SCRIPT = """
+            redis.call('del', KEYS[1])
+            local current = redis.call('get', KEYS[2])
+            if not current or tonumber(current) < tonumber(ARGV[1]) then
+                redis.call('set', KEYS[2], ARGV[1], 'PX', ARGV[2])
+            end
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] FENCE_SCRIPT = """
+            redis.call('del', KEYS[1])
+            redis.call('set', KEYS[2], ARGV[1], 'PX', ARGV[2])
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Increments KEYS[1] by ARGV[1], first setting a missing key to ARGV[2].
+     */
+    public static final String SEEDED_INCREMENT_SCRIPT = """
+            redis.call('set', KEYS[1], ARGV[2], 'NX')
+            return redis.call('incrby', KEYS[1], ARGV[1])
+            """;
+
+    private final RedisShards shards;
+    private final RedisService redisService;
+    private final CacheInvalidationBus invalidationBus;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final CacheWriteBehind writeBehind;
+    private final ObjectProvider<CachePurgeService> purgeService;
+    private final int maxDeferredWrites;
+    private final DistributionSummary batchSizes;
+    private final Timer flushes;
+    private final Counter failures;
+    private final Counter discarded;
+    private final Counter deferredBatches;
+    private final Counter droppedBatches;
+
+    // Commands not sent while the breaker was open, oldest first; guarded by itself
+    private final Deque<List<Command>> deferred = new ArrayDeque<>();
+    private volatile int deferredCommands;
+    private boolean deferredDropped;
+    private final ReentrantLock replaying = new ReentrantLock();
+
+    public CacheWriteBatch(@Nullable RedisShards shards, RedisService redisService,
+                           CacheInvalidationBus invalidationBus, MeterRegistry meterRegistry,
+                           @Nullable RedisCircuitBreaker circuitBreaker, @Nullable CacheWriteBehind writeBehind,
+                           ObjectProvider<CachePurgeService> purgeService,
+                           @Value("${app.redis.circuit-breaker.max-deferred-writes:10000}") int maxDeferredWrites) {
+        this.shards = shards;
+        this.redisService = redisService;
+        this.invalidationBus = invalidationBus;
+        this.circuitBreaker = circuitBreaker;
+        this.writeBehind = writeBehind;
+        this.purgeService = purgeService;
+        this.maxDeferredWrites = maxDeferredWrites;
+        this.batchSizes = DistributionSummary.builder(CacheMetrics.WRITE_BATCH_SIZE)
+                .description("Redis commands per cache write batch flushed after commit")
+                .register(meterRegistry);
+        this.flushes = Timer.builder(CacheMetrics.WRITE_BATCH_LATENCY)
+                .description("Round-trip time of pipelined cache write batches")
+                .register(meterRegistry);
+        this.failures = outcome(meterRegistry, "failed");
+        this.discarded = outcome(meterRegistry, "discarded");
+        this.deferredBatches = outcome(meterRegistry, "deferred");
+        this.droppedBatches = outcome(meterRegistry, "dropped");
+        Gauge.builder(CacheMetrics.DEFERRED_WRITES, this, batch -> batch.deferredCommands)
+                .description("Cache writes waiting for Redis to become reachable again")
+                .register(meterRegistry);
+        if (circuitBreaker != null) {
+            circuitBreaker.onRecovery(this::replayDeferred);
+        }
+    }
+
+    /**
+     * Store {@code value} under {@code key} once the transaction commits.
+     */
+    public void put(Cache cache, String key, Object value) {
+        RedisCache redisCache = redisCache(cache);
+        if (redisCache == null) {
+            enqueue(null, () -> cache.put(key, value));
+            return;
+        }
+        String cacheKey = cacheKey(redisCache, key);
+        if (writesBehind()) {
+            byte[] rawKey = rawKey(redisCache, key);
+            Runnable localInvalidation = localInvalidation(cache, key);
+            enqueue(cacheKey, connection -> connection.keyCommands().del(rawKey),
+                    () -> {
+                        if (localInvalidation != null) {
+                            localInvalidation.run();
+                        }
+                        writeBehind.offer(cacheKey, 0, () -> setCommand(redisCache, key, value));
+                    },
+                    localInvalidation);
+        } else {
+            enqueue(cacheKey, setCommand(redisCache, key, value),
+                    cache instanceof TwoLevelCache twoLevelCache ? () -> twoLevelCache.getNearCache().put(key, value) : null,
+                    localInvalidation(cache, key));
+        }
+        if (cache instanceof TwoLevelCache) {
+            publish(cache.getName(), key);
+        }
+    }
+
+    /**
+     * Remove {@code key} once the transaction commits.
+     */
+    public void evict(Cache cache, String key) {
+        RedisCache redisCache = redisCache(cache);
+        if (redisCache == null) {
+            enqueue(null, () -> cache.evict(key));
+            return;
+        }
+        byte[] rawKey = rawKey(redisCache, key);
+        enqueue(cacheKey(redisCache, key), connection -> connection.keyCommands().del(rawKey), localInvalidation(cache, key));
+        if (cache instanceof TwoLevelCache) {
+            publish(cache.getName(), key);
+        }
+    }
+
+    /**
+     * Store {@code value} under {@code key} once the transaction commits, unless the cache
+     * already holds the same or a newer version. The in-process tier is only invalidated, as the outcome
+     * of the comparison is not known locally.
+     *
+     * @param versionOf extracts the version of a cached value; used for caches not backed by Redis
+     */
+    public void putIfNewer(Cache cache, String key, Object value, long version, ToLongFunction<Object> versionOf) {
+        RedisCache redisCache = redisCache(cache);
+        if (redisCache == null) {
+            enqueue(null, () -> putLocallyIfNewer(cache, key, value, version, versionOf));
+            return;
+        }
+        String cacheKey = cacheKey(redisCache, key);
+        if (writesBehind()) {
+            RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+            byte[][] keysAndArgs = {
+                    serializeKey(config, cacheKey),
+                    serializeKey(config, cacheKey + VERSION_SUFFIX),
+                    // Just below the put's own version, which must still be accepted once it arrives
+                    String.valueOf(version - 1).getBytes(StandardCharsets.UTF_8),
+                    ttlMillis(config, key, value)
+            };
+            Runnable localInvalidation = localInvalidation(cache, key);
+            enqueue(cacheKey, connection -> connection.scriptingCommands().eval(RESERVE_SCRIPT, ReturnType.INTEGER, 2, keysAndArgs),
+                    () -> {
+                        if (localInvalidation != null) {
+                            localInvalidation.run();
+                        }
+                        writeBehind.offer(cacheKey, version, () -> putIfNewerCommand(redisCache, key, value, version));
+                    },
+                    localInvalidation);
+        } else {
+            enqueue(cacheKey, putIfNewerCommand(redisCache, key, value, version), localInvalidation(cache, key));
+        }
+        if (cache instanceof TwoLevelCache) {
+            publish(cache.getName(), key);
+        }
+    }
+
+    /**
+     * Like {@link #putIfNewer}, but sent right away, even within a transaction, and never
+     * written behind. For values loaded from the database: they do not depend on the
+     * surrounding transaction, and a single-flight leader must have stored its result before
+     * it releases the lease other nodes are waiting on.
+     */
+    public void putIfNewerNow(Cache cache, String key, Object value, long version, ToLongFunction<Object> versionOf) {
+        Batch batch = new Batch();
+        RedisCache redisCache = redisCache(cache);
+        if (redisCache == null) {
+            Runnable localPut = () -> putLocallyIfNewer(cache, key, value, version, versionOf);
+            batch.add(null, localPut, localPut);
+        } else {
+            Runnable localInvalidation = localInvalidation(cache, key);
+            batch.add(new Command(shards.forKey(cacheKey(redisCache, key)), putIfNewerCommand(redisCache, key, value, version)),
+                    localInvalidation, localInvalidation);
+            if (cache instanceof TwoLevelCache) {
+                batch.add(new Command(shards.primary(),
+                        connection -> invalidationBus.publish(connection, cache.getName(), key)), null, null);
+            }
+        }
+        apply(batch);
+    }
+
+    /**
+     * Remove {@code key} once the transaction commits and refuse every later
+     * {@link #putIfNewer} of it for one TTL; for values whose source no longer exists.
+     */
+    public void evictFenced(Cache cache, String key) {
+        RedisCache redisCache = redisCache(cache);
+        if (redisCache == null) {
+            evict(cache, key);
+            return;
+        }
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        String cacheKey = cacheKey(redisCache, key);
+        byte[][] keysAndArgs = {
+                serializeKey(config, cacheKey),
+                serializeKey(config, cacheKey + VERSION_SUFFIX),
+                TOMBSTONE.getBytes(StandardCharsets.UTF_8),
+                ttlMillis(config, key, null)
+        };
+        enqueue(cacheKey, connection -> connection.scriptingCommands().eval(FENCE_SCRIPT, ReturnType.INTEGER, 2, keysAndArgs),
+                localInvalidation(cache, key));
+        if (cache instanceof TwoLevelCache) {
+            publish(cache.getName(), key);
+        }
+    }
+
+    /**
+     * Whether {@code key} holds the version or delete fence of a cache entry rather than a value.
+     */
+    public static boolean isVersionKey(String key) {
+        return key.endsWith(VERSION_SUFFIX);
+    }
+
+    /**
+     * Increment a counter by one, creating a missing one at {@code initial}.
+     */
+    public void increment(String key, long initial) {
+        if (shards == null) {
+            enqueue(null, () -> redisService.increment(key, 1, initial));
+            return;
+        }
+        eval(SEEDED_INCREMENT_SCRIPT, List.of(key), List.of("1", String.valueOf(initial)));
+    }
+
+    /**
+     * Run a Lua script with integer reply on the shard of its first key; keys and arguments
+     * are sent as UTF-8 strings.
+     */
+    public void eval(String script, List<String> keys, List<String> args) {
+        if (shards == null) {
+            throw new IllegalStateException("Lua scripts need Redis");
+        }
+        byte[] rawScript = script.getBytes(StandardCharsets.UTF_8);
+        byte[][] keysAndArgs = new byte[keys.size() + args.size()][];
+        int i = 0;
+        for (String key : keys) {
+            keysAndArgs[i++] = key.getBytes(StandardCharsets.UTF_8);
+        }
+        for (String arg : args) {
+            keysAndArgs[i++] = arg.getBytes(StandardCharsets.UTF_8);
+        }
+        enqueue(keys.get(0), connection -> connection.scriptingCommands().eval(rawScript, ReturnType.INTEGER, keys.size(), keysAndArgs), null);
+    }
+
+    /**
+     * Tell the other nodes to drop their local copy of {@code key}, after the preceding writes.
+     */
+    public void publish(String cacheName, String key) {
+        if (shards == null) {
+            return;
+        }
+        // Published on the primary, which the invalidation bus subscribes to
+        enqueue(new Command(shards.primary(), connection -> invalidationBus.publish(connection, cacheName, key)), null, null);
+    }
+
+    /**
+     * Run an in-process update once the batch has reached Redis.
+     */
+    public void afterFlush(Runnable localUpdate) {
+        enqueue(null, localUpdate);
+    }
+
+    private void enqueue(Command command, Runnable localUpdate) {
+        enqueue(command, localUpdate, localUpdate);
+    }
+
+    private void enqueue(String redisKey, Consumer<RedisConnection> action, Runnable localUpdate) {
+        enqueue(redisKey, action, localUpdate, localUpdate);
+    }
+
+    private void enqueue(String redisKey, Consumer<RedisConnection> action, Runnable localUpdate, Runnable degradedUpdate) {
+        enqueue(new Command(shards.forKey(redisKey), action), localUpdate, degradedUpdate);
+    }
+
+    /**
+     * @param degradedUpdate runs instead of {@code localUpdate} if the command cannot be sent now
+     */
+    private void enqueue(Command command, Runnable localUpdate, Runnable degradedUpdate) {
+        Batch batch = currentBatch();
+        if (batch == null) {
+            batch = new Batch();
+            batch.add(command, localUpdate, degradedUpdate);
+            apply(batch);
+        } else {
+            batch.add(command, localUpdate, degradedUpdate);
+        }
+    }
+
+    private Batch currentBatch() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Batch batch = (Batch) TransactionSynchronizationManager.getResource(this);
+        if (batch != null) {
+            return batch;
+        }
+        Batch created = new Batch();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // Unbound first, so that nothing run by the flush can join the batch being flushed
+                TransactionSynchronizationManager.unbindResourceIfPossible(CacheWriteBatch.this);
+                apply(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (TransactionSynchronizationManager.unbindResourceIfPossible(CacheWriteBatch.this) != null) {
+                    discarded.increment();
+                    log.debug("Discarded {} cache writes of a rolled-back transaction", created.commands.size());
+                }
+            }
+        });
+        return created;
+    }
+
+    private void apply(Batch batch) {
+        if (!batch.commands.isEmpty()) {
+            batchSizes.record(batch.commands.size());
+            if (defer(batch.commands)) {
+                batch.degradedUpdates.forEach(Runnable::run);
+                replayIfClosed();
+                return;
+            }
+            try {
+                flushes.record(() -> pipeline(batch.commands));
+                log.debug("Flushed {} cache writes in one pipeline", batch.commands.size());
+            } catch (Exception e) {
+                failures.increment();
+                log.error("Failed to flush {} cache writes; affected entries stay stale until they expire",
+                        batch.commands.size(), e);
+            }
+        }
+        batch.localUpdates.forEach(Runnable::run);
+    }
+
+    private void pipeline(List<Command> commands) {
+        if (circuitBreaker != null) {
+            circuitBreaker.execute(() -> {
+                send(commands);
+                return null;
+            });
+        } else {
+            send(commands);
+        }
+    }
+
+    /**
+     * One pipeline per shard, the primary's last.
+     */
+    private void send(List<Command> commands) {
+        Map<RedisShards.Shard, List<Consumer<RedisConnection>>> byShard = new LinkedHashMap<>();
+        for (Command command : commands) {
+            byShard.computeIfAbsent(command.shard(), shard -> new ArrayList<>()).add(command.action());
+        }
+        List<Consumer<RedisConnection>> primary = byShard.remove(shards.primary());
+        byShard.forEach(CacheWriteBatch::pipelineTo);
+        if (primary != null) {
+            pipelineTo(shards.primary(), primary);
+        }
+    }
+
+    private static void pipelineTo(RedisShards.Shard shard, List<Consumer<RedisConnection>> actions) {
+        shard.getTemplate().executePipelined((RedisCallback<Object>) connection -> {
+            actions.forEach(action -> action.accept(connection));
+            return null;
+        });
+    }
+
+    /**
+     * Queue the commands instead of sending them, if the breaker is open or earlier commands
+     * are still waiting to be replayed. Returns whether they were queued.
+     */
+    private boolean defer(List<Command> commands) {
+        if (circuitBreaker == null) {
+            return false;
+        }
+        synchronized (deferred) {
+            if (!circuitBreaker.isOpen() && deferred.isEmpty() && !deferredDropped) {
+                return false;
+            }
+            deferredBatches.increment();
+            if (deferredDropped || deferredCommands + commands.size() > maxDeferredWrites) {
+                if (!deferredDropped) {
+                    log.warn("More than {} cache writes deferred while Redis is unavailable; "
+                            + "every cache key will be purged once it is back", maxDeferredWrites);
+                }
+                droppedBatches.increment();
+                deferred.clear();
+                deferredCommands = 0;
+                deferredDropped = true;
+            } else {
+                deferred.add(commands);
+                deferredCommands += commands.size();
+            }
+            return true;
+        }
+    }
+
+    private void replayIfClosed() {
+        if (!circuitBreaker.isOpen()) {
+            try {
+                replayDeferred();
+            } catch (Exception e) {
+                log.warn("Could not replay deferred cache writes yet: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Send the deferred commands, oldest first, until none are left. Commands that could not
+     * be sent are put back, and the failure is rethrown.
+     */
+    private void replayDeferred() {
+        while (true) {
+            if (!replaying.tryLock()) {
+                // The thread holding the lock loops until the queue is empty
+                return;
+            }
+            try {
+                while (true) {
+                    List<Command> commands;
+                    boolean dropped;
+                    synchronized (deferred) {
+                        commands = deferred.peekFirst();
+                        dropped = deferredDropped;
+                    }
+                    if (dropped) {
+                        // Lost writes may have left anything stale; only a purge restores consistency
+                        purgeService.getObject().purgeAll();
+                        synchronized (deferred) {
+                            deferredDropped = false;
+                        }
+                        log.info("Purging the cache after dropping deferred writes");
+                        continue;
+                    }
+                    if (commands == null) {
+                        break;
+                    }
+                    send(commands);
+                    synchronized (deferred) {
+                        // Unless a drop has emptied the queue meanwhile, the sent batch is still its head
+                        if (deferred.peekFirst() == commands) {
+                            deferred.pollFirst();
+                            deferredCommands -= commands.size();
+                        }
+                    }
+                    log.debug("Replayed {} deferred cache writes", commands.size());
+                }
+            } finally {
+                replaying.unlock();
+            }
+            synchronized (deferred) {
+                if (deferred.isEmpty() && !deferredDropped) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether values stored now go through the write-behind worker: only within a transaction,
+     * as outside one every mutation is applied immediately.
+     */
+    private boolean writesBehind() {
+        return writeBehind != null && writeBehind.isEnabled()
+                && TransactionSynchronizationManager.isSynchronizationActive();
+    }
+
+    private static Consumer<RedisConnection> setCommand(RedisCache redisCache, String key, Object value) {
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        byte[] rawKey = rawKey(redisCache, key);
+        byte[] rawValue = bytes(config.getValueSerializationPair().write(value));
+        Duration ttl = config.getTtlFunction().getTimeToLive(key, value);
+        Expiration expiration = ttl.isZero() || ttl.isNegative() ? Expiration.persistent() : Expiration.from(ttl);
+        return connection -> connection.stringCommands().set(rawKey, rawValue, expiration, RedisStringCommands.SetOption.upsert());
+    }
+
+    private static Consumer<RedisConnection> putIfNewerCommand(RedisCache redisCache, String key, Object value, long version) {
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        String cacheKey = cacheKey(redisCache, key);
+        byte[][] keysAndArgs = {
+                serializeKey(config, cacheKey),
+                serializeKey(config, cacheKey + VERSION_SUFFIX),
+                bytes(config.getValueSerializationPair().write(value)),
+                String.valueOf(version).getBytes(StandardCharsets.UTF_8),
+                ttlMillis(config, key, value)
+        };
+        return connection -> connection.scriptingCommands().eval(PUT_IF_NEWER_SCRIPT, ReturnType.INTEGER, 2, keysAndArgs);
+    }
+
+    private static RedisCache redisCache(Cache cache) {
+        Cache target = cache instanceof TwoLevelCache twoLevelCache ? twoLevelCache.getRemoteCache() : cache;
+        return target instanceof RedisCache redisCache ? redisCache : null;
+    }
+
+    private static void putLocallyIfNewer(Cache cache, String key, Object value, long version,
+                                          ToLongFunction<Object> versionOf) {
+        Cache.ValueWrapper current = cache.get(key);
+        if (current == null || current.get() == null || versionOf.applyAsLong(current.get()) < version) {
+            cache.put(key, value);
+        }
+    }
+
+    private static Runnable localInvalidation(Cache cache, String key) {
+        return cache instanceof TwoLevelCache twoLevelCache ? () -> twoLevelCache.getNearCache().invalidate(key) : null;
+    }
+
+    private static byte[] rawKey(RedisCache cache, String key) {
+        return serializeKey(cache.getCacheConfiguration(), cacheKey(cache, key));
+    }
+
+    private static String cacheKey(RedisCache cache, String key) {
+        RedisCacheConfiguration config = cache.getCacheConfiguration();
+        return config.usePrefix() ? config.getKeyPrefixFor(cache.getName()) + key : key;
+    }
+
+    private static byte[] serializeKey(RedisCacheConfiguration config, String cacheKey) {
+        return bytes(config.getKeySerializationPair().write(cacheKey));
+    }
+
+    private static byte[] ttlMillis(RedisCacheConfiguration config, String key, Object value) {
+        long millis = config.getTtlFunction().getTimeToLive(key, value).toMillis();
+        if (millis <= 0) {
+            throw new IllegalStateException("Versioned cache entries need a TTL");
+        }
+        return String.valueOf(millis).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(CacheMetrics.WRITE_BATCHES)
+                .description("Cache write batches that did not reach Redis")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A raw command and the shard it goes to.
+     */
+    private record Command(RedisShards.Shard shard, Consumer<RedisConnection> action) {
+    }
+
+    private static final class Batch {
+
+        private final List<Command> commands = new ArrayList<>();
+        private final List<Runnable> localUpdates = new ArrayList<>();
+        private final List<Runnable> degradedUpdates = new ArrayList<>();
+
+        private void add(Command command, Runnable localUpdate, Runnable degradedUpdate) {
+            if (command != null) {
+                commands.add(command);
+            }
+            if (localUpdate != null) {
+                localUpdates.add(localUpdate);
+            }
+            if (degradedUpdate != null) {
+                degradedUpdates.add(degradedUpdate);
+            }
+        }
+    }
+}
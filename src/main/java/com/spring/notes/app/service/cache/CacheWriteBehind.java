@@ -0,0 +1,269 @@
+package com.spring.notes.app.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Sends cache populations to Redis from a background worker, so a request that wrote a
+ * note does not wait for its new value to be serialized and stored. The
+ * {@link CacheWriteBatch} queues populations here once their transaction has committed;
+ * the worker takes up to {@code batch-size} of them at a time and sends them as one
+ * pipeline per {@link RedisShards shard}.
+ * <p>
+ * The queue holds at most one population per Redis key: a later population of a queued
+ * key replaces it in place, unless it carries an older version. Once
+ * {@code queue-capacity} keys are waiting, further populations are dropped and counted
+ * instead of blocking the caller. A dropped population, like one in a batch that failed or
+ * met an open {@link RedisCircuitBreaker}, costs a miss: the value fills on its next read.
+ * <p>
+ * Not available in the standalone profile, where there is no Redis round trip to save.
+ */
+@Slf4j
+@Component
+@Profile("!standalone")
+public class CacheWriteBehind {
+
+    private final RedisShards shards;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final boolean enabled;
+    private final int queueCapacity;
+    private final int batchSize;
+
+    // Populations waiting for the worker by Redis key, oldest first; guarded by lock
+    private final LinkedHashMap<String, Population> pending = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition idle = lock.newCondition();
+    private boolean sending;
+    private final Thread worker;
+
+    private final Counter queued;
+    private final Counter coalesced;
+    private final Counter dropped;
+    private final Counter sent;
+    private final Counter failed;
+    private final Timer flushes;
+
+    public CacheWriteBehind(RedisShards shards,
+                            RedisCircuitBreaker circuitBreaker,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.cache.write-behind.enabled:true}") boolean enabled,
+                            @Value("${app.cache.write-behind.queue-capacity:10000}") int queueCapacity,
+                            @Value("${app.cache.write-behind.batch-size:100}") int batchSize) {
+        this.shards = shards;
+        this.circuitBreaker = circuitBreaker;
+        this.enabled = enabled;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = Math.max(1, batchSize);
+        this.queued = outcome(meterRegistry, "queued");
+        this.coalesced = outcome(meterRegistry, "coalesced");
+        this.dropped = outcome(meterRegistry, "dropped");
+        this.sent = outcome(meterRegistry, "sent");
+        this.failed = outcome(meterRegistry, "failed");
+        this.flushes = Timer.builder(CacheMetrics.WRITE_BEHIND_LATENCY)
+                .description("Round-trip time of pipelined write-behind cache populations")
+                .register(meterRegistry);
+        Gauge.builder(CacheMetrics.WRITE_BEHIND_QUEUE, this, CacheWriteBehind::queueSize)
+                .description("Cache populations waiting for the write-behind worker")
+                .register(meterRegistry);
+
+        this.worker = new Thread(this::run, "cache-write-behind");
+        this.worker.setDaemon(true);
+        if (enabled) {
+            this.worker.start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a population of the Redis key {@code key}. {@code command} is called on the
+     * worker, so the value should only be serialized there. Returns false if the
+     * population was dropped.
+     *
+     * @param version populations of a queued key with a lower version are discarded
+     */
+    public boolean offer(String key, long version, Supplier<Consumer<RedisConnection>> command) {
+        lock.lock();
+        try {
+            Population existing = pending.get(key);
+            if (existing != null) {
+                coalesced.increment();
+                if (version >= existing.version) {
+                    // Replacing the value of a present key keeps its place in the queue
+                    pending.put(key, new Population(key, version, command));
+                }
+                return true;
+            }
+            if (pending.size() >= queueCapacity) {
+                dropped.increment();
+                log.debug("Write-behind queue full; dropped cache population of {}", key);
+                return false;
+            }
+            pending.put(key, new Population(key, version, command));
+            queued.increment();
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until every population queued so far has been sent or dropped.
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long nanos = timeout.toNanos();
+        lock.lock();
+        try {
+            while (!pending.isEmpty() || sending) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = idle.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queueSize() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!awaitIdle(Duration.ofSeconds(5))) {
+                log.warn("Shutting down with {} cache populations not sent", queueSize());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Population> batch;
+            try {
+                batch = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                send(batch);
+            } finally {
+                lock.lock();
+                try {
+                    sending = false;
+                    if (pending.isEmpty()) {
+                        idle.signalAll();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private List<Population> take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (pending.isEmpty()) {
+                notEmpty.await();
+            }
+            List<Population> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            Iterator<Population> populations = pending.values().iterator();
+            while (populations.hasNext() && batch.size() < batchSize) {
+                batch.add(populations.next());
+                populations.remove();
+            }
+            sending = true;
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void send(List<Population> batch) {
+        for (Map.Entry<RedisShards.Shard, List<Population>> partition : shards.partition(batch, Population::key).entrySet()) {
+            send(partition.getKey(), partition.getValue());
+        }
+    }
+
+    private void send(RedisShards.Shard shard, List<Population> populations) {
+        List<Consumer<RedisConnection>> commands = new ArrayList<>(populations.size());
+        for (Population population : populations) {
+            try {
+                commands.add(population.command.get());
+            } catch (Exception e) {
+                failed.increment();
+                log.warn("Could not serialize the cache population of {}", population.key, e);
+            }
+        }
+        if (commands.isEmpty()) {
+            return;
+        }
+        try {
+            flushes.record(() -> pipeline(shard, commands));
+            sent.increment(commands.size());
+            log.debug("Sent {} cache populations to {} in one pipeline", commands.size(), shard);
+        } catch (RedisCircuitOpenException e) {
+            dropped.increment(commands.size());
+        } catch (Exception e) {
+            failed.increment(commands.size());
+            log.warn("Failed to send {} cache populations to {}; the entries fill on their next read: {}",
+                    commands.size(), shard, e.getMessage());
+        }
+    }
+
+    private void pipeline(RedisShards.Shard shard, List<Consumer<RedisConnection>> commands) {
+        RedisCallback<Object> callback = connection -> {
+            commands.forEach(command -> command.accept(connection));
+            return null;
+        };
+        circuitBreaker.execute(() -> shard.getTemplate().executePipelined(callback));
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(CacheMetrics.WRITE_BEHIND)
+                .description("Cache populations handled by the write-behind worker, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record Population(String key, long version, Supplier<Consumer<RedisConnection>> command) {
+    }
+}
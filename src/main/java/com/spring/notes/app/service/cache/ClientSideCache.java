@@ -0,0 +1,186 @@
+package com.spring.notes.app.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local copy of plain Redis values kept coherent by server-assisted client tracking. Reads
+ * go over a dedicated RESP3 connection with {@code CLIENT TRACKING} on, so Redis remembers
+ * every key this node has read and pushes an invalidation as soon as one of them changes,
+ * expires or is evicted; the local copy is dropped on receipt. Missing keys are remembered
+ * as missing and are invalidated the same way.
+ * <p>
+ * The local store holds the raw bytes, weighed by length, so it is bounded in bytes and every
+ * caller deserializes its own copy. A TTL bounds staleness should a push ever be lost. When
+ * the tracking connection drops, Redis forgets what it was tracking for it, so everything
+ * held locally is dropped and the next read opens a new connection.
+ */
+@Slf4j
+public class ClientSideCache implements AutoCloseable {
+
+    private static final RedisCodec<String, byte[]> CODEC = RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE);
+    private static final byte[] ABSENT = new byte[0];
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final RedisClient client;
+    private final RedisSerializer<Object> valueSerializer;
+    private final Cache<String, byte[]> store;
+    // Bumped by every invalidation; a read only keeps its value if no invalidation overtook it
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+    private volatile StatefulRedisConnection<String, byte[]> connection;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter keyInvalidations;
+    private final Counter flushes;
+
+    /**
+     * @param client a client configured for RESP3, owned and shut down by this cache
+     */
+    public ClientSideCache(RedisClient client, RedisSerializer<Object> valueSerializer,
+                           long maxWeightBytes, Duration ttl, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.valueSerializer = valueSerializer;
+        this.store = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String key, byte[] value) -> ENTRY_OVERHEAD + key.length() * 2 + value.length)
+                .expireAfterWrite(ttl)
+                .build();
+        this.hits = CacheMetrics.requests(meterRegistry, CacheMetrics.TRACKING_CACHE, CacheMetrics.TIER_CLIENT, CacheMetrics.RESULT_HIT);
+        this.misses = CacheMetrics.requests(meterRegistry, CacheMetrics.TRACKING_CACHE, CacheMetrics.TIER_CLIENT, CacheMetrics.RESULT_MISS);
+        this.keyInvalidations = invalidations(meterRegistry, "key");
+        this.flushes = invalidations(meterRegistry, "flush");
+        Gauge.builder(CacheMetrics.TRACKING_WEIGHT, this, ClientSideCache::estimatedWeight)
+                .description("Bytes held by the client-side tracking cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder(CacheMetrics.TRACKING_ENTRIES, store, Cache::estimatedSize)
+                .description("Keys held by the client-side tracking cache")
+                .register(meterRegistry);
+
+        client.addListener(new RedisConnectionStateListener() {
+            @Override
+            public void onRedisDisconnected(RedisChannelHandler<?, ?> channel) {
+                if (channel == connection) {
+                    log.warn("Client tracking connection lost; dropping {} locally held keys", store.estimatedSize());
+                    invalidateAll();
+                }
+            }
+        });
+    }
+
+    /**
+     * Value of {@code key}, or null if it does not exist.
+     */
+    public Object get(String key) {
+        byte[] raw = store.getIfPresent(key);
+        if (raw != null) {
+            hits.increment();
+            return raw == ABSENT ? null : valueSerializer.deserialize(raw);
+        }
+        misses.increment();
+
+        StatefulRedisConnection<String, byte[]> tracked = connection();
+        long epoch = invalidationEpoch.get();
+        raw = tracked.sync().get(key);
+        store.put(key, raw != null ? raw : ABSENT);
+        // Store first, then check: an invalidation that raced the read either bumped the epoch
+        // before this check or runs after the put and removes the entry itself
+        if (invalidationEpoch.get() != epoch) {
+            store.invalidate(key);
+        }
+        return raw != null ? valueSerializer.deserialize(raw) : null;
+    }
+
+    /**
+     * Drop keys this node has just written; Redis pushes the same invalidation shortly after,
+     * this only makes the write visible to the next local read without waiting for it.
+     */
+    public void invalidate(Collection<String> keys) {
+        invalidationEpoch.incrementAndGet();
+        store.invalidateAll(keys);
+    }
+
+    public void invalidateAll() {
+        invalidationEpoch.incrementAndGet();
+        store.invalidateAll();
+    }
+
+    public long estimatedWeight() {
+        return store.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    @Override
+    public void close() {
+        StatefulRedisConnection<String, byte[]> current = connection;
+        if (current != null) {
+            current.close();
+        }
+        client.shutdown();
+    }
+
+    private StatefulRedisConnection<String, byte[]> connection() {
+        StatefulRedisConnection<String, byte[]> current = connection;
+        if (current != null && current.isOpen()) {
+            return current;
+        }
+        synchronized (this) {
+            if (connection != null && connection.isOpen()) {
+                return connection;
+            }
+            // Nothing read over a previous connection is tracked any more
+            invalidateAll();
+            StatefulRedisConnection<String, byte[]> opened = client.connect(CODEC);
+            opened.addListener(this::onPush);
+            opened.sync().clientTracking(TrackingArgs.Builder.enabled());
+            connection = opened;
+            log.info("Opened client tracking connection to Redis");
+            return opened;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onPush(PushMessage message) {
+        if (!"invalidate".equals(message.getType())) {
+            return;
+        }
+        List<Object> content = message.getContent(StringCodec.UTF8::decodeKey);
+        Object keys = content.size() > 1 ? content.get(1) : null;
+        if (keys instanceof List<?> list) {
+            invalidate((List<String>) list);
+            keyInvalidations.increment(list.size());
+        } else {
+            // A null key list means Redis flushed the database or dropped its tracking table
+            invalidateAll();
+            flushes.increment();
+        }
+    }
+
+    private static Counter invalidations(MeterRegistry meterRegistry, String type) {
+        return Counter.builder(CacheMetrics.TRACKING_INVALIDATIONS)
+                .description("Invalidations pushed by Redis for locally held keys")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,386 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.dto.response.NoteResponse;
+import com.spring.notes.app.dto.response.PageResponse;
+import com.spring.notes.app.entity.Note;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact, schema-versioned binary encoding of the note cache values: {@link NoteResponse},
+ * lists of notes or strings, {@link PageResponse}s, counts and {@link CacheEnvelope}s. Any other value is embedded
+ * as JSON produced by the fallback serializer. Payloads above the compression threshold are
+ * LZ4 compressed.
+ * <p>
+ * Layout: {@code MAGIC, SCHEMA_VERSION, flags, [uncompressed length], body}. Values that do
+ * not start with {@link #MAGIC} are read with the fallback serializer, so JSON entries
+ * written before switching codecs stay readable until they expire.
+ */
+public class CompactCacheSerializer implements RedisSerializer<Object> {
+
+    /**
+     * Never the first byte of a UTF-8 encoded JSON document.
+     */
+    static final byte MAGIC = (byte) 0xC1;
+    static final byte SCHEMA_VERSION = 1;
+
+    private static final int FLAG_LZ4 = 1;
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_LONG = 1;
+    private static final int TYPE_INT = 2;
+    private static final int TYPE_STRING = 3;
+    private static final int TYPE_NOTE = 4;
+    private static final int TYPE_LIST = 5;
+    private static final int TYPE_ENVELOPE = 6;
+    private static final int TYPE_JSON = 7;
+    private static final int TYPE_PAGE = 8;
+
+    private static final int PAGE_FIRST = 1;
+    private static final int PAGE_LAST = 1 << 1;
+    private static final int PAGE_HAS_NEXT = 1 << 2;
+    private static final int PAGE_HAS_PREVIOUS = 1 << 3;
+
+    private static final Note.Priority[] PRIORITIES = Note.Priority.values();
+    private static final Note.Status[] STATUSES = Note.Status.values();
+
+    private final RedisSerializer<Object> fallback;
+    private final int compressionThreshold;
+    private final LZ4Compressor compressor;
+    private final LZ4SafeDecompressor decompressor;
+
+    public CompactCacheSerializer(RedisSerializer<Object> fallback, int compressionThreshold) {
+        this.fallback = fallback;
+        this.compressionThreshold = compressionThreshold;
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.safeDecompressor();
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+            writeValue(new DataOutputStream(body), value);
+            byte[] raw = body.toByteArray();
+
+            if (raw.length < compressionThreshold) {
+                return frame(0, raw, raw.length);
+            }
+            byte[] compressed = new byte[compressor.maxCompressedLength(raw.length)];
+            int compressedLength = compressor.compress(raw, 0, raw.length, compressed, 0, compressed.length);
+            if (compressedLength >= raw.length) {
+                return frame(0, raw, raw.length);
+            }
+            return frame(FLAG_LZ4, compressed, compressedLength, raw.length);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write compact cache value", e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        if (bytes.length < 3 || bytes[1] > SCHEMA_VERSION) {
+            throw new SerializationException("Unsupported compact cache value version: " + bytes[1]);
+        }
+        try {
+            byte[] body;
+            int offset;
+            int length;
+            if ((bytes[2] & FLAG_LZ4) != 0) {
+                int rawLength = ByteBuffer.wrap(bytes, 3, 4).getInt();
+                body = new byte[rawLength];
+                decompressor.decompress(bytes, 7, bytes.length - 7, body, 0);
+                offset = 0;
+                length = rawLength;
+            } else {
+                body = bytes;
+                offset = 3;
+                length = bytes.length - 3;
+            }
+            return readValue(new DataInputStream(new ByteArrayInputStream(body, offset, length)));
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Could not read compact cache value", e);
+        }
+    }
+
+    private byte[] frame(int flags, byte[] body, int bodyLength) {
+        byte[] framed = new byte[3 + bodyLength];
+        framed[0] = MAGIC;
+        framed[1] = SCHEMA_VERSION;
+        framed[2] = (byte) flags;
+        System.arraycopy(body, 0, framed, 3, bodyLength);
+        return framed;
+    }
+
+    private byte[] frame(int flags, byte[] body, int bodyLength, int rawLength) {
+        byte[] framed = new byte[7 + bodyLength];
+        framed[0] = MAGIC;
+        framed[1] = SCHEMA_VERSION;
+        framed[2] = (byte) flags;
+        ByteBuffer.wrap(framed, 3, 4).putInt(rawLength);
+        System.arraycopy(body, 0, framed, 7, bodyLength);
+        return framed;
+    }
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof Long number) {
+            out.writeByte(TYPE_LONG);
+            writeVarLong(out, number);
+        } else if (value instanceof Integer number) {
+            out.writeByte(TYPE_INT);
+            writeVarLong(out, number);
+        } else if (value instanceof String string) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, string);
+        } else if (value instanceof NoteResponse note) {
+            out.writeByte(TYPE_NOTE);
+            writeNote(out, note);
+        } else if (value instanceof List<?> list) {
+            out.writeByte(TYPE_LIST);
+            writeVarLong(out, list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof PageResponse<?> page) {
+            out.writeByte(TYPE_PAGE);
+            writePage(out, page);
+        } else if (value instanceof CacheEnvelope envelope) {
+            out.writeByte(TYPE_ENVELOPE);
+            writeVarLong(out, envelope.getDelta());
+            writeVarLong(out, envelope.getExpiresAt());
+            writeValue(out, envelope.getValue());
+        } else {
+            byte[] json = fallback.serialize(value);
+            out.writeByte(TYPE_JSON);
+            writeVarLong(out, json.length);
+            out.write(json);
+        }
+    }
+
+    private Object readValue(DataInputStream in) throws IOException {
+        int type = in.readUnsignedByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_LONG:
+                return readVarLong(in);
+            case TYPE_INT:
+                return (int) readVarLong(in);
+            case TYPE_STRING:
+                return readString(in);
+            case TYPE_NOTE:
+                return readNote(in);
+            case TYPE_LIST: {
+                int size = (int) readVarLong(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case TYPE_ENVELOPE: {
+                long delta = readVarLong(in);
+                long expiresAt = readVarLong(in);
+                return new CacheEnvelope(readValue(in), delta, expiresAt);
+            }
+            case TYPE_PAGE:
+                return readPage(in);
+            case TYPE_JSON: {
+                byte[] json = new byte[(int) readVarLong(in)];
+                in.readFully(json);
+                return fallback.deserialize(json);
+            }
+            default:
+                throw new SerializationException("Unknown compact cache value type: " + type);
+        }
+    }
+
+    /*
+     * A note is a presence bitmask followed by the present fields in declaration order.
+     * New fields must be appended and guarded by a new bit; removing or reordering fields
+     * requires a SCHEMA_VERSION bump.
+     */
+    private void writeNote(DataOutputStream out, NoteResponse note) throws IOException {
+        int present = 0;
+        Object[] fields = {note.getId(), note.getTitle(), note.getContent(), note.getPriority(), note.getStatus(),
+                note.getCategory(), note.getCreatedAt(), note.getUpdatedAt(), note.getCompletedAt(), note.getVersion()};
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] != null) {
+                present |= 1 << i;
+            }
+        }
+        writeVarLong(out, present);
+
+        if (note.getId() != null) {
+            writeVarLong(out, note.getId());
+        }
+        if (note.getTitle() != null) {
+            writeString(out, note.getTitle());
+        }
+        if (note.getContent() != null) {
+            writeString(out, note.getContent());
+        }
+        if (note.getPriority() != null) {
+            out.writeByte(note.getPriority().ordinal());
+        }
+        if (note.getStatus() != null) {
+            out.writeByte(note.getStatus().ordinal());
+        }
+        if (note.getCategory() != null) {
+            writeString(out, note.getCategory());
+        }
+        writeDateTime(out, note.getCreatedAt());
+        writeDateTime(out, note.getUpdatedAt());
+        writeDateTime(out, note.getCompletedAt());
+        if (note.getVersion() != null) {
+            writeVarLong(out, note.getVersion());
+        }
+    }
+
+    private NoteResponse readNote(DataInputStream in) throws IOException {
+        int present = (int) readVarLong(in);
+        NoteResponse note = new NoteResponse();
+        if ((present & 1) != 0) {
+            note.setId(readVarLong(in));
+        }
+        if ((present & 1 << 1) != 0) {
+            note.setTitle(readString(in));
+        }
+        if ((present & 1 << 2) != 0) {
+            note.setContent(readString(in));
+        }
+        if ((present & 1 << 3) != 0) {
+            note.setPriority(PRIORITIES[in.readUnsignedByte()]);
+        }
+        if ((present & 1 << 4) != 0) {
+            note.setStatus(STATUSES[in.readUnsignedByte()]);
+        }
+        if ((present & 1 << 5) != 0) {
+            note.setCategory(readString(in));
+        }
+        if ((present & 1 << 6) != 0) {
+            note.setCreatedAt(readDateTime(in));
+        }
+        if ((present & 1 << 7) != 0) {
+            note.setUpdatedAt(readDateTime(in));
+        }
+        if ((present & 1 << 8) != 0) {
+            note.setCompletedAt(readDateTime(in));
+        }
+        if ((present & 1 << 9) != 0) {
+            note.setVersion(readVarLong(in));
+        }
+        return note;
+    }
+
+    private void writePage(DataOutputStream out, PageResponse<?> page) throws IOException {
+        writeVarLong(out, page.getPage());
+        writeVarLong(out, page.getSize());
+        writeVarLong(out, page.getTotalElements());
+        writeVarLong(out, page.getTotalPages());
+        int flags = (page.isFirst() ? PAGE_FIRST : 0)
+                | (page.isLast() ? PAGE_LAST : 0)
+                | (page.isHasNext() ? PAGE_HAS_NEXT : 0)
+                | (page.isHasPrevious() ? PAGE_HAS_PREVIOUS : 0);
+        out.writeByte(flags);
+        writeValue(out, page.getContent());
+    }
+
+    @SuppressWarnings("unchecked")
+    private PageResponse<Object> readPage(DataInputStream in) throws IOException {
+        PageResponse<Object> page = new PageResponse<>();
+        page.setPage((int) readVarLong(in));
+        page.setSize((int) readVarLong(in));
+        page.setTotalElements(readVarLong(in));
+        page.setTotalPages((int) readVarLong(in));
+        int flags = in.readUnsignedByte();
+        page.setFirst((flags & PAGE_FIRST) != 0);
+        page.setLast((flags & PAGE_LAST) != 0);
+        page.setHasNext((flags & PAGE_HAS_NEXT) != 0);
+        page.setHasPrevious((flags & PAGE_HAS_PREVIOUS) != 0);
+        page.setContent((List<Object>) readValue(in));
+        return page;
+    }
+
+    private void writeDateTime(DataOutputStream out, LocalDateTime dateTime) throws IOException {
+        if (dateTime != null) {
+            writeVarLong(out, dateTime.toEpochSecond(ZoneOffset.UTC));
+            writeVarLong(out, dateTime.getNano());
+        }
+    }
+
+    private LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        long seconds = readVarLong(in);
+        int nanos = (int) readVarLong(in);
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Zig-zag LEB128, so small magnitudes of either sign take one or two bytes.
+     */
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.write((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.write((int) zigZag);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long zigZag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new SerializationException("Malformed variable-length number");
+    }
+}
@@ -0,0 +1,107 @@
+package com.spring.notes.app.service.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Consistent-hash ring over a fixed set of nodes. Each node is placed at
+ * {@code virtualNodes} points derived from its name, and a key belongs to the first point
+ * at or after its own hash, so adding or removing one of N nodes only moves about 1/N of
+ * the keys, and load evens out as the number of points grows.
+ * <p>
+ * Keys follow the Redis Cluster hash tag rule: if a key contains {@code {...}} with a
+ * non-empty content, only that content is hashed. Keys sharing a tag, such as all keys of
+ * one user, therefore always land on the same node.
+ */
+public class ConsistentHashRing<T> {
+
+    private final TreeMap<Long, T> ring = new TreeMap<>();
+    private final Map<T, Double> shares = new LinkedHashMap<>();
+
+    /**
+     * @param name stable name of a node; placement depends only on it, not on the order of {@code nodes}
+     */
+    public ConsistentHashRing(Collection<T> nodes, Function<T, String> name, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one node");
+        }
+        for (T node : nodes) {
+            shares.put(node, 0.0);
+            for (int i = 0; i < virtualNodes; i++) {
+                // On a (very unlikely) collision the node with the smaller name keeps the point
+                ring.merge(hash(name.apply(node) + "#" + i), node,
+                        (current, other) -> name.apply(current).compareTo(name.apply(other)) <= 0 ? current : other);
+            }
+        }
+        computeShares();
+    }
+
+    public T nodeFor(String key) {
+        Map.Entry<Long, T> entry = ring.ceilingEntry(hash(hashTag(key)));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * Fraction of the hash space owned by {@code node}, i.e. of the keys it can expect.
+     */
+    public double share(T node) {
+        return shares.getOrDefault(node, 0.0);
+    }
+
+    public List<T> nodes() {
+        return List.copyOf(shares.keySet());
+    }
+
+    /**
+     * The part of a key that decides its node: the content of its first non-empty
+     * {@code {...}}, or else the whole key.
+     */
+    static String hashTag(String key) {
+        int open = key.indexOf('{');
+        if (open >= 0) {
+            int close = key.indexOf('}', open + 1);
+            if (close > open + 1) {
+                return key.substring(open + 1, close);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * 64-bit FNV-1a of the UTF-8 bytes, with the MurmurHash3 finalizer for avalanche.
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private void computeShares() {
+        // Each point owns the arc from its predecessor (exclusive) up to itself
+        double space = Math.pow(2, 64);
+        Long previous = ring.lastKey();
+        for (Map.Entry<Long, T> entry : ring.entrySet()) {
+            // Unsigned distance, wrapping around the end of the ring
+            double arc = ring.size() == 1 ? space : unsigned(entry.getKey() - previous);
+            shares.merge(entry.getValue(), arc / space, Double::sum);
+            previous = entry.getKey();
+        }
+    }
+
+    private static double unsigned(long value) {
+        return value >= 0 ? value : value + Math.pow(2, 64);
+    }
+}
@@ -0,0 +1,80 @@
+package com.spring.notes.app.service.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Count-Min sketch of recent access frequencies, as used by TinyLFU admission. Counters
+ * saturate at 15 and are all halved once the number of recorded accesses reaches ten
+ * times the width, so the sketch reflects recent popularity rather than all-time counts.
+ * <p>
+ * Counter updates are not atomic. A lost increment under contention only makes admission
+ * slightly more conservative, which is cheaper than locking every cache read.
+ */
+public class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int MIN_WIDTH = 1 << 10;
+    private static final int MAX_WIDTH = 1 << 16;
+
+    private final byte[][] counters;
+    private final int mask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    /**
+     * @param expectedEntries roughly how many distinct keys the owning cache holds
+     */
+    public FrequencySketch(long expectedEntries) {
+        int width = Integer.highestOneBit((int) Math.max(MIN_WIDTH, Math.min(expectedEntries, MAX_WIDTH)) * 2 - 1);
+        this.counters = new byte[DEPTH][width];
+        this.mask = width - 1;
+        this.sampleSize = width * 10;
+    }
+
+    public void increment(Object key) {
+        long hash = mix(key.hashCode());
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(hash, row);
+            if (counters[row][index] < MAX_COUNT) {
+                counters[row][index]++;
+            }
+        }
+        if (additions.incrementAndGet() >= sampleSize) {
+            reset();
+        }
+    }
+
+    public int frequency(Object key) {
+        long hash = mix(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, counters[row][index(hash, row)]);
+        }
+        return frequency;
+    }
+
+    private void reset() {
+        additions.set(0);
+        for (byte[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = (byte) (row[i] >>> 1);
+            }
+        }
+    }
+
+    private int index(long hash, int row) {
+        // Each row takes a different 16-bit slice of the mixed hash
+        return (int) (hash >>> (row * 16)) & mask;
+    }
+
+    /**
+     * SplitMix64 finalizer; spreads weak {@code hashCode}s such as those of short strings.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,153 @@
+package com.spring.notes.app.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+
+/**
+ * Bounded in-process (L1) cache tier. Entries are weighed by their estimated heap size,
+ * so the tier is capped in bytes, and expire after a short TTL that bounds staleness
+ * should a cross-node invalidation message ever be lost.
+ * <p>
+ * Values read from the remote tier are only promoted once their key has been seen at least
+ * {@code minFrequency} times recently (a TinyLFU doorkeeper), so one-off reads do not push
+ * hot entries out. Caffeine's own W-TinyLFU eviction then decides between admitted entries.
+ * <p>
+ * With an {@link OffHeapStore} the values are kept serialized outside the heap instead, and
+ * decoded on every hit; the byte cap is then the one of the off-heap store.
+ */
+public class NearCache {
+
+    private static final long TYPICAL_ENTRY_BYTES = 1024;
+
+    private final String name;
+    private final Cache<String, Object> store;
+    private final OffHeapStore offHeap;
+    private final Counter hits;
+    private final Counter misses;
+    private final FrequencySketch sketch;
+    private final int minFrequency;
+    private final Counter admitted;
+    private final Counter rejected;
+
+    public NearCache(String name, long maxWeightBytes, Duration ttl, MeterRegistry meterRegistry) {
+        this(name, maxWeightBytes, ttl, 1, meterRegistry);
+    }
+
+    public NearCache(String name, long maxWeightBytes, Duration ttl, int minFrequency, MeterRegistry meterRegistry) {
+        this(name, maxWeightBytes, ttl, minFrequency, null, meterRegistry);
+    }
+
+    public NearCache(String name, long maxWeightBytes, Duration ttl, int minFrequency, OffHeapStore offHeap,
+                     MeterRegistry meterRegistry) {
+        this.name = name;
+        this.offHeap = offHeap;
+        this.minFrequency = minFrequency;
+        this.sketch = minFrequency > 1 ? new FrequencySketch(maxWeightBytes / TYPICAL_ENTRY_BYTES) : null;
+        this.store = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((String key, Object value) -> CacheEntrySizeEstimator.estimate(value))
+                .expireAfterWrite(ttl)
+                .build();
+        this.hits = CacheMetrics.requests(meterRegistry, name, CacheMetrics.TIER_L1, CacheMetrics.RESULT_HIT);
+        this.misses = CacheMetrics.requests(meterRegistry, name, CacheMetrics.TIER_L1, CacheMetrics.RESULT_MISS);
+        this.admitted = CacheMetrics.admissions(meterRegistry, name, CacheMetrics.TIER_L1, CacheMetrics.ADMITTED);
+        this.rejected = CacheMetrics.admissions(meterRegistry, name, CacheMetrics.TIER_L1, CacheMetrics.REJECTED_FREQUENCY);
+        Gauge.builder(CacheMetrics.L1_WEIGHT, this, NearCache::estimatedWeight)
+                .description("Estimated bytes held by the in-process cache tier")
+                .baseUnit("bytes")
+                .tag("cache", name)
+                .register(meterRegistry);
+        if (offHeap != null) {
+            Gauge.builder(CacheMetrics.L1_OFF_HEAP_USED, offHeap, OffHeapStore::usedBytes)
+                    .description("Bytes of the off-heap cache tier held by values")
+                    .baseUnit("bytes")
+                    .tag("cache", name)
+                    .register(meterRegistry);
+            Gauge.builder(CacheMetrics.L1_OFF_HEAP_CAPACITY, offHeap, OffHeapStore::capacityBytes)
+                    .description("Bytes reserved outside the heap by the off-heap cache tier")
+                    .baseUnit("bytes")
+                    .tag("cache", name)
+                    .register(meterRegistry);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Object getIfPresent(String key) {
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+        Object value = offHeap != null ? offHeap.get(key) : store.getIfPresent(key);
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    public void put(String key, Object value) {
+        if (value != null) {
+            store(key, value);
+        }
+    }
+
+    /**
+     * Promote a value read from the remote tier, subject to the frequency doorkeeper.
+     * Returns whether the value was admitted.
+     */
+    public boolean offer(String key, Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (sketch != null && sketch.frequency(key) < minFrequency) {
+            rejected.increment();
+            return false;
+        }
+        if (!store(key, value)) {
+            rejected.increment();
+            return false;
+        }
+        admitted.increment();
+        return true;
+    }
+
+    public void invalidate(String key) {
+        if (offHeap != null) {
+            offHeap.invalidate(key);
+        }
+        store.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        if (offHeap != null) {
+            offHeap.invalidateAll();
+        }
+        store.invalidateAll();
+    }
+
+    public long estimatedWeight() {
+        return store.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    public long size() {
+        return offHeap != null ? offHeap.size() : store.estimatedSize();
+    }
+
+    private boolean store(String key, Object value) {
+        if (offHeap != null) {
+            return offHeap.put(key, value);
+        }
+        store.put(key, value);
+        return true;
+    }
+}
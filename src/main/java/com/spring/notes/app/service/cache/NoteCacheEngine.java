@@ -0,0 +1,452 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.dto.response.NoteResponse;
+import com.spring.notes.app.dto.response.PageResponse;
+import com.spring.notes.app.entity.Note;
+import com.spring.notes.app.entity.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Single entry point for note caching. It owns the key layout and TTL policy of every
+ * {@link CacheRegion}, performs read-through loading on misses and write-through updates
+ * on writes, so a logical read costs at most one cache round trip. Writes are queued on the
+ * {@link CacheWriteBatch} and reach the cache only once the transaction has committed; single
+ * notes are written with a version compare-and-set, so an older copy never replaces a newer one. Concurrent misses on
+ * the same key are collapsed into a single load by {@link SingleFlight}, and hot entries of
+ * refresh-ahead regions are recomputed in the background by {@link RefreshAheadExecutor}
+ * before they expire. A user's full note list lives in the {@link UserNoteStore}, which note
+ * writes patch in place instead of invalidating; its creation-time indexes also serve the
+ * first pages of the default listings. Without a note store (the standalone profile) the
+ * list is cached as one value keyed by the user's generation. Every write to the cache first
+ * passes the {@link CacheAdmissionPolicy}; refused values are served uncached.
+ */
+@Slf4j
+@Component
+public class NoteCacheEngine {
+
+    private final CacheManager cacheManager;
+    private final UserCacheGenerations userCacheGenerations;
+    private final SingleFlight singleFlight;
+    private final RefreshAheadExecutor refreshAhead;
+    private final CacheAdmissionPolicy admissionPolicy;
+    private final UserNoteStore userNoteStore;
+    private final CacheWriteBatch writeBatch;
+    private final int indexedPages;
+    private final int indexedPageSize;
+    private final Map<CacheRegion, RegionMeters> meters = new EnumMap<>(CacheRegion.class);
+    private final Counter indexHits;
+    private final Counter indexMisses;
+    private final Counter indexBypasses;
+
+    public NoteCacheEngine(CacheManager cacheManager, UserCacheGenerations userCacheGenerations,
+                           SingleFlight singleFlight, RefreshAheadExecutor refreshAhead,
+                           CacheAdmissionPolicy admissionPolicy, @Nullable UserNoteStore userNoteStore,
+                           CacheWriteBatch writeBatch, MeterRegistry meterRegistry,
+                           @Value("${app.cache.listing-index.max-pages:5}") int indexedPages,
+                           @Value("${app.cache.listing-index.max-page-size:100}") int indexedPageSize) {
+        this.cacheManager = cacheManager;
+        this.userCacheGenerations = userCacheGenerations;
+        this.singleFlight = singleFlight;
+        this.refreshAhead = refreshAhead;
+        this.admissionPolicy = admissionPolicy;
+        this.userNoteStore = userNoteStore;
+        this.writeBatch = writeBatch;
+        this.indexedPages = indexedPages;
+        this.indexedPageSize = indexedPageSize;
+        for (CacheRegion region : CacheRegion.values()) {
+            meters.put(region, new RegionMeters(region, meterRegistry));
+        }
+        this.indexHits = listingIndex(meterRegistry, CacheMetrics.RESULT_HIT);
+        this.indexMisses = listingIndex(meterRegistry, CacheMetrics.RESULT_MISS);
+        this.indexBypasses = listingIndex(meterRegistry, CacheMetrics.RESULT_BYPASS);
+    }
+
+    public NoteResponse getNote(User user, Long id, Supplier<NoteResponse> loader) {
+        return readThrough(CacheRegion.NOTES, user, noteKey(user, id), loader);
+    }
+
+    public List<NoteResponse> getNotes(User user, Supplier<List<NoteResponse>> loader) {
+        if (userNoteStore == null) {
+            return readThrough(CacheRegion.USER_NOTES, user, userCacheGenerations.key(user), loader);
+        }
+        RegionMeters regionMeters = meters.get(CacheRegion.USER_NOTES);
+        Optional<List<NoteResponse>> stored = userNoteStore.getAll(user.getId());
+        if (stored.isPresent()) {
+            regionMeters.hits.increment();
+            return stored.get();
+        }
+        regionMeters.misses.increment();
+
+        return singleFlight.execute(CacheRegion.USER_NOTES.getCacheName() + ":" + user.getId(),
+                () -> userNoteStore.getAll(user.getId()).orElse(null),
+                () -> {
+                    // Read the version first: a write committing during the query makes the load a no-op
+                    String version = userNoteStore.version(user.getId());
+                    long start = System.nanoTime();
+                    List<NoteResponse> notes = loader.get();
+                    regionMeters.loads.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+                    if (!admissionPolicy.admitAll(CacheRegion.USER_NOTES, user.getId(), "all", notes)) {
+                        regionMeters.rejections.increment();
+                    } else if (userNoteStore.load(user.getId(), version, notes)) {
+                        regionMeters.puts.increment();
+                    }
+                    return notes;
+                });
+    }
+
+    public List<String> getCategories(User user, Supplier<List<String>> loader) {
+        return readThrough(CacheRegion.NOTE_CATEGORIES, user, userCacheGenerations.key(user), loader);
+    }
+
+    public long getTotalCount(User user, Supplier<Long> loader) {
+        // Small longs come back from JSON as integers, so read through as Number
+        Number count = readThrough(CacheRegion.NOTE_COUNTS, user, userCacheGenerations.key(user, "total"),
+                () -> (Number) loader.get());
+        return count.longValue();
+    }
+
+    /**
+     * Where the user's cached data stands: the note store version and the generation-stamped
+     * key. Take it before querying the user's notes in bulk and hand it to {@link #preload}.
+     */
+    public Snapshot snapshot(User user) {
+        return new Snapshot(userNoteStore != null ? userNoteStore.version(user.getId()) : null,
+                userCacheGenerations.key(user));
+    }
+
+    /**
+     * Cache the user's notes, categories and total count, queried after {@code snapshot} was
+     * taken. Everything is stored as of the snapshot: if the user wrote in between, the note
+     * store refuses the load and the derived values land under the superseded generation,
+     * where no read finds them.
+     */
+    public void preload(User user, Snapshot snapshot, List<NoteResponse> notes, List<String> categories, long count) {
+        String key = snapshot.generationKey();
+        if (userNoteStore != null) {
+            RegionMeters regionMeters = meters.get(CacheRegion.USER_NOTES);
+            if (!admissionPolicy.admitAll(CacheRegion.USER_NOTES, user.getId(), "all", notes)) {
+                regionMeters.rejections.increment();
+            } else if (userNoteStore.load(user.getId(), snapshot.version(), notes)) {
+                regionMeters.puts.increment();
+            }
+        } else if (key != null) {
+            readThrough(CacheRegion.USER_NOTES, user, key, () -> notes);
+        }
+        if (key != null) {
+            readThrough(CacheRegion.NOTE_CATEGORIES, user, key, () -> categories);
+            readThrough(CacheRegion.NOTE_COUNTS, user, key + ":total", () -> (Number) count);
+        }
+    }
+
+    /**
+     * One page of a (possibly filtered) note listing. The key carries the user's data
+     * generation, so any write by the user makes all of their cached pages unreachable.
+     *
+     * @param filter a {@link #filter(String, Object)} describing the listing, e.g. {@code status=ACTIVE}
+     */
+    public PageResponse<NoteResponse> getPage(User user, String filter, Pageable pageable,
+                                              Supplier<PageResponse<NoteResponse>> loader) {
+        return readThrough(CacheRegion.NOTE_PAGES, user, userCacheGenerations.key(user, filter + ":" + pageKey(pageable)), loader);
+    }
+
+    /**
+     * One page of the user's notes, or of those with {@code status} if it is not null. The
+     * first pages of listings sorted by {@code createdAt} are read from the indexes of the
+     * {@link UserNoteStore} while the user's notes are loaded there; deeper pages, other
+     * sort orders and users whose notes are not loaded fall back to {@link #getPage}.
+     */
+    public PageResponse<NoteResponse> getListingPage(User user, Note.Status status, Pageable pageable,
+                                                     Supplier<PageResponse<NoteResponse>> loader) {
+        Sort.Direction direction = userNoteStore != null ? indexedDirection(pageable) : null;
+        if (direction == null) {
+            indexBypasses.increment();
+        } else {
+            Optional<Page<NoteResponse>> indexed = userNoteStore.getPage(user.getId(), status, pageable, direction.isDescending());
+            if (indexed.isPresent()) {
+                indexHits.increment();
+                return toPageResponse(indexed.get());
+            }
+            indexMisses.increment();
+        }
+        return getPage(user, status != null ? filter("status", status) : "all", pageable, loader);
+    }
+
+    /**
+     * Key fragment for a listing filter. Values are URL-encoded so that user input such as
+     * search terms cannot break the key layout.
+     */
+    public static String filter(String name, Object value) {
+        return name + "=" + URLEncoder.encode(String.valueOf(value), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write-through of a note that was just created or modified.
+     */
+    public void putNote(User user, NoteResponse note) {
+        store(CacheRegion.NOTES, cache(CacheRegion.NOTES), user, noteKey(user, note.getId()), note, true);
+        if (userNoteStore != null) {
+            userNoteStore.patch(user.getId(), note);
+        }
+    }
+
+    public void evictNote(User user, Long id) {
+        String key = noteKey(user, id);
+        // The note is gone for good, so a load racing the delete must not cache it again
+        writeBatch.evictFenced(cache(CacheRegion.NOTES), key);
+        admissionPolicy.release(CacheRegion.NOTES, user.getId(), key);
+        meters.get(CacheRegion.NOTES).evictions.increment();
+        if (userNoteStore != null) {
+            userNoteStore.remove(user.getId(), id);
+        }
+    }
+
+    /**
+     * Invalidate every derived entry (categories, counts, pages) of the user.
+     */
+    public void invalidateUser(User user) {
+        userCacheGenerations.bump(user.getId());
+    }
+
+    /**
+     * Hit/miss/load statistics per region since startup.
+     */
+    public Map<String, Map<String, Object>> getStatistics() {
+        Map<String, Map<String, Object>> statistics = new LinkedHashMap<>();
+        meters.forEach((region, regionMeters) -> statistics.put(region.getCacheName(), regionMeters.snapshot()));
+        return statistics;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T readThrough(CacheRegion region, User user, String key, Supplier<T> loader) {
+        Cache cache = cache(region);
+        RegionMeters regionMeters = meters.get(region);
+
+        if (key == null) {
+            // The user's cache generation is unknown (Redis is unreachable): nothing can be looked up or stored
+            regionMeters.misses.increment();
+            return loader.get();
+        }
+
+        Object cached = lookup(cache, key);
+        if (cached != null) {
+            regionMeters.hits.increment();
+            log.debug("Cache hit in {} for key: {}", region.getCacheName(), key);
+            if (cached instanceof CacheEnvelope envelope) {
+                if (refreshAhead.shouldRefresh(envelope)) {
+                    refreshAhead.submit(region.getCacheName() + ":" + key, () -> load(region, cache, user, key, loader, true));
+                }
+                return (T) envelope.getValue();
+            }
+            return (T) cached;
+        }
+        regionMeters.misses.increment();
+
+        return singleFlight.execute(region.getCacheName() + ":" + key, () -> (T) unwrap(lookup(cache, key)), () -> {
+            // A previous leader may have filled the entry while this caller was missing
+            Object filled = lookup(cache, key);
+            if (filled != null) {
+                return (T) unwrap(filled);
+            }
+            return load(region, cache, user, key, loader, false);
+        });
+    }
+
+    private <T> T load(CacheRegion region, Cache cache, User user, String key, Supplier<T> loader, boolean replacing) {
+        RegionMeters regionMeters = meters.get(region);
+
+        long start = System.nanoTime();
+        T value = loader.get();
+        long elapsed = System.nanoTime() - start;
+        regionMeters.loads.record(elapsed, TimeUnit.NANOSECONDS);
+
+        if (value != null) {
+            store(region, cache, user, key, region.isRefreshAhead() ? envelope(region, value, elapsed) : value, replacing);
+        }
+        return value;
+    }
+
+    private void store(CacheRegion region, Cache cache, User user, String key, Object value, boolean replacing) {
+        RegionMeters regionMeters = meters.get(region);
+        if (admissionPolicy.admit(region, user.getId(), key, value)) {
+            if (region == CacheRegion.NOTES && replacing) {
+                // Versioned, so a slow load can never overwrite the update once it has committed
+                writeBatch.putIfNewer(cache, key, value, noteVersion(value), NoteCacheEngine::noteVersion);
+            } else if (region == CacheRegion.NOTES) {
+                // Sent before the load returns, so the single-flight lease is held until the value has landed
+                writeBatch.putIfNewerNow(cache, key, value, noteVersion(value), NoteCacheEngine::noteVersion);
+            } else if (replacing) {
+                writeBatch.put(cache, key, value);
+            } else {
+                cache.put(key, value);
+            }
+            regionMeters.puts.increment();
+        } else {
+            if (replacing) {
+                // Whatever is cached under the key is now outdated and must not outlive the refusal
+                writeBatch.evict(cache, key);
+                admissionPolicy.release(region, user.getId(), key);
+            }
+            regionMeters.rejections.increment();
+        }
+    }
+
+    /**
+     * Version of a cached note: the row version the database assigns on every flushed update,
+     * so two copies with the same version hold the same content.
+     */
+    static long noteVersion(Object cached) {
+        Object value = cached instanceof CacheEnvelope envelope ? envelope.getValue() : cached;
+        if (value instanceof NoteResponse note && note.getVersion() != null) {
+            return note.getVersion();
+        }
+        return 0;
+    }
+
+    private CacheEnvelope envelope(CacheRegion region, Object value, long elapsedNanos) {
+        return CacheEnvelope.builder()
+                .value(value)
+                .delta(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .expiresAt(System.currentTimeMillis() + region.getTtl().toMillis())
+                .build();
+    }
+
+    private Object lookup(Cache cache, String key) {
+        Cache.ValueWrapper wrapper = cache.get(key);
+        return wrapper != null ? wrapper.get() : null;
+    }
+
+    private Object unwrap(Object cached) {
+        return cached instanceof CacheEnvelope envelope ? envelope.getValue() : cached;
+    }
+
+    private Cache cache(CacheRegion region) {
+        Cache cache = cacheManager.getCache(region.getCacheName());
+        if (cache == null) {
+            throw new IllegalStateException("No cache configured for region: " + region.getCacheName());
+        }
+        return cache;
+    }
+
+    private Sort.Direction indexedDirection(Pageable pageable) {
+        if (pageable.isUnpaged() || pageable.getPageNumber() >= indexedPages || pageable.getPageSize() > indexedPageSize) {
+            return null;
+        }
+        List<Sort.Order> orders = pageable.getSort().toList();
+        if (orders.size() != 1 || !"createdAt".equals(orders.get(0).getProperty())) {
+            return null;
+        }
+        return orders.get(0).getDirection();
+    }
+
+    private static PageResponse<NoteResponse> toPageResponse(Page<NoteResponse> page) {
+        return PageResponse.<NoteResponse>builder()
+                .content(page.getContent())
+                .page(page.getNumber())
+                .size(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .first(page.isFirst())
+                .last(page.isLast())
+                .hasNext(page.hasNext())
+                .hasPrevious(page.hasPrevious())
+                .build();
+    }
+
+    private static Counter listingIndex(MeterRegistry meterRegistry, String result) {
+        return Counter.builder(CacheMetrics.LISTING_INDEX)
+                .description("Note listing pages by whether the note store's indexes could serve them")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private String pageKey(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return "unpaged";
+        }
+        String sort = pageable.getSort().stream()
+                .map(order -> order.getProperty() + "." + order.getDirection())
+                .collect(Collectors.joining(","));
+        return "p" + pageable.getPageNumber() + ":s" + pageable.getPageSize() + ":" + (sort.isEmpty() ? "unsorted" : sort);
+    }
+
+    private String noteKey(User user, Long id) {
+        return RedisShards.userTag(user.getId()) + ":" + id;
+    }
+
+    /**
+     * State of a user's cached data taken by {@link #snapshot}; either part is null while Redis is unreachable.
+     */
+    public record Snapshot(String version, String generationKey) {
+    }
+
+    private static final class RegionMeters {
+
+        private final Counter hits;
+        private final Counter misses;
+        private final Counter puts;
+        private final Counter evictions;
+        private final Counter rejections;
+        private final Timer loads;
+
+        private RegionMeters(CacheRegion region, MeterRegistry meterRegistry) {
+            String name = region.getCacheName();
+            this.hits = event(meterRegistry, name, CacheMetrics.RESULT_HIT);
+            this.misses = event(meterRegistry, name, CacheMetrics.RESULT_MISS);
+            this.puts = event(meterRegistry, name, CacheMetrics.EVENT_PUT);
+            this.evictions = event(meterRegistry, name, CacheMetrics.EVENT_EVICT);
+            this.rejections = event(meterRegistry, name, CacheMetrics.EVENT_REJECT);
+            this.loads = Timer.builder(CacheMetrics.REGION_LOADS)
+                    .description("Time spent loading cache misses from the database")
+                    .tag("region", name)
+                    .register(meterRegistry);
+        }
+
+        private static Counter event(MeterRegistry meterRegistry, String region, String event) {
+            return Counter.builder(CacheMetrics.REGION_EVENTS)
+                    .description("Cache region reads and writes")
+                    .tag("region", region)
+                    .tag("event", event)
+                    .register(meterRegistry);
+        }
+
+        private Map<String, Object> snapshot() {
+            long hitCount = (long) hits.count();
+            long missCount = (long) misses.count();
+            long total = hitCount + missCount;
+
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("hits", hitCount);
+            snapshot.put("misses", missCount);
+            snapshot.put("hitRatio", total == 0 ? 0.0 : (double) hitCount / total);
+            snapshot.put("puts", (long) puts.count());
+            snapshot.put("evictions", (long) evictions.count());
+            snapshot.put("rejections", (long) rejections.count());
+            snapshot.put("loads", loads.count());
+            snapshot.put("averageLoadMillis", loads.mean(TimeUnit.MILLISECONDS));
+            return snapshot;
+        }
+    }
+}
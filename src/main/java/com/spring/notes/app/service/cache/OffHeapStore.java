@@ -0,0 +1,199 @@
+package com.spring.notes.app.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Byte-capped key-value store that keeps serialized values in a direct buffer outside the
+ * Java heap, so large cached notes add neither to the old generation nor to GC pauses.
+ * Values are encoded on write and only decoded when read.
+ * <p>
+ * The buffer is allocated once and carved into fixed-size blocks; a value occupies as many
+ * blocks as it needs, not necessarily adjacent. Only the index (key, block numbers) lives on
+ * the heap, in a Caffeine cache weighed by the blocks of each value, whose eviction returns
+ * blocks to the free list. The index is capped one maximum entry below the buffer size, so
+ * once eviction has caught up there is always room for the next value.
+ * <p>
+ * Reads copy a value's blocks under an optimistic {@link StampedLock} stamp; freeing blocks
+ * takes the write lock, so a read that raced the reuse of its blocks is retried under the
+ * read lock instead of returning someone else's bytes.
+ */
+public class OffHeapStore {
+
+    private final ByteBuffer arena;
+    private final int blockSize;
+    private final int maxEntryBlocks;
+    private final RedisSerializer<Object> serializer;
+    private final Cache<String, Slot> index;
+    private final StampedLock lock = new StampedLock();
+    private final int[] freeBlocks;
+    private int freeCount;
+
+    public OffHeapStore(long capacityBytes, int blockSize, long maxEntryBytes, Duration ttl,
+                        RedisSerializer<Object> serializer) {
+        int blocks = (int) Math.min(capacityBytes / blockSize, Integer.MAX_VALUE / blockSize);
+        this.maxEntryBlocks = (int) Math.min(blocks / 2, (maxEntryBytes + blockSize - 1) / blockSize);
+        if (maxEntryBlocks < 1) {
+            throw new IllegalArgumentException("Off-heap capacity of " + capacityBytes
+                    + " bytes holds fewer than two blocks of " + blockSize + " bytes");
+        }
+        this.arena = ByteBuffer.allocateDirect(blocks * blockSize);
+        this.blockSize = blockSize;
+        this.serializer = serializer;
+        this.freeBlocks = new int[blocks];
+        for (int i = 0; i < blocks; i++) {
+            freeBlocks[i] = blocks - 1 - i;
+        }
+        this.freeCount = blocks;
+        this.index = Caffeine.newBuilder()
+                .maximumWeight((long) (blocks - maxEntryBlocks) * blockSize)
+                .weigher((String key, Slot slot) -> slot.blocks.length * blockSize)
+                .expireAfterWrite(ttl)
+                // Blocks are returned on the writing thread, before it allocates again
+                .executor(Runnable::run)
+                .removalListener((String key, Slot slot, RemovalCause cause) -> {
+                    if (slot != null) {
+                        free(slot);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * The decoded value of {@code key}, or {@code null}.
+     */
+    public Object get(String key) {
+        Slot slot = index.getIfPresent(key);
+        if (slot == null) {
+            return null;
+        }
+        byte[] bytes = read(slot);
+        return bytes != null ? serializer.deserialize(bytes) : null;
+    }
+
+    /**
+     * Store {@code value}; returns {@code false} if its encoding does not fit an entry, in
+     * which case any previous value of {@code key} is removed.
+     */
+    public boolean put(String key, Object value) {
+        byte[] bytes = serializer.serialize(value);
+        int needed = Math.max(1, (bytes.length + blockSize - 1) / blockSize);
+        if (bytes.length == 0 || needed > maxEntryBlocks) {
+            index.invalidate(key);
+            return false;
+        }
+        int[] blocks = allocate(needed);
+        if (blocks == null) {
+            // Concurrent writers may hold blocks the index does not weigh yet
+            index.cleanUp();
+            blocks = allocate(needed);
+        }
+        if (blocks == null) {
+            index.invalidate(key);
+            return false;
+        }
+        for (int i = 0, offset = 0; i < blocks.length; i++, offset += blockSize) {
+            arena.put(blocks[i] * blockSize, bytes, offset, Math.min(blockSize, bytes.length - offset));
+        }
+        index.put(key, new Slot(blocks, bytes.length));
+        return true;
+    }
+
+    public void invalidate(String key) {
+        index.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        index.invalidateAll();
+    }
+
+    public long size() {
+        return index.estimatedSize();
+    }
+
+    public long capacityBytes() {
+        return arena.capacity();
+    }
+
+    /**
+     * Bytes of the buffer held by values, counted in whole blocks.
+     */
+    public long usedBytes() {
+        long stamp = lock.readLock();
+        try {
+            return (long) (freeBlocks.length - freeCount) * blockSize;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private byte[] read(Slot slot) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0 && !slot.released) {
+            byte[] bytes = copy(slot);
+            if (lock.validate(stamp)) {
+                return bytes;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return slot.released ? null : copy(slot);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private byte[] copy(Slot slot) {
+        byte[] bytes = new byte[slot.length];
+        for (int i = 0, offset = 0; i < slot.blocks.length; i++, offset += blockSize) {
+            arena.get(slot.blocks[i] * blockSize, bytes, offset, Math.min(blockSize, slot.length - offset));
+        }
+        return bytes;
+    }
+
+    private int[] allocate(int count) {
+        long stamp = lock.writeLock();
+        try {
+            if (freeCount < count) {
+                return null;
+            }
+            int[] blocks = new int[count];
+            for (int i = 0; i < count; i++) {
+                blocks[i] = freeBlocks[--freeCount];
+            }
+            return blocks;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void free(Slot slot) {
+        long stamp = lock.writeLock();
+        try {
+            slot.released = true;
+            for (int block : slot.blocks) {
+                freeBlocks[freeCount++] = block;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static final class Slot {
+
+        private final int[] blocks;
+        private final int length;
+        private volatile boolean released;
+
+        private Slot(int[] blocks, int length) {
+            this.blocks = blocks;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.spring.notes.app.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.spring.notes.app.entity.User;
+import com.spring.notes.app.repository.NoteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Per-user Bloom filter of owned note IDs, used to answer lookups of notes that do not
+ * exist (or belong to someone else) without a database round trip.
+ * <p>
+ * A filter is built lazily from the user's note IDs and records the highest note ID that
+ * existed at that point. IDs above that watermark were created later, possibly on another
+ * node, and always go to the database, so the filter never produces a false "not found".
+ * Notes created on this node are added directly, and once the creating transaction has
+ * committed every node drops its copy: this one directly, the others when told over the
+ * {@link CacheInvalidationBus}.
+ * Deleted IDs stay in the filter and surface as false positives, which are counted.
+ */
+@Slf4j
+@Component
+public class OwnedNoteFilter {
+
+    public static final String CACHE_NAME = "ownedNotes";
+
+    private static final int MIN_EXPECTED_INSERTIONS = 64;
+
+    private final NoteRepository noteRepository;
+    private final CacheInvalidationBus invalidationBus;
+    private final double falsePositiveRate;
+    private final boolean enabled;
+    private final Cache<Long, UserFilter> filters;
+
+    private final Counter rejected;
+    private final Counter passed;
+    private final Counter bypassed;
+    private final Counter falsePositives;
+
+    public OwnedNoteFilter(NoteRepository noteRepository,
+                           CacheInvalidationBus invalidationBus,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.cache.owned-note-filter.enabled:true}") boolean enabled,
+                           @Value("${app.cache.owned-note-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                           @Value("${app.cache.owned-note-filter.max-users:10000}") long maxUsers,
+                           @Value("${app.cache.owned-note-filter.ttl:30m}") Duration ttl) {
+        this.noteRepository = noteRepository;
+        this.invalidationBus = invalidationBus;
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filters = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(ttl)
+                .build();
+
+        this.rejected = check(meterRegistry, "rejected");
+        this.passed = check(meterRegistry, "passed");
+        this.bypassed = check(meterRegistry, "bypassed");
+        this.falsePositives = Counter.builder(CacheMetrics.OWNED_NOTE_FILTER_FALSE_POSITIVES)
+                .description("Lookups the filter let through that the database answered with not found")
+                .register(meterRegistry);
+        Gauge.builder(CacheMetrics.OWNED_NOTE_FILTER_FALSE_POSITIVE_RATE, this, OwnedNoteFilter::observedFalsePositiveRate)
+                .description("Share of filter passes that turned out not to exist")
+                .register(meterRegistry);
+
+        invalidationBus.subscribe(message -> {
+            if (!CACHE_NAME.equals(message.getCacheName())) {
+                return;
+            }
+            if (message.getKey() == null) {
+                filters.invalidateAll();
+            } else {
+                filters.invalidate(Long.valueOf(message.getKey()));
+            }
+        });
+    }
+
+    /**
+     * False only when the note certainly is not one of the user's notes.
+     */
+    public boolean mightOwn(User user, Long noteId) {
+        if (!enabled || noteId == null) {
+            return true;
+        }
+        UserFilter userFilter = filters.get(user.getId(), id -> build(user));
+        if (noteId > userFilter.watermark) {
+            bypassed.increment();
+            return true;
+        }
+        if (userFilter.filter.mightContain(noteId)) {
+            passed.increment();
+            return true;
+        }
+        rejected.increment();
+        log.debug("Note ID: {} rejected by owned-note filter for user ID: {}", noteId, user.getId());
+        return false;
+    }
+
+    /**
+     * Called when a lookup the filter let through found nothing in the database.
+     */
+    public void recordMiss(User user, Long noteId) {
+        UserFilter userFilter = filters.getIfPresent(user.getId());
+        if (userFilter != null && noteId <= userFilter.watermark) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Record a note the user just created.
+     */
+    public void add(User user, Long noteId) {
+        UserFilter userFilter = filters.getIfPresent(user.getId());
+        if (userFilter != null) {
+            userFilter.filter.add(noteId);
+        }
+
+        // A filter built before the commit, on this node or another, does not list the note
+        // yet but may have a watermark above it once a later ID has committed; drop them all
+        Long userId = user.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateCommitted(userId);
+                }
+            });
+        } else {
+            invalidateCommitted(userId);
+        }
+    }
+
+    private void invalidateCommitted(Long userId) {
+        // The bus skips messages from this node, so the local filter is dropped here
+        filters.invalidate(userId);
+        invalidationBus.publish(CACHE_NAME, String.valueOf(userId));
+    }
+
+    private UserFilter build(User user) {
+        // Read the watermark first so that notes committed while the IDs are read are either
+        // listed or above it; a creation that commits later drops this filter via the bus
+        long watermark = noteRepository.findMaxId();
+        List<Long> ids = noteRepository.findIdsByUser(user);
+        BloomFilter filter = new BloomFilter(Math.max(ids.size() * 2, MIN_EXPECTED_INSERTIONS), falsePositiveRate);
+        ids.forEach(filter::add);
+        log.debug("Built owned-note filter for user ID: {} with {} notes up to ID: {}", user.getId(), ids.size(), watermark);
+        return new UserFilter(filter, watermark);
+    }
+
+    private double observedFalsePositiveRate() {
+        double passes = passed.count();
+        return passes == 0 ? 0.0 : falsePositives.count() / passes;
+    }
+
+    private static Counter check(MeterRegistry meterRegistry, String result) {
+        return Counter.builder(CacheMetrics.OWNED_NOTE_FILTER_CHECKS)
+                .description("Owned-note filter lookups by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record UserFilter(BloomFilter filter, long watermark) {
+    }
+}
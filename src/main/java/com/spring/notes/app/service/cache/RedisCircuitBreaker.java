@@ -0,0 +1,220 @@
+package com.spring.notes.app.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker in front of every Redis access of the cache layer. It watches the outcome
+ * of the last {@code windowSize} calls and opens when, after at least {@code minimumCalls},
+ * the share of failed calls or of calls slower than {@code slowCallDuration} reaches its
+ * threshold.
+ * <p>
+ * While open, calls are rejected at once instead of waiting for the Redis timeout: reads
+ * are answered from the local tier or the database and cache writes are skipped. A
+ * background probe pings Redis every {@code probeInterval}; once a ping succeeds the
+ * recovery hooks run (e.g. to replay deferred writes) and the breaker closes again. A hook
+ * that fails keeps the breaker open until the next probe.
+ */
+@Slf4j
+public class RedisCircuitBreaker implements AutoCloseable {
+
+    private static final byte SUCCESS = 0;
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    private final Runnable probe;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final int minimumCalls;
+    private final Duration probeInterval;
+    private final List<Runnable> recoveryHooks = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "redis-circuit-probe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Outcomes of the last calls, guarded by this
+    private final byte[] window;
+    private int next;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+
+    private volatile boolean open;
+    private ScheduledFuture<?> probing;
+
+    private final Counter successes;
+    private final Counter failed;
+    private final Counter slow;
+    private final Counter rejected;
+    private final Counter opened;
+    private final Counter closed;
+
+    public RedisCircuitBreaker(Runnable probe, MeterRegistry meterRegistry, int windowSize, int minimumCalls,
+                               double failureRateThreshold, double slowCallRateThreshold,
+                               Duration slowCallDuration, Duration probeInterval) {
+        this.probe = probe;
+        this.window = new byte[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.probeInterval = probeInterval;
+        this.successes = calls(meterRegistry, "success");
+        this.failed = calls(meterRegistry, "failure");
+        this.slow = calls(meterRegistry, "slow");
+        this.rejected = calls(meterRegistry, "rejected");
+        this.opened = transitions(meterRegistry, "open");
+        this.closed = transitions(meterRegistry, "closed");
+        Gauge.builder(CacheMetrics.CIRCUIT_STATE, this, breaker -> breaker.isOpen() ? 1 : 0)
+                .description("State of the Redis circuit breaker (0 closed, 1 open)")
+                .register(meterRegistry);
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Run a Redis call and record its outcome.
+     *
+     * @throws RedisCircuitOpenException without running the call while the breaker is open
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (open) {
+            rejected.increment();
+            throw new RedisCircuitOpenException();
+        }
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            record(System.nanoTime() - start, false);
+            return result;
+        } catch (RuntimeException e) {
+            record(System.nanoTime() - start, true);
+            throw e;
+        }
+    }
+
+    /**
+     * Run a Redis call and record its outcome; {@code fallback} answers while the breaker is
+     * open or if the call fails.
+     */
+    public <T> T executeOrElse(Supplier<T> call, Supplier<T> fallback) {
+        try {
+            return execute(call);
+        } catch (RedisCircuitOpenException e) {
+            return fallback.get();
+        } catch (RuntimeException e) {
+            log.warn("Redis call failed, falling back: {}", e.getMessage());
+            return fallback.get();
+        }
+    }
+
+    /**
+     * Run {@code hook} on the probe thread once Redis is reachable again, before the breaker
+     * closes and once more right after; hooks must therefore be idempotent.
+     */
+    public void onRecovery(Runnable hook) {
+        recoveryHooks.add(hook);
+    }
+
+    public synchronized void record(long elapsedNanos, boolean failure) {
+        byte outcome = failure ? FAILURE : elapsedNanos >= slowCallNanos ? SLOW : SUCCESS;
+        (outcome == FAILURE ? failed : outcome == SLOW ? slow : successes).increment();
+        if (open) {
+            return;
+        }
+        if (calls == window.length) {
+            forget(window[next]);
+        } else {
+            calls++;
+        }
+        window[next] = outcome;
+        next = (next + 1) % window.length;
+        if (outcome == FAILURE) {
+            failures++;
+        } else if (outcome == SLOW) {
+            slowCalls++;
+        }
+
+        if (calls >= minimumCalls && (failures >= failureRateThreshold * calls || slowCalls >= slowCallRateThreshold * calls)) {
+            trip();
+        }
+    }
+
+    @Override
+    public void close() {
+        prober.shutdownNow();
+    }
+
+    private void trip() {
+        open = true;
+        opened.increment();
+        log.warn("Redis circuit breaker opened: {} failed and {} slow of the last {} calls; probing every {}",
+                failures, slowCalls, calls, probeInterval);
+        probing = prober.scheduleWithFixedDelay(this::probe, probeInterval.toMillis(), probeInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void probe() {
+        try {
+            probe.run();
+            recoveryHooks.forEach(Runnable::run);
+        } catch (Exception e) {
+            log.debug("Redis is still unavailable: {}", e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            calls = 0;
+            failures = 0;
+            slowCalls = 0;
+            next = 0;
+            open = false;
+            probing.cancel(false);
+        }
+        closed.increment();
+        log.info("Redis circuit breaker closed: Redis is reachable again");
+        try {
+            // Once more for work queued while the hooks ran but before the breaker closed
+            recoveryHooks.forEach(Runnable::run);
+        } catch (Exception e) {
+            log.warn("Redis recovery hook failed after the circuit breaker closed: {}", e.getMessage());
+        }
+    }
+
+    private void forget(byte outcome) {
+        if (outcome == FAILURE) {
+            failures--;
+        } else if (outcome == SLOW) {
+            slowCalls--;
+        }
+    }
+
+    private static Counter calls(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(CacheMetrics.CIRCUIT_CALLS)
+                .description("Redis calls seen by the circuit breaker, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static Counter transitions(MeterRegistry meterRegistry, String state) {
+        return Counter.builder(CacheMetrics.CIRCUIT_TRANSITIONS)
+                .description("Redis circuit breaker state changes")
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+}
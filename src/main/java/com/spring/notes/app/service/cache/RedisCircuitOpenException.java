@@ -0,0 +1,13 @@
+package com.spring.notes.app.service.cache;
+
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+/**
+ * Thrown instead of calling Redis while the {@link RedisCircuitBreaker} is open.
+ */
+public class RedisCircuitOpenException extends RedisConnectionFailureException {
+
+    public RedisCircuitOpenException() {
+        super("Redis circuit breaker is open");
+    }
+}
@@ -0,0 +1,142 @@
+package com.spring.notes.app.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The Redis nodes the cache is spread over, with keys assigned to them by a
+ * {@link ConsistentHashRing}. User-scoped keys carry the user ID as a hash tag (see
+ * {@link #userTag}), so all keys of a user, and every script or pipeline over them, stay
+ * on one node.
+ * <p>
+ * The first node is the primary: it is the one configured under {@code spring.data.redis},
+ * carries the cache invalidation channel and serves every key when no other node is
+ * configured.
+ */
+@Slf4j
+public class RedisShards implements AutoCloseable {
+
+    private final List<Shard> shards;
+    private final ConsistentHashRing<Shard> ring;
+    private final List<LettuceConnectionFactory> ownedFactories;
+
+    /**
+     * @param nodes          templates by node name, primary first; a node's name decides its place on the ring
+     * @param ownedFactories connection factories created for the extra nodes, destroyed on {@link #close}
+     */
+    public RedisShards(Map<String, RedisTemplate<String, Object>> nodes, int virtualNodes,
+                       MeterRegistry meterRegistry, List<LettuceConnectionFactory> ownedFactories) {
+        List<Shard> created = new ArrayList<>(nodes.size());
+        nodes.forEach((name, template) -> created.add(new Shard(name, template, Counter.builder(CacheMetrics.SHARD_COMMANDS)
+                .description("Redis commands routed to each cache shard")
+                .tag("shard", name)
+                .register(meterRegistry))));
+        this.shards = List.copyOf(created);
+        this.ring = new ConsistentHashRing<>(shards, Shard::getName, virtualNodes);
+        this.ownedFactories = ownedFactories;
+        for (Shard shard : shards) {
+            Gauge.builder(CacheMetrics.SHARD_SHARE, ring, r -> r.share(shard))
+                    .description("Share of the key space owned by each cache shard")
+                    .tag("shard", shard.getName())
+                    .register(meterRegistry);
+        }
+        if (isSharded()) {
+            log.info("Spreading the cache over {} Redis nodes: {}", shards.size(), nodes.keySet());
+        }
+    }
+
+    /**
+     * A single, unsharded node.
+     */
+    public static RedisShards of(RedisTemplate<String, Object> template, MeterRegistry meterRegistry) {
+        return new RedisShards(Map.of("primary", template), 1, meterRegistry, List.of());
+    }
+
+    /**
+     * Hash tag that keeps every key of a user on one node, e.g. {@code {42}}.
+     */
+    public static String userTag(Long userId) {
+        return "{" + userId + "}";
+    }
+
+    public Shard primary() {
+        return shards.get(0);
+    }
+
+    public List<Shard> all() {
+        return shards;
+    }
+
+    public boolean isSharded() {
+        return shards.size() > 1;
+    }
+
+    public Shard forKey(String key) {
+        Shard shard = isSharded() ? ring.nodeFor(key) : primary();
+        shard.commands.increment();
+        return shard;
+    }
+
+    public RedisTemplate<String, Object> template(String key) {
+        return forKey(key).getTemplate();
+    }
+
+    /**
+     * Split items by the shard of their key, keeping their order within each shard.
+     */
+    public <T> Map<Shard, List<T>> partition(Collection<T> items, Function<T, String> key) {
+        Map<Shard, List<T>> partitions = new LinkedHashMap<>();
+        for (T item : items) {
+            partitions.computeIfAbsent(forKey(key.apply(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return partitions;
+    }
+
+    public double share(Shard shard) {
+        return ring.share(shard);
+    }
+
+    @Override
+    public void close() {
+        for (LettuceConnectionFactory factory : ownedFactories) {
+            factory.destroy();
+        }
+    }
+
+    public static final class Shard {
+
+        private final String name;
+        private final RedisTemplate<String, Object> template;
+        private final Counter commands;
+
+        private Shard(String name, RedisTemplate<String, Object> template, Counter commands) {
+            this.name = name;
+            this.template = template;
+            this.commands = commands;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public RedisTemplate<String, Object> getTemplate() {
+            return template;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.spring.notes.app.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides when a refresh-ahead entry should be recomputed early and runs the recomputation
+ * in the background, so the request that triggered it is still answered from cache.
+ * <p>
+ * The decision follows XFetch (Vattani et al., "Optimal Probabilistic Cache Stampede
+ * Prevention"): recompute when {@code now - delta * beta * ln(random) >= expiresAt}. Entries
+ * that are expensive to compute or close to expiry are refreshed earlier; past the logical
+ * expiry every hit triggers a refresh. The pool and its queue are bounded and refreshes
+ * that do not fit are dropped, leaving the stale value in place until the next hit.
+ */
+@Slf4j
+@Component
+public class RefreshAheadExecutor {
+
+    private final boolean enabled;
+    private final double beta;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final Counter scheduled;
+    private final Counter rejected;
+    private final Counter failed;
+    private final Timer duration;
+
+    public RefreshAheadExecutor(MeterRegistry meterRegistry,
+                                @Value("${app.cache.refresh-ahead.enabled:true}") boolean enabled,
+                                @Value("${app.cache.refresh-ahead.beta:1.0}") double beta,
+                                @Value("${app.cache.refresh-ahead.threads:2}") int threads,
+                                @Value("${app.cache.refresh-ahead.queue-capacity:100}") int queueCapacity) {
+        this.enabled = enabled;
+        this.beta = beta;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.scheduled = outcome(meterRegistry, "scheduled");
+        this.rejected = outcome(meterRegistry, "rejected");
+        this.failed = outcome(meterRegistry, "failed");
+        this.duration = Timer.builder(CacheMetrics.REFRESH_DURATION)
+                .description("Time spent recomputing cache entries in the background")
+                .register(meterRegistry);
+        Gauge.builder(CacheMetrics.REFRESH_QUEUE, executor, pool -> pool.getQueue().size())
+                .description("Background cache refreshes waiting for a thread")
+                .register(meterRegistry);
+    }
+
+    /**
+     * XFetch check for an entry that was just read from cache.
+     */
+    public boolean shouldRefresh(CacheEnvelope envelope) {
+        if (!enabled) {
+            return false;
+        }
+        // 1 - nextDouble() lies in (0, 1], so the logarithm is finite and non-positive
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        double earlyBy = -envelope.getDelta() * beta * Math.log(random);
+        return System.currentTimeMillis() + earlyBy >= envelope.getExpiresAt();
+    }
+
+    /**
+     * Run {@code refresh} in the background unless a refresh of the same key is already
+     * queued or running. Returns whether the refresh was accepted.
+     */
+    public boolean submit(String key, Runnable refresh) {
+        if (!refreshing.add(key)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    duration.record(refresh);
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    log.warn("Background refresh failed for key: {}", key, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+            scheduled.increment();
+            return true;
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            rejected.increment();
+            log.debug("Refresh queue full, keeping stale value for key: {}", key);
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(CacheMetrics.REFRESHES)
+                .description("Background cache refreshes by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,126 @@
+package com.spring.notes.app.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.spring.notes.app.entity.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process cache of finished response bodies: the serialized JSON of a read endpoint,
+ * already gzip-compressed, so a hit is written to the client without building, serializing
+ * or compressing the payload again.
+ * <p>
+ * Bodies are keyed by the user's cache generation plus the request path and query, so a
+ * write by the user makes all of their cached bodies unreachable at once; the TTL only
+ * bounds how long a superseded body occupies memory. While the generation is unknown
+ * there is no key and the response is built as usual.
+ */
+@Component
+public class ResponseBodyCache {
+
+    public static final String CACHE_NAME = "responses";
+
+    private final boolean enabled;
+    private final long maxEntryBytes;
+    private final UserCacheGenerations userCacheGenerations;
+    private final Cache<String, Body> store;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bypasses;
+
+    public ResponseBodyCache(UserCacheGenerations userCacheGenerations,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.cache.response.enabled:true}") boolean enabled,
+                             @Value("${app.cache.response.max-size:32MB}") DataSize maxSize,
+                             @Value("${app.cache.response.max-entry-size:256KB}") DataSize maxEntrySize,
+                             @Value("${app.cache.response.ttl:10m}") Duration ttl) {
+        this.enabled = enabled;
+        this.maxEntryBytes = maxEntrySize.toBytes();
+        this.userCacheGenerations = userCacheGenerations;
+        this.store = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, Body body) -> key.length() + body.gzip().length)
+                .expireAfterWrite(ttl)
+                .build();
+        this.hits = CacheMetrics.requests(meterRegistry, CACHE_NAME, CacheMetrics.TIER_L1, CacheMetrics.RESULT_HIT);
+        this.misses = CacheMetrics.requests(meterRegistry, CACHE_NAME, CacheMetrics.TIER_L1, CacheMetrics.RESULT_MISS);
+        this.bypasses = CacheMetrics.requests(meterRegistry, CACHE_NAME, CacheMetrics.TIER_L1, CacheMetrics.RESULT_BYPASS);
+        Gauge.builder(CacheMetrics.L1_WEIGHT, this, ResponseBodyCache::weight)
+                .description("Estimated bytes held by the in-process cache tier")
+                .baseUnit("bytes")
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Generation-stamped key of a user's response to the resource (path and canonical query);
+     * null, counted as a bypass, while the user's generation is unknown. Taken before the
+     * response is built, so a body is never stored under a generation newer than its data.
+     */
+    public String key(User user, String resource) {
+        String key = userCacheGenerations.key(user, "response:" + resource);
+        if (key == null) {
+            bypasses.increment();
+        }
+        return key;
+    }
+
+    public Body get(String key) {
+        Body body = store.getIfPresent(key);
+        if (body != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return body;
+    }
+
+    /**
+     * Compress a finished body and store it unless the compressed bytes exceed the entry
+     * size limit; the compressed body is returned either way.
+     */
+    public Body put(String key, String contentType, byte[] content) {
+        Body body = new Body(contentType, gzip(content));
+        if (body.gzip().length <= maxEntryBytes) {
+            store.put(key, body);
+        }
+        return body;
+    }
+
+    public long weight() {
+        return store.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, content.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A cached response: its content type and gzip-compressed body.
+     */
+    public record Body(String contentType, byte[] gzip) {
+    }
+}
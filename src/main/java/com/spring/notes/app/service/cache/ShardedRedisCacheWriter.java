@@ -0,0 +1,106 @@
+package com.spring.notes.app.service.cache;
+
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.lang.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link RedisCacheWriter} that sends each cache entry to the {@link RedisShards shard}
+ * owning its full Redis key, so a {@code RedisCache} spreads over every node without
+ * knowing it. Clearing a cache cleans every shard.
+ * <p>
+ * Keys must be written with a string serializer: they are routed by their UTF-8 text.
+ */
+public class ShardedRedisCacheWriter implements RedisCacheWriter {
+
+    private final RedisShards shards;
+    private final Map<RedisShards.Shard, RedisCacheWriter> writers;
+
+    public ShardedRedisCacheWriter(RedisShards shards) {
+        this(shards, CacheStatisticsCollector.none());
+    }
+
+    private ShardedRedisCacheWriter(RedisShards shards, CacheStatisticsCollector statistics) {
+        this.shards = shards;
+        this.writers = new IdentityHashMap<>();
+        for (RedisShards.Shard shard : shards.all()) {
+            // One collector for all shards, so the statistics of a cache cover all of it
+            writers.put(shard, RedisCacheWriter.nonLockingRedisCacheWriter(shard.getTemplate().getRequiredConnectionFactory())
+                    .withStatisticsCollector(statistics));
+        }
+    }
+
+    @Override
+    @Nullable
+    public byte[] get(String name, byte[] key) {
+        return writer(key).get(name, key);
+    }
+
+    @Override
+    @Nullable
+    public byte[] get(String name, byte[] key, @Nullable Duration ttl) {
+        return writer(key).get(name, key, ttl);
+    }
+
+    @Override
+    public boolean supportsAsyncRetrieve() {
+        return writers.values().stream().allMatch(RedisCacheWriter::supportsAsyncRetrieve);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> retrieve(String name, byte[] key, @Nullable Duration ttl) {
+        return writer(key).retrieve(name, key, ttl);
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, @Nullable Duration ttl) {
+        writer(key).put(name, key, value, ttl);
+    }
+
+    @Override
+    public CompletableFuture<Void> store(String name, byte[] key, byte[] value, @Nullable Duration ttl) {
+        return writer(key).store(name, key, value, ttl);
+    }
+
+    @Override
+    @Nullable
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, @Nullable Duration ttl) {
+        return writer(key).putIfAbsent(name, key, value, ttl);
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        writer(key).remove(name, key);
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        writers.values().forEach(writer -> writer.clean(name, pattern));
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+        writers.get(shards.primary()).clearStatistics(name);
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        return new ShardedRedisCacheWriter(shards, cacheStatisticsCollector);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return writers.get(shards.primary()).getCacheStatistics(cacheName);
+    }
+
+    private RedisCacheWriter writer(byte[] key) {
+        return writers.get(shards.forKey(new String(key, StandardCharsets.UTF_8)));
+    }
+}
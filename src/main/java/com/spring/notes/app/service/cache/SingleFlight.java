@@ -0,0 +1,176 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.service.RedisService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent cache-miss loads of the same key into one. Within a JVM the first
+ * caller becomes the leader and runs the loader while later callers wait on its result
+ * for at most {@code wait-timeout}; a loader failure is rethrown to every waiter.
+ * <p>
+ * With the Redis lease enabled the leader additionally takes a short {@code SET NX PX}
+ * lease, so only one node loads a key at a time. Leaders that lose the lease poll the
+ * cache for the winner's result instead of querying the database themselves.
+ */
+@Slf4j
+@Component
+public class SingleFlight {
+
+    private static final String LEASE_PREFIX = "lease:";
+    private static final long LEASE_POLL_MILLIS = 50;
+
+    private final RedisService redisService;
+    private final boolean leaseEnabled;
+    private final Duration leaseTtl;
+    private final Duration waitTimeout;
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter leaders;
+    private final Counter coalesced;
+    private final Counter timeouts;
+    private final Counter leaseWaits;
+
+    public SingleFlight(RedisService redisService,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.cache.single-flight.lease.enabled:false}") boolean leaseEnabled,
+                        @Value("${app.cache.single-flight.lease.ttl:5s}") Duration leaseTtl,
+                        @Value("${app.cache.single-flight.wait-timeout:5s}") Duration waitTimeout) {
+        this.redisService = redisService;
+        this.leaseEnabled = leaseEnabled;
+        this.leaseTtl = leaseTtl;
+        this.waitTimeout = waitTimeout;
+        this.leaders = outcome(meterRegistry, "leader");
+        this.coalesced = outcome(meterRegistry, "coalesced");
+        this.timeouts = outcome(meterRegistry, "timeout");
+        this.leaseWaits = outcome(meterRegistry, "lease-wait");
+    }
+
+    /**
+     * Load the value for {@code key}, sharing one loader run between concurrent callers.
+     *
+     * @param recheck looks the key up in the cache again; used while another node holds the lease
+     * @param loader  loads (and caches) the value
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> recheck, Supplier<T> loader) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return (T) await(key, existing, loader);
+        }
+
+        leaders.increment();
+        try {
+            T value = leaseEnabled ? loadUnderLease(key, recheck, loader) : loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Number of keys currently being loaded.
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private Object await(String key, CompletableFuture<Object> flight, Supplier<?> loader) {
+        try {
+            return flight.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Do not fail the request because the leader is slow; load independently instead
+            timeouts.increment();
+            log.warn("Timed out after {} waiting for in-flight load of key: {}", waitTimeout, key);
+            return loader.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Loading key failed: " + key, cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for key: " + key, e);
+        }
+    }
+
+    private <T> T loadUnderLease(String key, Supplier<T> recheck, Supplier<T> loader) {
+        String leaseKey = LEASE_PREFIX + key;
+        String owner = UUID.randomUUID().toString();
+
+        boolean acquired;
+        try {
+            acquired = redisService.tryLease(leaseKey, owner, leaseTtl.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // Without Redis there is nobody to coordinate with
+            return loader.get();
+        }
+
+        if (acquired) {
+            try {
+                return loader.get();
+            } finally {
+                releaseQuietly(leaseKey, owner);
+            }
+        }
+
+        // Another node is loading: wait for its result to land in the cache
+        leaseWaits.increment();
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(LEASE_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            T value = recheck.get();
+            if (value != null) {
+                return value;
+            }
+            if (!redisService.exists(leaseKey)) {
+                break;
+            }
+        }
+        return loader.get();
+    }
+
+    private void releaseQuietly(String leaseKey, String owner) {
+        try {
+            redisService.releaseLease(leaseKey, owner);
+        } catch (Exception e) {
+            // The lease expires on its own
+            log.debug("Could not release lease: {}", leaseKey);
+        }
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(CacheMetrics.SINGLE_FLIGHT)
+                .description("Cache miss loads by single-flight outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
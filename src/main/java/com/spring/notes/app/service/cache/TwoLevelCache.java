@@ -0,0 +1,215 @@
+package com.spring.notes.app.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * {@link Cache} that serves reads from a {@link NearCache} (L1) before falling through to
+ * the shared Redis cache (L2). Writes go to both tiers and are broadcast through the
+ * {@link CacheInvalidationBus} so that other nodes evict their now stale L1 copy.
+ * <p>
+ * Calls to L2 pass the {@link RedisCircuitBreaker}, if any. A failed L2 read counts as a
+ * miss, and while the breaker is open only L1 is consulted and writes merely drop the L1
+ * copy: the value is neither cached nor announced until Redis is back.
+ */
+public class TwoLevelCache implements Cache {
+
+    private final NearCache l1;
+    private final Cache l2;
+    private final CacheInvalidationBus invalidationBus;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter l2Bypasses;
+
+    public TwoLevelCache(NearCache l1, Cache l2, CacheInvalidationBus invalidationBus, MeterRegistry meterRegistry) {
+        this(l1, l2, invalidationBus, null, meterRegistry);
+    }
+
+    public TwoLevelCache(NearCache l1, Cache l2, CacheInvalidationBus invalidationBus,
+                         RedisCircuitBreaker circuitBreaker, MeterRegistry meterRegistry) {
+        this.l1 = l1;
+        this.l2 = l2;
+        this.invalidationBus = invalidationBus;
+        this.circuitBreaker = circuitBreaker;
+        this.l2Hits = CacheMetrics.requests(meterRegistry, l2.getName(), CacheMetrics.TIER_L2, CacheMetrics.RESULT_HIT);
+        this.l2Misses = CacheMetrics.requests(meterRegistry, l2.getName(), CacheMetrics.TIER_L2, CacheMetrics.RESULT_MISS);
+        this.l2Bypasses = CacheMetrics.requests(meterRegistry, l2.getName(), CacheMetrics.TIER_L2, CacheMetrics.RESULT_BYPASS);
+    }
+
+    @Override
+    public String getName() {
+        return l2.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    public NearCache getNearCache() {
+        return l1;
+    }
+
+    public Cache getRemoteCache() {
+        return l2;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        Object local = l1.getIfPresent(localKey);
+        if (local != null) {
+            return new SimpleValueWrapper(local);
+        }
+
+        if (degraded()) {
+            l2Bypasses.increment();
+            return null;
+        }
+        ValueWrapper remote = circuitBreaker != null
+                ? circuitBreaker.executeOrElse(() -> l2.get(key), () -> null)
+                : l2.get(key);
+        if (remote != null && remote.get() != null) {
+            l2Hits.increment();
+            l1.offer(localKey, remote.get());
+            return remote;
+        }
+        l2Misses.increment();
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper == null) {
+            return null;
+        }
+        Object value = wrapper.get();
+        if (type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (degraded()) {
+            l1.invalidate(localKey(key));
+            return;
+        }
+        remote(() -> l2.put(key, value));
+        String localKey = localKey(key);
+        l1.put(localKey, value);
+        invalidationBus.publish(getName(), localKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        String localKey = localKey(key);
+        if (degraded()) {
+            l1.invalidate(localKey);
+            return null;
+        }
+        ValueWrapper existing = remote(() -> l2.putIfAbsent(key, value));
+        l1.invalidate(localKey);
+        if (existing == null) {
+            invalidationBus.publish(getName(), localKey);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        if (degraded()) {
+            l1.invalidate(localKey(key));
+            return;
+        }
+        remote(() -> l2.evict(key));
+        String localKey = localKey(key);
+        l1.invalidate(localKey);
+        invalidationBus.publish(getName(), localKey);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        if (degraded()) {
+            l1.invalidate(localKey(key));
+            return false;
+        }
+        boolean evicted = remote(() -> l2.evictIfPresent(key));
+        String localKey = localKey(key);
+        l1.invalidate(localKey);
+        invalidationBus.publish(getName(), localKey);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        if (degraded()) {
+            l1.invalidateAll();
+            return;
+        }
+        remote(() -> l2.clear());
+        l1.invalidateAll();
+        invalidationBus.publishClear(getName());
+    }
+
+    /**
+     * Applies an invalidation received from another node to the local tier only.
+     */
+    public void invalidateLocal(String key) {
+        if (key == null) {
+            l1.invalidateAll();
+        } else {
+            l1.invalidate(key);
+        }
+    }
+
+    private boolean degraded() {
+        return circuitBreaker != null && circuitBreaker.isOpen();
+    }
+
+    private <T> T remote(Supplier<T> call) {
+        return circuitBreaker != null ? circuitBreaker.execute(call) : call.get();
+    }
+
+    private void remote(Runnable call) {
+        remote(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private String localKey(Object key) {
+        // Redis cache keys are stringified too, so the two tiers (and all nodes) agree on identity
+        return String.valueOf(key);
+    }
+}
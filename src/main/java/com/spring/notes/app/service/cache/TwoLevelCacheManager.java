@@ -0,0 +1,94 @@
+package com.spring.notes.app.service.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decorates the Redis {@link CacheManager} so every cache it hands out is fronted by a
+ * bounded in-process tier. Invalidations published by other nodes are routed to the
+ * matching local tier. The local tier of the caches named as off-heap keeps its values
+ * serialized outside the heap, in an {@link OffHeapStore} of its own. All caches share one
+ * {@link RedisCircuitBreaker}.
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private static final int OFF_HEAP_BLOCK_SIZE = 1024;
+
+    private final CacheManager remoteCacheManager;
+    private final CacheInvalidationBus invalidationBus;
+    private final MeterRegistry meterRegistry;
+    private final long maxBytesPerCache;
+    private final Duration localTtl;
+    private final int minFrequency;
+    private final Set<String> offHeapCaches;
+    private final long offHeapBytesPerCache;
+    private final RedisSerializer<Object> offHeapSerializer;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager, CacheInvalidationBus invalidationBus,
+                                MeterRegistry meterRegistry, long maxBytesPerCache, Duration localTtl,
+                                int minFrequency) {
+        this(remoteCacheManager, invalidationBus, meterRegistry, maxBytesPerCache, localTtl, minFrequency,
+                Set.of(), 0, null, null);
+    }
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager, CacheInvalidationBus invalidationBus,
+                                MeterRegistry meterRegistry, long maxBytesPerCache, Duration localTtl,
+                                int minFrequency, Set<String> offHeapCaches, long offHeapBytesPerCache,
+                                RedisSerializer<Object> offHeapSerializer, RedisCircuitBreaker circuitBreaker) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.invalidationBus = invalidationBus;
+        this.meterRegistry = meterRegistry;
+        this.maxBytesPerCache = maxBytesPerCache;
+        this.localTtl = localTtl;
+        this.minFrequency = minFrequency;
+        this.offHeapCaches = offHeapCaches;
+        this.offHeapBytesPerCache = offHeapBytesPerCache;
+        this.offHeapSerializer = offHeapSerializer;
+        this.circuitBreaker = circuitBreaker;
+        invalidationBus.subscribe(message -> {
+            TwoLevelCache cache = caches.get(message.getCacheName());
+            if (cache != null) {
+                cache.invalidateLocal(message.getKey());
+            }
+        });
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> new TwoLevelCache(
+                new NearCache(cacheName, maxBytesPerCache, localTtl, minFrequency, offHeapStore(cacheName), meterRegistry),
+                remote, invalidationBus, circuitBreaker, meterRegistry));
+    }
+
+    private OffHeapStore offHeapStore(String cacheName) {
+        if (!offHeapCaches.contains(cacheName)) {
+            return null;
+        }
+        // One value may take up to a sixteenth of the store
+        return new OffHeapStore(offHeapBytesPerCache, OFF_HEAP_BLOCK_SIZE, offHeapBytesPerCache / 16,
+                localTtl, offHeapSerializer);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+}
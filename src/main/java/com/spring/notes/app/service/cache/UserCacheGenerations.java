@@ -0,0 +1,134 @@
+package com.spring.notes.app.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.spring.notes.app.entity.User;
+import com.spring.notes.app.service.RedisService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Per-user cache generation counters. The current generation is baked into the key of
+ * every user-scoped cache entry, so bumping it on a write makes all of that user's
+ * derived entries (lists, categories, counts) unreachable at once without touching
+ * any other user's entries. Superseded entries simply age out by TTL.
+ * <p>
+ * Counters live in Redis so all nodes agree; each node keeps a short-lived local copy
+ * that is dropped as soon as another node announces a bump. While a user's counter cannot
+ * be read from Redis there is no key for their entries, and their reads skip the cache.
+ * <p>
+ * Counters have no TTL but may still be evicted under an {@code allkeys-*} policy. A missing
+ * counter is therefore created at the current time in microseconds rather than at zero, so
+ * it restarts above every generation it reached before and no superseded entry becomes
+ * reachable again.
+ */
+@Slf4j
+@Component
+public class UserCacheGenerations {
+
+    public static final String CACHE_NAME = "userGenerations";
+
+    public static final String KEY_PREFIX = "user:gen:";
+
+    /**
+     * Generation of a user whose counter could not be read.
+     */
+    public static final long UNKNOWN = -1;
+
+    private static final Pattern STAMP = Pattern.compile("^(\\{[^}]*}):g\\d+(?=:|$)");
+
+    private final RedisService redisService;
+    private final CacheWriteBatch writeBatch;
+    private final CacheInvalidationBus invalidationBus;
+    private final Cache<Long, Long> generations;
+
+    public UserCacheGenerations(RedisService redisService,
+                                CacheWriteBatch writeBatch,
+                                CacheInvalidationBus invalidationBus,
+                                @Value("${app.cache.generations.max-users:100000}") long maxUsers,
+                                @Value("${app.cache.near.ttl:60s}") Duration localTtl) {
+        this.redisService = redisService;
+        this.writeBatch = writeBatch;
+        this.invalidationBus = invalidationBus;
+        this.generations = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(localTtl)
+                .build();
+        invalidationBus.subscribe(message -> {
+            if (!CACHE_NAME.equals(message.getCacheName())) {
+                return;
+            }
+            if (message.getKey() == null) {
+                generations.invalidateAll();
+            } else {
+                generations.invalidate(Long.valueOf(message.getKey()));
+            }
+        });
+    }
+
+    /**
+     * Current generation of the user's cached data, or {@link #UNKNOWN} if Redis cannot be reached.
+     */
+    public long current(Long userId) {
+        try {
+            return generations.get(userId, id -> redisService.increment(counterKey(id), 0, seed()));
+        } catch (RuntimeException e) {
+            // Not cached, so the next read asks Redis again
+            log.debug("Cache generation of user ID: {} is unknown: {}", userId, e.getMessage());
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * Invalidate every generation-stamped cache entry of the user once the current
+     * transaction commits. Bumping before the commit would let a concurrent read cache
+     * the old data under the new generation.
+     */
+    public void bump(Long userId) {
+        writeBatch.increment(counterKey(userId), seed());
+        writeBatch.publish(CACHE_NAME, String.valueOf(userId));
+        // Only Redis knows the new value; the next read here fetches it
+        writeBatch.afterFlush(() -> generations.invalidate(userId));
+        log.debug("Queued cache generation bump for user ID: {}", userId);
+    }
+
+    /**
+     * Generation-stamped cache key for the user, e.g. {@code {42}:g7}; null while the generation is unknown.
+     */
+    public String key(User user) {
+        long generation = current(user.getId());
+        return generation == UNKNOWN ? null : RedisShards.userTag(user.getId()) + ":g" + generation;
+    }
+
+    /**
+     * Generation-stamped cache key for the user with a qualifier, e.g. {@code {42}:g7:total};
+     * null while the generation is unknown.
+     */
+    public String key(User user, String qualifier) {
+        String key = key(user);
+        return key == null ? null : key + ":" + qualifier;
+    }
+
+    /**
+     * The key without its generation, e.g. {@code {42}:total} for {@code {42}:g7:total}; other keys are returned as is.
+     */
+    public static String unstamped(String key) {
+        return STAMP.matcher(key).replaceFirst("$1");
+    }
+
+    private static long seed() {
+        // Above any counter seeded earlier unless a user wrote more than once per microsecond since
+        return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+    }
+
+    private static String counterKey(Long userId) {
+        // Tagged like the user's other keys, so it lives on the same shard
+        return KEY_PREFIX + RedisShards.userTag(userId);
+    }
+}
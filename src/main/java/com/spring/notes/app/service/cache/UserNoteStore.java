@@ -0,0 +1,313 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.dto.response.NoteResponse;
+import com.spring.notes.app.entity.Note;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Each user's notes as a Redis hash keyed by note ID, next to a sorted set that keeps the
+ * listing order. The whole list is read in one script call; a write patches only the one
+ * note it touched, and only if the user's notes are loaded, so a single edit no longer
+ * rewrites or invalidates the full list.
+ * <p>
+ * Loads and patches race like any read-through cache: a load may carry data read before a
+ * concurrent write committed. Every patch therefore increments a per-user version, and a
+ * load is only applied if the version is still the one seen before the database was read.
+ * Patches are queued on the {@link CacheWriteBatch} and so run after the surrounding
+ * transaction has committed; they can never be overtaken by a load of the data they replace.
+ * The hash expires one region TTL after it was loaded and is not extended by patches, which
+ * bounds the damage of a lost patch. It holds plain notes, never refresh-ahead envelopes, so
+ * there is no stale grace period to keep it for.
+ * <p>
+ * Alongside the hash, sorted sets scored by creation time index all of the user's notes
+ * and the notes of each status. They are written by the same scripts as the hash and
+ * share its lifetime, so whenever the hash is loaded a page of a listing sorted by
+ * {@code createdAt} can be read with one range query, without touching the database.
+ * <p>
+ * While the {@link RedisCircuitBreaker} is open, reads report the notes as not loaded and
+ * loads are skipped; patches are deferred by the write batch and replayed before the
+ * breaker closes, so no load can overtake them.
+ * <p>
+ * Not available in the standalone profile, which runs without Redis.
+ */
+@Slf4j
+@Component
+@Profile("!standalone")
+public class UserNoteStore {
+
+    private static final String LOADED_MARKER = "~";
+    private static final String VERSION_KEY_SUFFIX = ":v";
+    private static final int HMGET_CHUNK = 500;
+    // Script position (1-based) of the first per-status index key; statuses follow in ordinal order
+    private static final int FIRST_STATUS_KEY = 5;
+
+    private static final RedisScript<String> VERSION_SCRIPT = new DefaultRedisScript<>(
+            "return redis.call('get', KEYS[1]) or '0'", String.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> READ_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('exists', KEYS[1]) == 0 then return {} end
+            local ids = redis.call('zrange', KEYS[2], 0, -1)
+            local result = {'%2$s'}
+            for i = 1, #ids, %1$d do
+              local chunk = {}
+              for j = i, math.min(i + %1$d - 1, #ids) do chunk[#chunk + 1] = ids[j] end
+              local values = redis.call('hmget', KEYS[1], unpack(chunk))
+              for j = 1, #chunk do
+                if values[j] then result[#result + 1] = values[j] end
+              end
+            end
+            return result
+            """.formatted(HMGET_CHUNK, LOADED_MARKER), List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> PAGE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('exists', KEYS[1]) == 0 then return {} end
+            local ids
+            if ARGV[3] == '1' then
+              ids = redis.call('zrevrange', KEYS[2], ARGV[1], ARGV[2])
+            else
+              ids = redis.call('zrange', KEYS[2], ARGV[1], ARGV[2])
+            end
+            local result = {'%s', tostring(redis.call('zcard', KEYS[2]))}
+            if #ids > 0 then
+              local values = redis.call('hmget', KEYS[1], unpack(ids))
+              for j = 1, #ids do
+                if values[j] then result[#result + 1] = values[j] end
+              end
+            end
+            return result
+            """.formatted(LOADED_MARKER), List.class);
+
+    // KEYS: hash, ID order, version, creation order, then one creation order per status
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>("""
+            if (redis.call('get', KEYS[3]) or '0') ~= ARGV[1] then return 0 end
+            redis.call('del', KEYS[1], KEYS[2], unpack(KEYS, 4))
+            redis.call('hset', KEYS[1], '%s', '1')
+            for i = 3, #ARGV, 4 do
+              redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1])
+              redis.call('zadd', KEYS[2], ARGV[i], ARGV[i])
+              redis.call('zadd', KEYS[4], ARGV[i + 2], ARGV[i])
+              redis.call('zadd', KEYS[tonumber(ARGV[i + 3])], ARGV[i + 2], ARGV[i])
+            end
+            for k = 1, #KEYS do
+              if k ~= 3 then redis.call('pexpire', KEYS[k], ARGV[2]) end
+            end
+            return 1
+            """.formatted(LOADED_MARKER), Long.class);
+
+    private static final RedisScript<Long> PATCH_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('incr', KEYS[3])
+            redis.call('pexpire', KEYS[3], ARGV[3])
+            local ttl = redis.call('pttl', KEYS[1])
+            if ttl == -2 then return 0 end
+            redis.call('hset', KEYS[1], ARGV[1], ARGV[2])
+            redis.call('zadd', KEYS[2], ARGV[1], ARGV[1])
+            redis.call('zadd', KEYS[4], ARGV[4], ARGV[1])
+            for k = 5, #KEYS do redis.call('zrem', KEYS[k], ARGV[1]) end
+            redis.call('zadd', KEYS[tonumber(ARGV[5])], ARGV[4], ARGV[1])
+            -- An index that was empty is recreated here and must expire together with the hash
+            if ttl > 0 then
+              for k = 1, #KEYS do
+                if k ~= 3 then redis.call('pexpire', KEYS[k], ttl) end
+              end
+            end
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('incr', KEYS[3])
+            redis.call('pexpire', KEYS[3], ARGV[2])
+            if redis.call('exists', KEYS[1]) == 0 then return 0 end
+            redis.call('hdel', KEYS[1], ARGV[1])
+            redis.call('zrem', KEYS[2], ARGV[1])
+            for k = 4, #KEYS do redis.call('zrem', KEYS[k], ARGV[1]) end
+            return 1
+            """, Long.class);
+
+    // Integer replies arrive as Long and are never passed to the result serializer
+    private static final RedisSerializer<Long> LONG_RESULT = new GenericToStringSerializer<>(Long.class);
+
+    private final RedisShards shards;
+    private final CacheWriteBatch writeBatch;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final RedisSerializer<Object> valueSerializer;
+    private final String keyPrefix;
+    private final Duration ttl;
+
+    @SuppressWarnings("unchecked")
+    public UserNoteStore(RedisShards shards, CacheWriteBatch writeBatch,
+                         CacheNamespace cacheNamespace, RedisCircuitBreaker circuitBreaker) {
+        this.shards = shards;
+        this.writeBatch = writeBatch;
+        this.circuitBreaker = circuitBreaker;
+        this.valueSerializer = (RedisSerializer<Object>) shards.primary().getTemplate().getValueSerializer();
+        this.keyPrefix = cacheNamespace.prefix(CacheRegion.USER_NOTES.getCacheName());
+        this.ttl = CacheRegion.USER_NOTES.getTtl();
+    }
+
+    /**
+     * The user's notes in listing order, or empty if they are not loaded.
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<List<NoteResponse>> getAll(Long userId) {
+        // A nil reply cannot be told apart from an empty list, so a loaded read leads with the marker
+        List<String> keys = keys(userId);
+        List<byte[]> values = circuitBreaker.executeOrElse(() -> template(keys).execute(READ_SCRIPT, StringRedisSerializer.UTF_8,
+                (RedisSerializer<List>) (RedisSerializer<?>) RedisSerializer.byteArray(), keys), List::of);
+        if (values == null || values.isEmpty()) {
+            return Optional.empty();
+        }
+        List<NoteResponse> notes = decode(values.subList(1, values.size()));
+        log.debug("Read {} notes from the note store of user ID: {}", notes.size(), userId);
+        return Optional.of(notes);
+    }
+
+    /**
+     * One page of the user's notes ordered by creation time, optionally only those with
+     * {@code status}, or empty if the notes are not loaded.
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<Page<NoteResponse>> getPage(Long userId, Note.Status status, Pageable pageable, boolean descending) {
+        List<String> keys = keys(userId);
+        String index = status != null ? keys.get(FIRST_STATUS_KEY - 1 + status.ordinal()) : keys.get(3);
+        long start = pageable.getOffset();
+        List<byte[]> values = circuitBreaker.executeOrElse(() -> template(keys).execute(PAGE_SCRIPT, StringRedisSerializer.UTF_8,
+                (RedisSerializer<List>) (RedisSerializer<?>) RedisSerializer.byteArray(), List.of(keys.get(0), index),
+                String.valueOf(start), String.valueOf(start + pageable.getPageSize() - 1), descending ? "1" : "0"), List::of);
+        if (values == null || values.isEmpty()) {
+            return Optional.empty();
+        }
+        long total = Long.parseLong(new String(values.get(1), StandardCharsets.UTF_8));
+        return Optional.of(new PageImpl<>(decode(values.subList(2, values.size())), pageable, total));
+    }
+
+    /**
+     * Current patch version of the user's notes; read it before querying the database and
+     * hand it to {@link #load}. Null if Redis cannot be reached.
+     */
+    public String version(Long userId) {
+        String versionKey = versionKey(userId);
+        return circuitBreaker.executeOrElse(() -> shards.template(versionKey).execute(VERSION_SCRIPT, StringRedisSerializer.UTF_8,
+                StringRedisSerializer.UTF_8, List.of(versionKey)), () -> null);
+    }
+
+    /**
+     * Replace the user's notes, unless a patch has happened since {@code version} was read.
+     * Returns whether the notes were stored.
+     */
+    public boolean load(Long userId, String version, List<NoteResponse> notes) {
+        if (version == null) {
+            return false;
+        }
+        List<Object> args = new ArrayList<>(2 + notes.size() * 4);
+        args.add(version);
+        args.add(String.valueOf(ttl.toMillis()));
+        for (NoteResponse note : notes) {
+            args.add(String.valueOf(note.getId()));
+            args.add(encode(note));
+            args.add(createdScore(note));
+            args.add(statusKey(note));
+        }
+        List<String> keys = keys(userId);
+        Long loaded = circuitBreaker.executeOrElse(() -> template(keys).execute(LOAD_SCRIPT, StringRedisSerializer.UTF_8,
+                LONG_RESULT, keys, args.toArray()), () -> null);
+        boolean stored = loaded != null && loaded == 1L;
+        log.debug("Load of {} notes for user ID: {} -> stored: {}", notes.size(), userId, stored);
+        return stored;
+    }
+
+    /**
+     * Add or replace one note of a loaded user once the current transaction commits.
+     */
+    public void patch(Long userId, NoteResponse note) {
+        writeBatch.eval(PATCH_SCRIPT.getScriptAsString(), keys(userId), List.of(
+                String.valueOf(note.getId()), encode(note), versionTtlMillis(), createdScore(note), statusKey(note)));
+    }
+
+    /**
+     * Drop one note of a loaded user once the current transaction commits.
+     */
+    public void remove(Long userId, Long noteId) {
+        writeBatch.eval(REMOVE_SCRIPT.getScriptAsString(), keys(userId), List.of(
+                String.valueOf(noteId), versionTtlMillis()));
+    }
+
+    private List<String> keys(Long userId) {
+        String prefix = keyPrefix + RedisShards.userTag(userId) + ":";
+        List<String> keys = new ArrayList<>(FIRST_STATUS_KEY - 1 + Note.Status.values().length);
+        keys.add(prefix + "h");
+        keys.add(prefix + "z");
+        keys.add(prefix + "v");
+        keys.add(prefix + "c");
+        for (Note.Status status : Note.Status.values()) {
+            keys.add(prefix + "c:" + status.name());
+        }
+        return keys;
+    }
+
+    private String versionKey(Long userId) {
+        return keyPrefix + RedisShards.userTag(userId) + VERSION_KEY_SUFFIX;
+    }
+
+    /**
+     * Whether {@code key} is the patch version of a user's notes, in any namespace.
+     */
+    public static boolean isVersionKey(String key) {
+        return key.endsWith(VERSION_KEY_SUFFIX) && key.contains(":" + CacheRegion.USER_NOTES.getCacheName() + "::");
+    }
+
+    private RedisTemplate<String, Object> template(List<String> keys) {
+        // All keys of a user share its hash tag and so its shard
+        return shards.template(keys.get(0));
+    }
+
+    private String versionTtlMillis() {
+        // Outlive the hash so a load never compares against a version that expired meanwhile
+        return String.valueOf(ttl.multipliedBy(2).toMillis());
+    }
+
+    private static String createdScore(NoteResponse note) {
+        // Epoch milliseconds stay well within the 53 bits a sorted set score holds exactly
+        return note.getCreatedAt() != null
+                ? String.valueOf(note.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli())
+                : "0";
+    }
+
+    private static String statusKey(NoteResponse note) {
+        Note.Status status = note.getStatus() != null ? note.getStatus() : Note.Status.ACTIVE;
+        return String.valueOf(FIRST_STATUS_KEY + status.ordinal());
+    }
+
+    private List<NoteResponse> decode(List<byte[]> values) {
+        List<NoteResponse> notes = new ArrayList<>(values.size());
+        for (byte[] value : values) {
+            if (valueSerializer.deserialize(value) instanceof NoteResponse note) {
+                notes.add(note);
+            }
+        }
+        return notes;
+    }
+
+    private String encode(NoteResponse note) {
+        return new String(valueSerializer.serialize(note), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,358 @@
+package com.spring.notes.app.service.impl;
+
+import com.spring.notes.app.dto.response.CacheKeyspaceReport;
+import com.spring.notes.app.exception.ResourceNotFoundException;
+import com.spring.notes.app.service.CacheKeyspaceService;
+import com.spring.notes.app.service.RedisKeyInfo;
+import com.spring.notes.app.service.RedisService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analyzes the keyspace in the background: SCAN walks every key, a {@code sample-rate}
+ * share of each batch is inspected with MEMORY USAGE and PTTL in one script call per node,
+ * and the results are grouped by key prefix. Batches are paced like cache purges, so the
+ * walk never holds Redis for long, and the report of a running analysis shows the keys seen
+ * so far. Analyses run one at a time.
+ * <p>
+ * The prefix of a cache key is everything up to its {@code ::} (namespace and cache name,
+ * e.g. {@code v3f9a1c2e:notes::}); other keys are grouped by everything up to their last
+ * {@code :}, e.g. {@code user:gen:}.
+ */
+@Service
+@Slf4j
+public class CacheKeyspaceServiceImpl implements CacheKeyspaceService {
+
+    private static final String OTHER_PREFIXES = "(other)";
+    private static final String NO_PREFIX = "(none)";
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final String[] TTL_BUCKETS = {"none", "<1m", "1m-10m", "10m-1h", "1h-1d", ">1d"};
+
+    private final RedisService redisService;
+    private final int batchSize;
+    private final long maxKeysPerSecond;
+    private final double sampleRate;
+    private final int largestKeys;
+    private final int maxPrefixes;
+    private final int retainedReports;
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-keyspace");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CacheKeyspaceServiceImpl(RedisService redisService,
+                                    @Value("${app.cache.keyspace.batch-size:500}") int batchSize,
+                                    @Value("${app.cache.keyspace.max-keys-per-second:5000}") long maxKeysPerSecond,
+                                    @Value("${app.cache.keyspace.sample-rate:0.1}") double sampleRate,
+                                    @Value("${app.cache.keyspace.largest-keys:10}") int largestKeys,
+                                    @Value("${app.cache.keyspace.max-prefixes:100}") int maxPrefixes,
+                                    @Value("${app.cache.keyspace.retained-reports:10}") int retainedReports) {
+        if (sampleRate <= 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Keyspace sample rate must be in (0, 1], was " + sampleRate);
+        }
+        this.redisService = redisService;
+        this.batchSize = batchSize;
+        this.maxKeysPerSecond = maxKeysPerSecond;
+        this.sampleRate = sampleRate;
+        this.largestKeys = largestKeys;
+        this.maxPrefixes = maxPrefixes;
+        this.retainedReports = retainedReports;
+    }
+
+    @Override
+    public CacheKeyspaceReport analyze() {
+        pruneFinishedJobs();
+        AnalysisJob job = new AnalysisJob(UUID.randomUUID().toString());
+        jobs.put(job.id, job);
+        executor.execute(() -> run(job));
+        log.info("Queued keyspace analysis: {} with sample rate: {}", job.id, sampleRate);
+        return job.toResponse();
+    }
+
+    @Override
+    public CacheKeyspaceReport getReport(String id) {
+        return find(id).toResponse();
+    }
+
+    @Override
+    public List<CacheKeyspaceReport> getReports() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((AnalysisJob job) -> job.startedAt).reversed())
+                .map(AnalysisJob::toResponse)
+                .toList();
+    }
+
+    @Override
+    public CacheKeyspaceReport cancel(String id) {
+        AnalysisJob job = find(id);
+        job.cancelled = true;
+        log.info("Cancellation requested for keyspace analysis: {}", id);
+        return job.toResponse();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The group a key is reported under.
+     */
+    private static String prefixOf(String key) {
+        int cacheSeparator = key.indexOf("::");
+        if (cacheSeparator >= 0) {
+            return key.substring(0, cacheSeparator + 2);
+        }
+        int lastColon = key.lastIndexOf(':');
+        return lastColon > 0 ? key.substring(0, lastColon + 1) : NO_PREFIX;
+    }
+
+    private void run(AnalysisJob job) {
+        if (job.cancelled) {
+            job.finish(CacheKeyspaceReport.Status.CANCELLED, null);
+            return;
+        }
+        job.status = CacheKeyspaceReport.Status.RUNNING;
+        CacheKeyspaceReport.Status outcome = CacheKeyspaceReport.Status.FAILED;
+        String error = null;
+        try {
+            redisService.scan("*", batchSize, batch -> {
+                long started = System.nanoTime();
+                List<String> sample = sampleRate >= 1
+                        ? batch
+                        : batch.stream().filter(key -> ThreadLocalRandom.current().nextDouble() < sampleRate).toList();
+                Map<String, RedisKeyInfo> inspected = sample.isEmpty() ? Map.of() : redisService.inspect(sample);
+                job.record(batch, inspected);
+                throttle(batch.size(), System.nanoTime() - started);
+                return !job.cancelled && !Thread.currentThread().isInterrupted();
+            });
+            outcome = job.cancelled ? CacheKeyspaceReport.Status.CANCELLED : CacheKeyspaceReport.Status.COMPLETED;
+            log.info("Keyspace analysis: {} {} after scanning {} keys", job.id, outcome, job.scanned);
+        } catch (Exception e) {
+            error = e.getMessage();
+            log.error("Keyspace analysis: {} failed", job.id, e);
+        } finally {
+            job.finish(outcome, error);
+        }
+    }
+
+    private void throttle(int keys, long elapsedNanos) {
+        long budgetNanos = TimeUnit.SECONDS.toNanos(keys) / maxKeysPerSecond;
+        long remainingNanos = budgetNanos - elapsedNanos;
+        if (remainingNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(remainingNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        List<AnalysisJob> finished = jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted(Comparator.comparing((AnalysisJob job) -> job.finishedAt))
+                .toList();
+        for (int i = 0; i < finished.size() - retainedReports + 1; i++) {
+            jobs.remove(finished.get(i).id);
+        }
+    }
+
+    private AnalysisJob find(String id) {
+        AnalysisJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResourceNotFoundException("Keyspace analysis not found with ID: " + id);
+        }
+        return job;
+    }
+
+    private static int ttlBucket(long ttlMillis) {
+        if (ttlMillis < 0) {
+            return 0;
+        }
+        if (ttlMillis < MINUTE) {
+            return 1;
+        }
+        if (ttlMillis < 10 * MINUTE) {
+            return 2;
+        }
+        if (ttlMillis < 60 * MINUTE) {
+            return 3;
+        }
+        return ttlMillis < 24 * 60 * MINUTE ? 4 : 5;
+    }
+
+    /**
+     * Extrapolates the memory of the sampled keys to all {@code keys}; null if none was measured.
+     */
+    private static Long estimate(long keys, long measuredKeys, long measuredBytes) {
+        return measuredKeys == 0 ? null : Math.round((double) measuredBytes / measuredKeys * keys);
+    }
+
+    private final class AnalysisJob {
+
+        private final String id;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile CacheKeyspaceReport.Status status = CacheKeyspaceReport.Status.QUEUED;
+        private volatile boolean cancelled;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        // Written by the analysis thread, read by report requests; guarded by this
+        private long scanned;
+        private long sampled;
+        private final Map<String, PrefixTally> prefixes = new LinkedHashMap<>();
+        private final Map<String, NodeTally> nodes = new LinkedHashMap<>();
+
+        private AnalysisJob(String id) {
+            this.id = id;
+        }
+
+        private synchronized void record(List<String> batch, Map<String, RedisKeyInfo> inspected) {
+            scanned += batch.size();
+            sampled += inspected.size();
+            for (String key : batch) {
+                PrefixTally prefix = prefix(prefixOf(key));
+                prefix.keys++;
+                RedisKeyInfo info = inspected.get(key);
+                if (info != null) {
+                    prefix.record(info);
+                    nodes.computeIfAbsent(info.getNode(), node -> new NodeTally()).record(info);
+                }
+            }
+        }
+
+        private PrefixTally prefix(String prefix) {
+            PrefixTally tally = prefixes.get(prefix);
+            if (tally != null) {
+                return tally;
+            }
+            // Bounded, so that keys without a recognizable prefix cannot blow up the report
+            String group = prefixes.size() < maxPrefixes ? prefix : OTHER_PREFIXES;
+            return prefixes.computeIfAbsent(group, ignored -> new PrefixTally());
+        }
+
+        private void finish(CacheKeyspaceReport.Status status, String error) {
+            this.error = error;
+            this.status = status;
+            this.finishedAt = LocalDateTime.now();
+        }
+
+        private synchronized CacheKeyspaceReport toResponse() {
+            List<CacheKeyspaceReport.PrefixStats> prefixStats = prefixes.entrySet().stream()
+                    .map(entry -> entry.getValue().toStats(entry.getKey()))
+                    .sorted(Comparator.comparing((CacheKeyspaceReport.PrefixStats stats) ->
+                                    stats.getEstimatedMemoryBytes() != null ? stats.getEstimatedMemoryBytes() : 0L)
+                            .thenComparingLong(CacheKeyspaceReport.PrefixStats::getKeys)
+                            .reversed())
+                    .toList();
+            List<CacheKeyspaceReport.NodeStats> nodeStats = nodes.entrySet().stream()
+                    .map(entry -> CacheKeyspaceReport.NodeStats.builder()
+                            .node(entry.getKey())
+                            .sampledKeys(entry.getValue().sampledKeys)
+                            .estimatedMemoryBytes(entry.getValue().measuredKeys == 0
+                                    ? null : Math.round(entry.getValue().measuredBytes / sampleRate))
+                            .build())
+                    .toList();
+            boolean measured = prefixStats.stream().anyMatch(stats -> stats.getEstimatedMemoryBytes() != null);
+            return CacheKeyspaceReport.builder()
+                    .id(id)
+                    .status(status)
+                    .sampleRate(sampleRate)
+                    .scanned(scanned)
+                    .sampled(sampled)
+                    .estimatedMemoryBytes(measured ? prefixStats.stream()
+                            .mapToLong(stats -> stats.getEstimatedMemoryBytes() != null ? stats.getEstimatedMemoryBytes() : 0L)
+                            .sum() : null)
+                    .prefixes(prefixStats)
+                    .nodes(nodeStats)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+
+    private final class PrefixTally {
+
+        private long keys;
+        private long sampledKeys;
+        private long measuredKeys;
+        private long measuredBytes;
+        private final long[] ttls = new long[TTL_BUCKETS.length];
+        // Smallest of the largest keys first, so it is the one pushed out
+        private final PriorityQueue<RedisKeyInfo> largest = new PriorityQueue<>(
+                Comparator.comparingLong(RedisKeyInfo::getMemoryBytes));
+
+        private void record(RedisKeyInfo info) {
+            sampledKeys++;
+            ttls[ttlBucket(info.getTtlMillis())]++;
+            if (info.getMemoryBytes() < 0) {
+                return;
+            }
+            measuredKeys++;
+            measuredBytes += info.getMemoryBytes();
+            largest.add(info);
+            if (largest.size() > largestKeys) {
+                largest.poll();
+            }
+        }
+
+        private CacheKeyspaceReport.PrefixStats toStats(String prefix) {
+            Map<String, Long> ttl = new LinkedHashMap<>();
+            for (int i = 0; i < TTL_BUCKETS.length; i++) {
+                ttl.put(TTL_BUCKETS[i], ttls[i]);
+            }
+            return CacheKeyspaceReport.PrefixStats.builder()
+                    .prefix(prefix)
+                    .keys(keys)
+                    .sampledKeys(sampledKeys)
+                    .estimatedMemoryBytes(estimate(keys, measuredKeys, measuredBytes))
+                    .averageBytes(measuredKeys == 0 ? null : measuredBytes / measuredKeys)
+                    .ttl(ttl)
+                    .largestKeys(largest.stream()
+                            .sorted(Comparator.comparingLong(RedisKeyInfo::getMemoryBytes).reversed())
+                            .map(info -> CacheKeyspaceReport.KeySize.builder()
+                                    .key(info.getKey())
+                                    .node(info.getNode())
+                                    .memoryBytes(info.getMemoryBytes())
+                                    .ttlMillis(info.getTtlMillis())
+                                    .build())
+                            .toList())
+                    .build();
+        }
+    }
+
+    private static final class NodeTally {
+
+        private long sampledKeys;
+        private long measuredKeys;
+        private long measuredBytes;
+
+        private void record(RedisKeyInfo info) {
+            sampledKeys++;
+            if (info.getMemoryBytes() >= 0) {
+                measuredKeys++;
+                measuredBytes += info.getMemoryBytes();
+            }
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.spring.notes.app.service.impl;
+
+import com.spring.notes.app.dto.response.CachePurgeResponse;
+import com.spring.notes.app.exception.ResourceNotFoundException;
+import com.spring.notes.app.service.CachePurgeService;
+import com.spring.notes.app.service.RedisService;
+import com.spring.notes.app.service.cache.CacheInvalidationBus;
+import com.spring.notes.app.service.cache.CacheMetrics;
+import com.spring.notes.app.service.cache.CacheNamespace;
+import com.spring.notes.app.service.cache.CacheRegion;
+import com.spring.notes.app.service.cache.CacheWriteBatch;
+import com.spring.notes.app.service.cache.RedisShards;
+import com.spring.notes.app.service.cache.TwoLevelCache;
+import com.spring.notes.app.service.cache.UserCacheGenerations;
+import com.spring.notes.app.service.cache.UserNoteStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Purges cache keys in the background: SCAN walks the keyspace by pattern and each batch
+ * is removed with UNLINK, paced so that no more than the configured number of keys are
+ * deleted per second. Jobs run one at a time so two purges never compete for Redis.
+ * <p>
+ * A full purge only walks the current {@link CacheNamespace}, so keys of other applications
+ * sharing the database are left alone. Generation counters and version keys are never purged:
+ * dropping a counter would restart a user's generation and could make superseded entries that
+ * survived the walk reachable again, and dropping a version or a delete's fence would let a
+ * slow write put an older value back. Both expire on their own.
+ */
+@Service
+@Slf4j
+public class CachePurgeServiceImpl implements CachePurgeService {
+
+    private final RedisService redisService;
+    private final CacheManager cacheManager;
+    private final CacheInvalidationBus invalidationBus;
+    private final CacheNamespace cacheNamespace;
+    private final int batchSize;
+    private final long maxKeysPerSecond;
+    private final int retainedJobs;
+    private final Counter purgedKeys;
+    private final Map<String, PurgeJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CachePurgeServiceImpl(RedisService redisService,
+                                 CacheManager cacheManager,
+                                 CacheInvalidationBus invalidationBus,
+                                 CacheNamespace cacheNamespace,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.cache.purge.batch-size:500}") int batchSize,
+                                 @Value("${app.cache.purge.max-keys-per-second:5000}") long maxKeysPerSecond,
+                                 @Value("${app.cache.purge.retained-jobs:20}") int retainedJobs) {
+        this.redisService = redisService;
+        this.cacheManager = cacheManager;
+        this.invalidationBus = invalidationBus;
+        this.cacheNamespace = cacheNamespace;
+        this.batchSize = batchSize;
+        this.maxKeysPerSecond = maxKeysPerSecond;
+        this.retainedJobs = retainedJobs;
+        this.purgedKeys = Counter.builder(CacheMetrics.PURGED_KEYS)
+                .description("Cache keys removed by background purges")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public CachePurgeResponse purgeAll() {
+        return submit(escape(cacheNamespace.getValue() + ":") + "*");
+    }
+
+    @Override
+    public CachePurgeResponse purgeByPrefix(String prefix) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IllegalArgumentException("Purge prefix must not be blank");
+        }
+        return submit(escape(prefix) + "*");
+    }
+
+    @Override
+    public CachePurgeResponse purgeByUser(Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID must not be null");
+        }
+        // Every note cache key is "<namespace>:<cache>::{<userId>}:<rest>"
+        return submit("*::" + RedisShards.userTag(userId) + ":*");
+    }
+
+    @Override
+    public CachePurgeResponse getJob(String id) {
+        return find(id).toResponse();
+    }
+
+    @Override
+    public List<CachePurgeResponse> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((PurgeJob job) -> job.startedAt).reversed())
+                .map(PurgeJob::toResponse)
+                .toList();
+    }
+
+    @Override
+    public CachePurgeResponse cancel(String id) {
+        PurgeJob job = find(id);
+        job.cancelled = true;
+        log.info("Cancellation requested for cache purge: {}", id);
+        return job.toResponse();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private CachePurgeResponse submit(String pattern) {
+        pruneFinishedJobs();
+        PurgeJob job = new PurgeJob(UUID.randomUUID().toString(), pattern);
+        jobs.put(job.id, job);
+        executor.execute(() -> run(job));
+        log.info("Queued cache purge: {} for pattern: {}", job.id, pattern);
+        return job.toResponse();
+    }
+
+    private void run(PurgeJob job) {
+        if (job.cancelled) {
+            job.finish(CachePurgeResponse.Status.CANCELLED, null);
+            return;
+        }
+        job.status = CachePurgeResponse.Status.RUNNING;
+        CachePurgeResponse.Status outcome = CachePurgeResponse.Status.FAILED;
+        String error = null;
+        try {
+            redisService.scan(job.pattern, batchSize, batch -> {
+                long started = System.nanoTime();
+                job.scanned.addAndGet(batch.size());
+                List<String> keys = batch.stream()
+                        .filter(CachePurgeServiceImpl::isPurgeable)
+                        .toList();
+                long deleted = redisService.unlink(keys);
+                job.deleted.addAndGet(deleted);
+                purgedKeys.increment(deleted);
+                throttle(keys.size(), System.nanoTime() - started);
+                return !job.cancelled && !Thread.currentThread().isInterrupted();
+            });
+            outcome = job.cancelled ? CachePurgeResponse.Status.CANCELLED : CachePurgeResponse.Status.COMPLETED;
+            log.info("Cache purge: {} {} after scanning {} keys and deleting {}",
+                    job.id, outcome, job.scanned.get(), job.deleted.get());
+        } catch (Exception e) {
+            error = e.getMessage();
+            log.error("Cache purge: {} for pattern: {} failed", job.id, job.pattern, e);
+        } finally {
+            // Whatever reached Redis is gone, so the in-process tiers must not keep serving it
+            dropNearCaches();
+            job.finish(outcome, error);
+        }
+    }
+
+    private void throttle(int keys, long elapsedNanos) {
+        long budgetNanos = TimeUnit.SECONDS.toNanos(keys) / maxKeysPerSecond;
+        long remainingNanos = budgetNanos - elapsedNanos;
+        if (remainingNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(remainingNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dropNearCaches() {
+        for (CacheRegion region : CacheRegion.values()) {
+            Cache cache = cacheManager.getCache(region.getCacheName());
+            if (cache instanceof TwoLevelCache twoLevelCache) {
+                twoLevelCache.invalidateLocal(null);
+            }
+            invalidationBus.publishClear(region.getCacheName());
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        List<PurgeJob> finished = jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted(Comparator.comparing((PurgeJob job) -> job.finishedAt))
+                .toList();
+        for (int i = 0; i < finished.size() - retainedJobs + 1; i++) {
+            jobs.remove(finished.get(i).id);
+        }
+    }
+
+    private PurgeJob find(String id) {
+        PurgeJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResourceNotFoundException("Cache purge not found with ID: " + id);
+        }
+        return job;
+    }
+
+    private static boolean isPurgeable(String key) {
+        return !key.startsWith(UserCacheGenerations.KEY_PREFIX)
+                && !CacheWriteBatch.isVersionKey(key)
+                && !UserNoteStore.isVersionKey(key);
+    }
+
+    private static String escape(String prefix) {
+        return prefix.replaceAll("([\\\\*?\\[\\]])", "\\\\$1");
+    }
+
+    private static final class PurgeJob {
+
+        private final String id;
+        private final String pattern;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong scanned = new AtomicLong();
+        private final AtomicLong deleted = new AtomicLong();
+        private volatile CachePurgeResponse.Status status = CachePurgeResponse.Status.QUEUED;
+        private volatile boolean cancelled;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        private PurgeJob(String id, String pattern) {
+            this.id = id;
+            this.pattern = pattern;
+        }
+
+        private void finish(CachePurgeResponse.Status status, String error) {
+            this.error = error;
+            this.status = status;
+            this.finishedAt = LocalDateTime.now();
+        }
+
+        private CachePurgeResponse toResponse() {
+            return CachePurgeResponse.builder()
+                    .id(id)
+                    .pattern(pattern)
+                    .status(status)
+                    .scanned(scanned.get())
+                    .deleted(deleted.get())
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.spring.notes.app.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.spring.notes.app.service.RedisEntry;
+import com.spring.notes.app.service.RedisKeyInfo;
+import com.spring.notes.app.service.RedisService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * {@link RedisService} of the standalone profile, held in a bounded in-process store. Keys
+ * expire like their Redis counterparts and the least valuable keys are evicted once the store
+ * is full, much like Redis under {@code maxmemory}. Values are kept by reference, not copied.
+ */
+@Service
+@Profile("standalone")
+@Slf4j
+public class InMemoryRedisServiceImpl implements RedisService {
+
+    private static final long PERSISTENT = Long.MAX_VALUE;
+    // Marks a write that keeps the key's remaining TTL, as INCR does
+    private static final long KEEP_TTL = -1;
+
+    private final Cache<String, Entry> store;
+
+    public InMemoryRedisServiceImpl(@Value("${app.standalone.store.max-entries:100000}") long maxEntries) {
+        this.store = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return entry.ttlNanos() == KEEP_TTL ? PERSISTENT : entry.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.ttlNanos() == KEEP_TTL ? currentDuration : entry.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public void set(String key, Object value) {
+        store.put(key, new Entry(value, PERSISTENT));
+        log.debug("Set key: {} with value: {}", key, value);
+    }
+
+    @Override
+    public void set(String key, Object value, long timeout, TimeUnit unit) {
+        store.put(key, new Entry(value, unit.toNanos(timeout)));
+        log.debug("Set key: {} with value: {} and TTL: {} {}", key, value, timeout, unit);
+    }
+
+    @Override
+    public Optional<Object> get(String key) {
+        Entry entry = store.getIfPresent(key);
+        return Optional.ofNullable(entry != null ? entry.value() : null);
+    }
+
+    @Override
+    public <T> Optional<T> get(String key, Class<T> clazz) {
+        return get(key).filter(clazz::isInstance).map(clazz::cast);
+    }
+
+    @Override
+    public <T> Map<String, T> multiGet(Collection<String> keys, Class<T> clazz) {
+        Map<String, T> result = new LinkedHashMap<>();
+        for (String key : keys) {
+            get(key, clazz).ifPresent(value -> result.put(key, value));
+        }
+        return result;
+    }
+
+    @Override
+    public void multiSet(Collection<RedisEntry> entries) {
+        for (RedisEntry entry : entries) {
+            Duration ttl = entry.getTtl();
+            store.put(entry.getKey(), new Entry(entry.getValue(), ttl != null ? ttl.toNanos() : PERSISTENT));
+        }
+        log.debug("Multi-set {} keys", entries.size());
+    }
+
+    @Override
+    public void multiSet(Map<String, ?> values, long timeout, TimeUnit unit) {
+        values.forEach((key, value) -> set(key, value, timeout, unit));
+    }
+
+    @Override
+    public long multiDelete(Collection<String> keys) {
+        long deleted = 0;
+        for (String key : keys) {
+            if (store.asMap().remove(key) != null) {
+                deleted++;
+            }
+        }
+        log.debug("Multi-delete {} keys -> {} deleted", keys.size(), deleted);
+        return deleted;
+    }
+
+    @Override
+    public long unlink(Collection<String> keys) {
+        return multiDelete(keys);
+    }
+
+    @Override
+    public void scan(String pattern, int batchSize, Predicate<List<String>> batchConsumer) {
+        Pattern matcher = globToRegex(pattern);
+        List<String> batch = new ArrayList<>(batchSize);
+        for (String key : new ArrayList<>(store.asMap().keySet())) {
+            if (!matcher.matcher(key).matches()) {
+                continue;
+            }
+            batch.add(key);
+            if (batch.size() >= batchSize) {
+                if (!batchConsumer.test(batch)) {
+                    log.debug("Scan of pattern: {} stopped by consumer", pattern);
+                    return;
+                }
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batchConsumer.test(batch);
+        }
+    }
+
+    @Override
+    public Map<String, RedisKeyInfo> inspect(Collection<String> keys) {
+        // Values are held by reference, so their size is unknown
+        Map<String, RedisKeyInfo> result = new LinkedHashMap<>();
+        for (String key : keys) {
+            Long ttl = getTtl(key);
+            if (ttl != null && ttl != -2L) {
+                result.put(key, new RedisKeyInfo(key, "local", -1, ttl == -1L ? -1 : TimeUnit.SECONDS.toMillis(ttl)));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long increment(String key, long delta) {
+        return increment(key, delta, 0);
+    }
+
+    @Override
+    public long increment(String key, long delta, long initial) {
+        Entry entry = store.asMap().compute(key, (k, current) -> {
+            if (current == null) {
+                return new Entry(initial + delta, PERSISTENT);
+            }
+            if (!(current.value() instanceof Number number)) {
+                throw new IllegalStateException("Value of key " + key + " is not an integer");
+            }
+            return new Entry(number.longValue() + delta, KEEP_TTL);
+        });
+        log.debug("Increment key: {} by {} -> {}", key, delta, entry.value());
+        return ((Number) entry.value()).longValue();
+    }
+
+    @Override
+    public boolean tryLease(String key, String owner, long timeout, TimeUnit unit) {
+        boolean acquired = store.asMap().putIfAbsent(key, new Entry(owner, unit.toNanos(timeout))) == null;
+        log.debug("Lease key: {} for owner: {} -> acquired: {}", key, owner, acquired);
+        return acquired;
+    }
+
+    @Override
+    public void releaseLease(String key, String owner) {
+        Entry entry = store.getIfPresent(key);
+        // Removes only this very entry, so a lease taken over in the meantime survives
+        boolean released = entry != null && owner.equals(entry.value()) && store.asMap().remove(key, entry);
+        log.debug("Release lease: {} for owner: {} -> released: {}", key, owner, released);
+    }
+
+    @Override
+    public void delete(String key) {
+        store.invalidate(key);
+        log.debug("Delete key: {}", key);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return store.getIfPresent(key) != null;
+    }
+
+    @Override
+    public boolean expire(String key, long timeout, TimeUnit unit) {
+        if (store.getIfPresent(key) == null) {
+            return false;
+        }
+        store.policy().expireVariably().orElseThrow()
+                .setExpiresAfter(key, timeout, unit);
+        return true;
+    }
+
+    @Override
+    public Long getTtl(String key) {
+        // Same convention as Redis TTL: -2 for a missing key, -1 for a key without expiration
+        if (store.getIfPresent(key) == null) {
+            return -2L;
+        }
+        Optional<Duration> ttl = store.policy().expireVariably().orElseThrow().getExpiresAfter(key);
+        if (ttl.isEmpty()) {
+            return -2L;
+        }
+        // Caffeine caps a duration at half of Long.MAX_VALUE and counts it down from there
+        return ttl.get().toNanos() >= PERSISTENT / 4 ? -1L : ttl.get().toSeconds();
+    }
+
+    /**
+     * The Redis glob syntax ({@code *}, {@code ?}, {@code [...]} and {@code \} escapes) as a regex.
+     */
+    static Pattern globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        boolean inClass = false;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '\\' && i + 1 < glob.length()) {
+                regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+            } else if (inClass) {
+                if (c == ']') {
+                    inClass = false;
+                    regex.append(c);
+                } else if (c == '^' || c == '-' || Character.isLetterOrDigit(c)) {
+                    regex.append(c);
+                } else {
+                    regex.append('\\').append(c);
+                }
+            } else if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else if (c == '[') {
+                inClass = true;
+                regex.append(c);
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private record Entry(Object value, long ttlNanos) {
+    }
+}
@@ -9,11 +9,10 @@ import com.spring.notes.app.entity.User;
 import com.spring.notes.app.exception.ResourceNotFoundException;
 import com.spring.notes.app.repository.NoteRepository;
 import com.spring.notes.app.service.NoteService;
-import com.spring.notes.app.service.RedisService;
+import com.spring.notes.app.service.cache.NoteCacheEngine;
+import com.spring.notes.app.service.cache.OwnedNoteFilter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -21,8 +20,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -32,10 +29,10 @@ import java.util.stream.Collectors;
 public class NoteServiceImpl implements NoteService {
     
     private final NoteRepository noteRepository;
-    private final RedisService redisService;
+    private final NoteCacheEngine noteCacheEngine;
+    private final OwnedNoteFilter ownedNoteFilter;
     
     @Override
-    @CacheEvict(value = {"notes", "userNotes", "noteCategories", "noteCounts"}, allEntries = true)
     public NoteResponse createNote(CreateNoteRequest request, User user) {
         log.info("Creating new note for user: {} with title: {}", user.getUsername(), request.getTitle());
         
@@ -52,38 +49,34 @@ public class NoteServiceImpl implements NoteService {
         log.info("Note created successfully with ID: {} for user: {}", savedNote.getId(), user.getUsername());
         
         // Cache the new note
-        String noteKey = "note:" + savedNote.getId();
-        redisService.set(noteKey, NoteResponse.from(savedNote), 30, TimeUnit.MINUTES);
+        NoteResponse noteResponse = NoteResponse.from(savedNote);
+        ownedNoteFilter.add(user, savedNote.getId());
+        noteCacheEngine.putNote(user, noteResponse);
+        noteCacheEngine.invalidateUser(user);
         
-        return NoteResponse.from(savedNote);
+        return noteResponse;
     }
     
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "notes", key = "#id")
     public NoteResponse getNoteById(Long id, User user) {
         log.info("Fetching note with ID: {} for user: {}", id, user.getUsername());
         
-        // Try to get from cache first
-        String noteKey = "note:" + id;
-        Optional<NoteResponse> cachedNote = redisService.get(noteKey, NoteResponse.class);
-        if (cachedNote.isPresent()) {
-            log.debug("Note found in cache for ID: {}", id);
-            return cachedNote.get();
-        }
-        
-        Note note = noteRepository.findByIdAndUser(id, user)
-                .orElseThrow(() -> new ResourceNotFoundException("Note not found with ID: " + id));
-        
-        NoteResponse noteResponse = NoteResponse.from(note);
-        // Cache the note for 30 minutes
-        redisService.set(noteKey, noteResponse, 30, TimeUnit.MINUTES);
-        
-        return noteResponse;
+        return noteCacheEngine.getNote(user, id, () -> {
+            // Answer lookups of IDs the user certainly does not own without a query
+            if (!ownedNoteFilter.mightOwn(user, id)) {
+                throw new ResourceNotFoundException("Note not found with ID: " + id);
+            }
+            return noteRepository.findByIdAndUser(id, user)
+                    .map(NoteResponse::from)
+                    .orElseThrow(() -> {
+                        ownedNoteFilter.recordMiss(user, id);
+                        return new ResourceNotFoundException("Note not found with ID: " + id);
+                    });
+        });
     }
     
     @Override
-    @CacheEvict(value = {"notes", "userNotes", "noteCategories", "noteCounts"}, allEntries = true)
     public NoteResponse updateNote(Long id, UpdateNoteRequest request, User user) {
         log.info("Updating note with ID: {} for user: {}", id, user.getUsername());
         
@@ -113,18 +106,19 @@ public class NoteServiceImpl implements NoteService {
             note.setCategory(request.getCategory());
         }
         
-        Note updatedNote = noteRepository.save(note);
+        // Flush so the version and updatedAt of the cached copy are those of this write
+        Note updatedNote = noteRepository.saveAndFlush(note);
         log.info("Note updated successfully with ID: {} for user: {}", updatedNote.getId(), user.getUsername());
         
         // Update cache
-        String noteKey = "note:" + updatedNote.getId();
-        redisService.set(noteKey, NoteResponse.from(updatedNote), 30, TimeUnit.MINUTES);
+        NoteResponse noteResponse = NoteResponse.from(updatedNote);
+        noteCacheEngine.putNote(user, noteResponse);
+        noteCacheEngine.invalidateUser(user);
         
-        return NoteResponse.from(updatedNote);
+        return noteResponse;
     }
     
     @Override
-    @CacheEvict(value = {"notes", "userNotes", "noteCategories", "noteCounts"}, allEntries = true)
     public void deleteNote(Long id, User user) {
         log.info("Deleting note with ID: {} for user: {}", id, user.getUsername());
         
@@ -134,37 +128,20 @@ public class NoteServiceImpl implements NoteService {
         noteRepository.delete(note);
         
         // Remove from cache
-        String noteKey = "note:" + id;
-        redisService.delete(noteKey);
+        noteCacheEngine.evictNote(user, id);
+        noteCacheEngine.invalidateUser(user);
         
         log.info("Note deleted successfully with ID: {} for user: {}", id, user.getUsername());
     }
     
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "userNotes", key = "#user.id")
     public List<NoteResponse> getAllNotes(User user) {
         log.info("Fetching all notes for user: {}", user.getUsername());
         
-        // Try to get from cache first
-        String userNotesKey = "user:notes:" + user.getId();
-        Optional<Object> cachedNotes = redisService.get(userNotesKey);
-        if (cachedNotes.isPresent() && cachedNotes.get() instanceof List) {
-            @SuppressWarnings("unchecked")
-            List<NoteResponse> notes = (List<NoteResponse>) cachedNotes.get();
-            log.debug("User notes found in cache for user: {}", user.getUsername());
-            return notes;
-        }
-        
-        List<Note> notes = noteRepository.findByUser(user);
-        List<NoteResponse> noteResponses = notes.stream()
+        return noteCacheEngine.getNotes(user, () -> noteRepository.findByUser(user).stream()
                 .map(NoteResponse::from)
-                .collect(Collectors.toList());
-        
-        // Cache the user notes for 15 minutes
-        redisService.set(userNotesKey, noteResponses, 15, TimeUnit.MINUTES);
-        
-        return noteResponses;
+                .collect(Collectors.toList()));
     }
     
     @Override
@@ -173,8 +150,8 @@ public class NoteServiceImpl implements NoteService {
         log.info("Fetching all notes with pagination for user: {} - Page: {}, Size: {}", 
                 user.getUsername(), pageable.getPageNumber(), pageable.getPageSize());
         
-        Page<Note> notePage = noteRepository.findByUser(user, pageable);
-        return buildPageResponse(notePage);
+        return noteCacheEngine.getListingPage(user, null, pageable,
+                () -> buildPageResponse(noteRepository.findByUser(user, pageable)));
     }
     
     @Override
@@ -216,8 +193,8 @@ public class NoteServiceImpl implements NoteService {
         log.info("Fetching notes by status: {} with pagination for user: {} - Page: {}, Size: {}", 
                 status, user.getUsername(), pageable.getPageNumber(), pageable.getPageSize());
         
-        Page<Note> notePage = noteRepository.findByStatusAndUser(status, user, pageable);
-        return buildPageResponse(notePage);
+        return noteCacheEngine.getListingPage(user, status, pageable,
+                () -> buildPageResponse(noteRepository.findByStatusAndUser(status, user, pageable)));
     }
     
     @Override
@@ -226,8 +203,8 @@ public class NoteServiceImpl implements NoteService {
         log.info("Fetching notes by priority: {} with pagination for user: {} - Page: {}, Size: {}", 
                 priority, user.getUsername(), pageable.getPageNumber(), pageable.getPageSize());
         
-        Page<Note> notePage = noteRepository.findByPriorityAndUser(priority, user, pageable);
-        return buildPageResponse(notePage);
+        return noteCacheEngine.getPage(user, NoteCacheEngine.filter("priority", priority), pageable,
+                () -> buildPageResponse(noteRepository.findByPriorityAndUser(priority, user, pageable)));
     }
     
     @Override
@@ -236,8 +213,8 @@ public class NoteServiceImpl implements NoteService {
         log.info("Fetching notes by category: {} with pagination for user: {} - Page: {}, Size: {}", 
                 category, user.getUsername(), pageable.getPageNumber(), pageable.getPageSize());
         
-        Page<Note> notePage = noteRepository.findByCategoryAndUser(category, user, pageable);
-        return buildPageResponse(notePage);
+        return noteCacheEngine.getPage(user, NoteCacheEngine.filter("category", category), pageable,
+                () -> buildPageResponse(noteRepository.findByCategoryAndUser(category, user, pageable)));
     }
     
     @Override
@@ -257,8 +234,8 @@ public class NoteServiceImpl implements NoteService {
         log.info("Searching notes with term: '{}' with pagination for user: {} - Page: {}, Size: {}", 
                 searchTerm, user.getUsername(), pageable.getPageNumber(), pageable.getPageSize());
         
-        Page<Note> notePage = noteRepository.searchByTitleOrContentAndUser(searchTerm, user, pageable);
-        return buildPageResponse(notePage);
+        return noteCacheEngine.getPage(user, NoteCacheEngine.filter("search", searchTerm), pageable,
+                () -> buildPageResponse(noteRepository.searchByTitleOrContentAndUser(searchTerm, user, pageable)));
     }
     
     @Override
@@ -283,10 +260,15 @@ public class NoteServiceImpl implements NoteService {
         note.setStatus(Note.Status.COMPLETED);
         note.setCompletedAt(LocalDateTime.now());
         
-        Note updatedNote = noteRepository.save(note);
+        Note updatedNote = noteRepository.saveAndFlush(note);
         log.info("Note completed successfully with ID: {} for user: {}", updatedNote.getId(), user.getUsername());
         
-        return NoteResponse.from(updatedNote);
+        // Update cache
+        NoteResponse noteResponse = NoteResponse.from(updatedNote);
+        noteCacheEngine.putNote(user, noteResponse);
+        noteCacheEngine.invalidateUser(user);
+        
+        return noteResponse;
     }
     
     @Override
@@ -298,10 +280,15 @@ public class NoteServiceImpl implements NoteService {
         
         note.setStatus(Note.Status.ARCHIVED);
         
-        Note updatedNote = noteRepository.save(note);
+        Note updatedNote = noteRepository.saveAndFlush(note);
         log.info("Note archived successfully with ID: {} for user: {}", updatedNote.getId(), user.getUsername());
         
-        return NoteResponse.from(updatedNote);
+        // Update cache
+        NoteResponse noteResponse = NoteResponse.from(updatedNote);
+        noteCacheEngine.putNote(user, noteResponse);
+        noteCacheEngine.invalidateUser(user);
+        
+        return noteResponse;
     }
     
     @Override
@@ -314,56 +301,31 @@ public class NoteServiceImpl implements NoteService {
         note.setStatus(Note.Status.ACTIVE);
         note.setCompletedAt(null); // Clear completed date when reactivating
         
-        Note updatedNote = noteRepository.save(note);
+        Note updatedNote = noteRepository.saveAndFlush(note);
         log.info("Note activated successfully with ID: {} for user: {}", updatedNote.getId(), user.getUsername());
         
-        return NoteResponse.from(updatedNote);
+        // Update cache
+        NoteResponse noteResponse = NoteResponse.from(updatedNote);
+        noteCacheEngine.putNote(user, noteResponse);
+        noteCacheEngine.invalidateUser(user);
+        
+        return noteResponse;
     }
     
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "noteCategories", key = "#user.id")
     public List<String> getAllCategories(User user) {
         log.info("Fetching all categories for user: {}", user.getUsername());
         
-        // Try to get from cache first
-        String categoriesKey = "user:categories:" + user.getId();
-        Optional<Object> cachedCategories = redisService.get(categoriesKey);
-        if (cachedCategories.isPresent() && cachedCategories.get() instanceof List) {
-            @SuppressWarnings("unchecked")
-            List<String> categories = (List<String>) cachedCategories.get();
-            log.debug("Categories found in cache for user: {}", user.getUsername());
-            return categories;
-        }
-        
-        List<String> categories = noteRepository.findDistinctCategoriesByUser(user);
-        
-        // Cache the categories for 30 minutes
-        redisService.set(categoriesKey, categories, 30, TimeUnit.MINUTES);
-        
-        return categories;
+        return noteCacheEngine.getCategories(user, () -> noteRepository.findDistinctCategoriesByUser(user));
     }
     
     @Override
     @Transactional(readOnly = true)
-    @Cacheable(value = "noteCounts", key = "#user.id + ':total'")
     public long getTotalNotesCount(User user) {
         log.info("Getting total notes count for user: {}", user.getUsername());
         
-        // Try to get from cache first
-        String countKey = "user:count:total:" + user.getId();
-        Optional<Long> cachedCount = redisService.get(countKey, Long.class);
-        if (cachedCount.isPresent()) {
-            log.debug("Total count found in cache for user: {}", user.getUsername());
-            return cachedCount.get();
-        }
-        
-        long count = noteRepository.countByUser(user);
-        
-        // Cache the count for 10 minutes
-        redisService.set(countKey, count, 10, TimeUnit.MINUTES);
-        
-        return count;
+        return noteCacheEngine.getTotalCount(user, () -> noteRepository.countByUser(user));
     }
     
     @Override
@@ -411,11 +373,14 @@ public class NoteServiceImpl implements NoteService {
     public void deleteNoteAdmin(Long id) {
         log.info("Admin: Deleting note with ID: {}", id);
         
-        if (!noteRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Note not found with ID: " + id);
-        }
+        Note note = noteRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Note not found with ID: " + id));
+        
+        noteRepository.delete(note);
         
-        noteRepository.deleteById(id);
+        // The owner's cached listings would otherwise keep showing the note
+        noteCacheEngine.evictNote(note.getUser(), id);
+        noteCacheEngine.invalidateUser(note.getUser());
         log.info("Admin: Note deleted successfully with ID: {}", id);
     }
     
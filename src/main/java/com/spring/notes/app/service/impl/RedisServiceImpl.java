@@ -1,28 +1,100 @@
 package com.spring.notes.app.service.impl;
 
+import com.spring.notes.app.service.RedisEntry;
+import com.spring.notes.app.service.RedisKeyInfo;
 import com.spring.notes.app.service.RedisService;
-import lombok.RequiredArgsConstructor;
+import com.spring.notes.app.service.cache.CacheWriteBatch;
+import com.spring.notes.app.service.cache.ClientSideCache;
+import com.spring.notes.app.service.cache.RedisCircuitBreaker;
+import com.spring.notes.app.service.cache.RedisCircuitOpenException;
+import com.spring.notes.app.service.cache.RedisShards;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+/**
+ * {@link RedisService} over the {@link RedisShards}: single-key operations go to the shard
+ * owning the key, batched ones are split by shard and SCAN walks every shard in turn.
+ */
 @Service
-@RequiredArgsConstructor
+@Profile("!standalone")
 @Slf4j
 public class RedisServiceImpl implements RedisService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private static final String BATCH_SIZE = "notes.redis.batch.size";
+    private static final String BATCH_LATENCY = "notes.redis.batch.latency";
+
+    private static final RedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    // INCRBY on a counter first created at its initial value if missing
+    private static final RedisScript<Long> SEEDED_INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            CacheWriteBatch.SEEDED_INCREMENT_SCRIPT, Long.class);
+
+    private static final RedisSerializer<Long> LONG_RESULT = new GenericToStringSerializer<>(Long.class);
+
+    // MEMORY USAGE and PTTL of every key; a key gone meanwhile reports a PTTL of -2
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> INSPECT_SCRIPT = new DefaultRedisScript<>("""
+            local result = {}
+            for i, key in ipairs(KEYS) do
+                result[2 * i - 1] = redis.call('memory', 'usage', key) or 0
+                result[2 * i] = redis.call('pttl', key)
+            end
+            return result
+            """, List.class);
+
+    private final RedisShards shards;
+    private final MeterRegistry meterRegistry;
+    private final ClientSideCache clientSideCache;
+    private final RedisCircuitBreaker circuitBreaker;
+
+    public RedisServiceImpl(RedisShards shards, MeterRegistry meterRegistry,
+                            ObjectProvider<ClientSideCache> clientSideCache, RedisCircuitBreaker circuitBreaker) {
+        this.shards = shards;
+        this.meterRegistry = meterRegistry;
+        this.clientSideCache = clientSideCache.getIfAvailable();
+        this.circuitBreaker = circuitBreaker;
+    }
 
     @Override
     public void set(String key, Object value) {
         try {
-            redisTemplate.opsForValue().set(key, value);
+            run(() -> shards.template(key).opsForValue().set(key, value));
+            invalidateLocal(List.of(key));
             log.debug("Set key: {} with value: {}", key, value);
         } catch (Exception e) {
-            log.error("Error setting key: {} with value: {}", key, value, e);
+            logError(e, "Error setting key: {} with value: {}", key, value);
             throw e;
         }
     }
@@ -30,10 +102,11 @@ public class RedisServiceImpl implements RedisService {
     @Override
     public void set(String key, Object value, long timeout, TimeUnit unit) {
         try {
-            redisTemplate.opsForValue().set(key, value, timeout, unit);
+            run(() -> shards.template(key).opsForValue().set(key, value, timeout, unit));
+            invalidateLocal(List.of(key));
             log.debug("Set key: {} with value: {} and TTL: {} {}", key, value, timeout, unit);
         } catch (Exception e) {
-            log.error("Error setting key: {} with value: {} and TTL: {} {}", key, value, timeout, unit, e);
+            logError(e, "Error setting key: {} with value: {} and TTL: {} {}", key, value, timeout, unit);
             throw e;
         }
     }
@@ -41,11 +114,11 @@ public class RedisServiceImpl implements RedisService {
     @Override
     public Optional<Object> get(String key) {
         try {
-            Object value = redisTemplate.opsForValue().get(key);
+            Object value = read(key);
             log.debug("Get key: {} -> value: {}", key, value);
             return Optional.ofNullable(value);
         } catch (Exception e) {
-            log.error("Error getting key: {}", key, e);
+            logError(e, "Error getting key: {}", key);
             return Optional.empty();
         }
     }
@@ -54,25 +127,248 @@ public class RedisServiceImpl implements RedisService {
     @SuppressWarnings("unchecked")
     public <T> Optional<T> get(String key, Class<T> clazz) {
         try {
-            Object value = redisTemplate.opsForValue().get(key);
+            Object value = read(key);
             if (value != null && clazz.isInstance(value)) {
                 log.debug("Get key: {} -> value: {} with type: {}", key, value, clazz.getSimpleName());
                 return Optional.of((T) value);
             }
             return Optional.empty();
         } catch (Exception e) {
-            log.error("Error getting key: {} with type: {}", key, clazz.getSimpleName(), e);
+            logError(e, "Error getting key: {} with type: {}", key, clazz.getSimpleName());
             return Optional.empty();
         }
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> multiGet(Collection<String> keys, Class<T> clazz) {
+        Map<String, T> result = new LinkedHashMap<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+        try {
+            Map<String, Object> found = new HashMap<>();
+            recordBatch("mget", keys.size(), () -> {
+                shards.partition(keys, key -> key).forEach((shard, shardKeys) -> {
+                    List<Object> values = call(() -> shard.getTemplate().opsForValue().multiGet(shardKeys));
+                    for (int i = 0; i < shardKeys.size(); i++) {
+                        Object value = values != null ? values.get(i) : null;
+                        if (value != null) {
+                            found.put(shardKeys.get(i), value);
+                        }
+                    }
+                });
+                return null;
+            });
+            // In the order the keys were asked for
+            for (String key : keys) {
+                Object value = found.get(key);
+                if (value != null && clazz.isInstance(value)) {
+                    result.put(key, (T) value);
+                }
+            }
+            log.debug("Multi-get {} keys -> {} hits", keys.size(), result.size());
+            return result;
+        } catch (Exception e) {
+            logError(e, "Error getting {} keys with type: {}", keys.size(), clazz.getSimpleName());
+            return result;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void multiSet(Collection<RedisEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        RedisTemplate<String, Object> primary = shards.primary().getTemplate();
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) primary.getKeySerializer();
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) primary.getValueSerializer();
+        try {
+            recordBatch("mset", entries.size(), () -> {
+                shards.partition(entries, RedisEntry::getKey).forEach((shard, shardEntries) ->
+                        call(() -> shard.getTemplate().executePipelined((RedisCallback<Object>) connection -> {
+                            for (RedisEntry entry : shardEntries) {
+                                Duration ttl = entry.getTtl();
+                                connection.stringCommands().set(
+                                        keySerializer.serialize(entry.getKey()),
+                                        valueSerializer.serialize(entry.getValue()),
+                                        ttl != null ? Expiration.from(ttl) : Expiration.persistent(),
+                                        RedisStringCommands.SetOption.upsert());
+                            }
+                            return null;
+                        })));
+                return null;
+            });
+            invalidateLocal(entries.stream().map(RedisEntry::getKey).toList());
+            log.debug("Multi-set {} keys", entries.size());
+        } catch (Exception e) {
+            logError(e, "Error setting {} keys", entries.size());
+            throw e;
+        }
+    }
+
+    @Override
+    public void multiSet(Map<String, ?> values, long timeout, TimeUnit unit) {
+        Duration ttl = Duration.ofMillis(unit.toMillis(timeout));
+        List<RedisEntry> entries = new ArrayList<>(values.size());
+        values.forEach((key, value) -> entries.add(new RedisEntry(key, value, ttl)));
+        multiSet(entries);
+    }
+
+    @Override
+    public long multiDelete(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        try {
+            long deleted = recordBatch("del", keys.size(), () -> perShard(keys, (template, shardKeys) -> template.delete(shardKeys)));
+            invalidateLocal(keys);
+            log.debug("Multi-delete {} keys -> {} deleted", keys.size(), deleted);
+            return deleted;
+        } catch (Exception e) {
+            logError(e, "Error deleting {} keys", keys.size());
+            throw e;
+        }
+    }
+
+    @Override
+    public long unlink(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        try {
+            long unlinked = recordBatch("unlink", keys.size(), () -> perShard(keys, (template, shardKeys) -> template.unlink(shardKeys)));
+            invalidateLocal(keys);
+            log.debug("Unlink {} keys -> {} removed", keys.size(), unlinked);
+            return unlinked;
+        } catch (Exception e) {
+            logError(e, "Error unlinking {} keys", keys.size());
+            throw e;
+        }
+    }
+
+    @Override
+    public void scan(String pattern, int batchSize, Predicate<List<String>> batchConsumer) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+        try {
+            // Batches never mix shards; the walk moves on to the next shard once one is exhausted
+            for (RedisShards.Shard shard : shards.all()) {
+                if (!scan(shard, options, batchSize, batchConsumer)) {
+                    log.debug("Scan of pattern: {} stopped by consumer", pattern);
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            logError(e, "Error scanning keys with pattern: {}", pattern);
+            throw e;
+        }
+    }
+
+    private boolean scan(RedisShards.Shard shard, ScanOptions options, int batchSize,
+                         Predicate<List<String>> batchConsumer) {
+        try (Cursor<String> cursor = call(() -> shard.getTemplate().scan(options))) {
+            List<String> batch = new ArrayList<>(batchSize);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= batchSize) {
+                    if (!batchConsumer.test(batch)) {
+                        return false;
+                    }
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            return batch.isEmpty() || batchConsumer.test(batch);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, RedisKeyInfo> inspect(Collection<String> keys) {
+        Map<String, RedisKeyInfo> result = new LinkedHashMap<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+        try {
+            recordBatch("inspect", keys.size(), () -> {
+                shards.partition(keys, key -> key).forEach((shard, shardKeys) -> {
+                    List<Long> replies = call(() -> shard.getTemplate().execute(INSPECT_SCRIPT, shardKeys));
+                    for (int i = 0; replies != null && i < shardKeys.size(); i++) {
+                        long ttl = replies.get(2 * i + 1);
+                        if (ttl != -2) {
+                            String key = shardKeys.get(i);
+                            result.put(key, new RedisKeyInfo(key, shard.getName(), replies.get(2 * i), ttl));
+                        }
+                    }
+                });
+                return null;
+            });
+            log.debug("Inspect {} keys -> {} found", keys.size(), result.size());
+            return result;
+        } catch (Exception e) {
+            logError(e, "Error inspecting {} keys", keys.size());
+            throw e;
+        }
+    }
+
+    @Override
+    public long increment(String key, long delta) {
+        try {
+            Long value = call(() -> shards.template(key).opsForValue().increment(key, delta));
+            invalidateLocal(List.of(key));
+            log.debug("Increment key: {} by {} -> {}", key, delta, value);
+            return value != null ? value : 0L;
+        } catch (Exception e) {
+            logError(e, "Error incrementing key: {} by {}", key, delta);
+            throw e;
+        }
+    }
+
+    @Override
+    public long increment(String key, long delta, long initial) {
+        try {
+            Long value = call(() -> shards.template(key).execute(SEEDED_INCREMENT_SCRIPT, StringRedisSerializer.UTF_8,
+                    LONG_RESULT, List.of(key), String.valueOf(delta), String.valueOf(initial)));
+            invalidateLocal(List.of(key));
+            log.debug("Increment key: {} by {} from {} -> {}", key, delta, initial, value);
+            return value != null ? value : initial + delta;
+        } catch (Exception e) {
+            logError(e, "Error incrementing key: {} by {}", key, delta);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean tryLease(String key, String owner, long timeout, TimeUnit unit) {
+        try {
+            Boolean acquired = call(() -> shards.template(key).opsForValue().setIfAbsent(key, owner, timeout, unit));
+            log.debug("Lease key: {} for owner: {} -> acquired: {}", key, owner, acquired);
+            return Boolean.TRUE.equals(acquired);
+        } catch (Exception e) {
+            logError(e, "Error acquiring lease: {} for owner: {}", key, owner);
+            throw e;
+        }
+    }
+
+    @Override
+    public void releaseLease(String key, String owner) {
+        try {
+            Long released = call(() -> shards.template(key).execute(RELEASE_LEASE_SCRIPT, List.of(key), owner));
+            log.debug("Release lease: {} for owner: {} -> released: {}", key, owner, released);
+        } catch (Exception e) {
+            logError(e, "Error releasing lease: {} for owner: {}", key, owner);
+            throw e;
+        }
+    }
+
     @Override
     public void delete(String key) {
         try {
-            Boolean deleted = redisTemplate.delete(key);
+            Boolean deleted = call(() -> shards.template(key).delete(key));
+            invalidateLocal(List.of(key));
             log.debug("Delete key: {} -> success: {}", key, deleted);
         } catch (Exception e) {
-            log.error("Error deleting key: {}", key, e);
+            logError(e, "Error deleting key: {}", key);
             throw e;
         }
     }
@@ -80,11 +376,11 @@ public class RedisServiceImpl implements RedisService {
     @Override
     public boolean exists(String key) {
         try {
-            Boolean exists = redisTemplate.hasKey(key);
+            Boolean exists = call(() -> shards.template(key).hasKey(key));
             log.debug("Exists key: {} -> {}", key, exists);
             return Boolean.TRUE.equals(exists);
         } catch (Exception e) {
-            log.error("Error checking existence of key: {}", key, e);
+            logError(e, "Error checking existence of key: {}", key);
             return false;
         }
     }
@@ -92,11 +388,11 @@ public class RedisServiceImpl implements RedisService {
     @Override
     public boolean expire(String key, long timeout, TimeUnit unit) {
         try {
-            Boolean expired = redisTemplate.expire(key, timeout, unit);
+            Boolean expired = call(() -> shards.template(key).expire(key, timeout, unit));
             log.debug("Set expiration for key: {} with TTL: {} {} -> success: {}", key, timeout, unit, expired);
             return Boolean.TRUE.equals(expired);
         } catch (Exception e) {
-            log.error("Error setting expiration for key: {} with TTL: {} {}", key, timeout, unit, e);
+            logError(e, "Error setting expiration for key: {} with TTL: {} {}", key, timeout, unit);
             return false;
         }
     }
@@ -104,23 +400,67 @@ public class RedisServiceImpl implements RedisService {
     @Override
     public Long getTtl(String key) {
         try {
-            Long ttl = redisTemplate.getExpire(key);
+            Long ttl = call(() -> shards.template(key).getExpire(key));
             log.debug("Get TTL for key: {} -> {}", key, ttl);
             return ttl;
         } catch (Exception e) {
-            log.error("Error getting TTL for key: {}", key, e);
+            logError(e, "Error getting TTL for key: {}", key);
             return null;
         }
     }
 
-    @Override
-    public void clearAll() {
-        try {
-            redisTemplate.getConnectionFactory().getConnection().flushAll();
-            log.info("Cleared all Redis keys");
-        } catch (Exception e) {
-            log.error("Error clearing all Redis keys", e);
-            throw e;
+    private Object read(String key) {
+        return call(() -> clientSideCache != null ? clientSideCache.get(key) : shards.template(key).opsForValue().get(key));
+    }
+
+    private long perShard(Collection<String> keys, BiFunction<RedisTemplate<String, Object>, List<String>, Long> operation) {
+        long total = 0;
+        for (Map.Entry<RedisShards.Shard, List<String>> partition : shards.partition(keys, key -> key).entrySet()) {
+            Long count = call(() -> operation.apply(partition.getKey().getTemplate(), partition.getValue()));
+            total += count != null ? count : 0L;
+        }
+        return total;
+    }
+
+    private <T> T call(Supplier<T> call) {
+        return circuitBreaker.execute(call);
+    }
+
+    private void run(Runnable call) {
+        circuitBreaker.execute(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private void logError(Exception e, String message, Object... args) {
+        // Rejections by the open breaker are expected; the breaker itself reports the outage
+        if (e instanceof RedisCircuitOpenException) {
+            log.debug(message + " (circuit open)", args);
+            return;
         }
+        Object[] argsWithCause = Arrays.copyOf(args, args.length + 1);
+        argsWithCause[args.length] = e;
+        log.error(message, argsWithCause);
+    }
+
+    private void invalidateLocal(Collection<String> keys) {
+        // Redis pushes the same invalidation; dropping the keys here makes this node read its own writes
+        if (clientSideCache != null) {
+            clientSideCache.invalidate(keys);
+        }
+    }
+
+    private <T> T recordBatch(String operation, int size, Supplier<T> batch) {
+        DistributionSummary.builder(BATCH_SIZE)
+                .description("Keys per batched Redis operation")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(size);
+        return Timer.builder(BATCH_LATENCY)
+                .description("Round-trip time of batched Redis operations")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(batch);
     }
 }
@@ -0,0 +1,3 @@
+-- Flyway migration: optimistic-locking version of notes, also used to order cached copies
+
+ALTER TABLE notes ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
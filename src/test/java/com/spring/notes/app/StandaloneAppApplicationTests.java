@@ -0,0 +1,12 @@
+package com.spring.notes.app;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * {@link AppApplicationTests} in standalone mode without Redis.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:standalone")
+@ActiveProfiles({"test", "standalone"})
+class StandaloneAppApplicationTests extends AppApplicationTests {
+}
@@ -0,0 +1,212 @@
+package com.spring.notes.app.config;
+
+import com.spring.notes.app.entity.User;
+import com.spring.notes.app.service.cache.ResponseBodyCache;
+import com.spring.notes.app.service.cache.UserCacheGenerations;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResponseBodyCacheFilterTest {
+
+    private static final String BODY = "{\"success\":true,\"data\":{\"content\":[]}}";
+
+    @Mock
+    private UserCacheGenerations userCacheGenerations;
+
+    private ResponseBodyCacheFilter filter;
+    private User user;
+    private final AtomicLong generation = new AtomicLong(1);
+    private final AtomicInteger controllerCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ResponseBodyCache cache = new ResponseBodyCache(userCacheGenerations, new SimpleMeterRegistry(), true,
+                DataSize.ofMegabytes(1), DataSize.ofKilobytes(64), Duration.ofMinutes(10));
+        filter = new ResponseBodyCacheFilter(cache, new String[]{"/api/v1/notes", "/api/v1/notes/status/*"});
+
+        user = User.builder().id(1L).username("testuser").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testGzipClient_SecondRequestServedWithoutController() throws Exception {
+        // Given
+        stubGenerationKeys();
+
+        // When
+        MockHttpServletResponse first = get("/api/v1/notes", "gzip, deflate", HttpServletResponse.SC_OK);
+        MockHttpServletResponse second = get("/api/v1/notes", "gzip", HttpServletResponse.SC_OK);
+
+        // Then
+        assertEquals(1, controllerCalls.get());
+        for (MockHttpServletResponse response : List.of(first, second)) {
+            assertEquals(200, response.getStatus());
+            assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+            assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+            assertEquals("application/json", response.getContentType());
+            assertEquals(BODY, gunzip(response.getContentAsByteArray()));
+        }
+    }
+
+    @Test
+    void testQueryParametersInAnyOrder_ShareOneEntry() throws Exception {
+        // Given
+        stubGenerationKeys();
+
+        // When
+        get("/api/v1/notes?page=0&size=10", "gzip", HttpServletResponse.SC_OK);
+        get("/api/v1/notes?size=10&page=0", "gzip", HttpServletResponse.SC_OK);
+        get("/api/v1/notes?size=20&page=0", "gzip", HttpServletResponse.SC_OK);
+
+        // Then
+        assertEquals(2, controllerCalls.get());
+        verify(userCacheGenerations, times(2)).key(user, "response:/api/v1/notes?page=0&size=10");
+    }
+
+    @Test
+    void testGenerationBump_RebuildsResponse() throws Exception {
+        // Given
+        stubGenerationKeys();
+        get("/api/v1/notes/status/ACTIVE", "gzip", HttpServletResponse.SC_OK);
+
+        // When - the user wrote a note
+        generation.incrementAndGet();
+        get("/api/v1/notes/status/ACTIVE", "gzip", HttpServletResponse.SC_OK);
+
+        // Then
+        assertEquals(2, controllerCalls.get());
+    }
+
+    @Test
+    void testClientWithoutGzip_PassesThrough() throws Exception {
+        // When
+        MockHttpServletResponse first = get("/api/v1/notes", null, HttpServletResponse.SC_OK);
+        MockHttpServletResponse second = get("/api/v1/notes", "gzip;q=0, identity", HttpServletResponse.SC_OK);
+
+        // Then
+        assertEquals(2, controllerCalls.get());
+        assertNull(second.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(BODY, first.getContentAsString());
+        verifyNoInteractions(userCacheGenerations);
+    }
+
+    @Test
+    void testErrorResponse_NotCached() throws Exception {
+        // Given
+        stubGenerationKeys();
+
+        // When
+        MockHttpServletResponse first = get("/api/v1/notes", "gzip", HttpServletResponse.SC_NOT_FOUND);
+        get("/api/v1/notes", "gzip", HttpServletResponse.SC_NOT_FOUND);
+
+        // Then
+        assertEquals(2, controllerCalls.get());
+        assertEquals(404, first.getStatus());
+        assertNull(first.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(BODY, first.getContentAsString());
+    }
+
+    @Test
+    void testUnknownGeneration_PassesThrough() throws Exception {
+        // Given - Redis is unreachable
+        when(userCacheGenerations.key(eq(user), anyString())).thenReturn(null);
+
+        // When
+        get("/api/v1/notes", "gzip", HttpServletResponse.SC_OK);
+        MockHttpServletResponse second = get("/api/v1/notes", "gzip", HttpServletResponse.SC_OK);
+
+        // Then
+        assertEquals(2, controllerCalls.get());
+        assertNull(second.getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void testUnlistedPath_NotFiltered() throws Exception {
+        // When
+        MockHttpServletResponse response = get("/api/v1/notes/admin/all", "gzip", HttpServletResponse.SC_OK);
+
+        // Then
+        assertNull(response.getHeader(HttpHeaders.VARY));
+        verifyNoInteractions(userCacheGenerations);
+    }
+
+    @Test
+    void testAcceptsGzip() {
+        // When & Then
+        assertTrue(ResponseBodyCacheFilter.acceptsGzip("gzip"));
+        assertTrue(ResponseBodyCacheFilter.acceptsGzip("br, GZIP;q=0.8"));
+        assertTrue(ResponseBodyCacheFilter.acceptsGzip("*"));
+        assertFalse(ResponseBodyCacheFilter.acceptsGzip(null));
+        assertFalse(ResponseBodyCacheFilter.acceptsGzip("br, deflate"));
+        assertFalse(ResponseBodyCacheFilter.acceptsGzip("gzip; q=0.000"));
+    }
+
+    private void stubGenerationKeys() {
+        when(userCacheGenerations.key(eq(user), anyString()))
+                .thenAnswer(invocation -> "{1}:g" + generation.get() + ":" + invocation.getArgument(1));
+    }
+
+    private MockHttpServletResponse get(String uri, String acceptEncoding, int status) throws Exception {
+        int query = uri.indexOf('?');
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", query < 0 ? uri : uri.substring(0, query));
+        if (query >= 0) {
+            for (String parameter : uri.substring(query + 1).split("&")) {
+                String[] pair = parameter.split("=");
+                request.addParameter(pair[0], pair[1]);
+            }
+        }
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain controller = (req, res) -> {
+            controllerCalls.incrementAndGet();
+            HttpServletResponse httpResponse = (HttpServletResponse) res;
+            httpResponse.setStatus(status);
+            httpResponse.setContentType("application/json");
+            httpResponse.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+        };
+        filter.doFilter(request, response, controller);
+        return response;
+    }
+
+    private static String gunzip(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.spring.notes.app.integration;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * The authentication flow of {@link AuthIntegrationTest}, run in standalone mode without Redis.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:standalone")
+@ActiveProfiles({"test", "standalone"})
+class StandaloneAuthIntegrationTest extends AuthIntegrationTest {
+}
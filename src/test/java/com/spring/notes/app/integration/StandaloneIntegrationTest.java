@@ -0,0 +1,83 @@
+package com.spring.notes.app.integration;
+
+import com.spring.notes.app.dto.request.CreateNoteRequest;
+import com.spring.notes.app.dto.request.UpdateNoteRequest;
+import com.spring.notes.app.dto.response.NoteResponse;
+import com.spring.notes.app.entity.User;
+import com.spring.notes.app.exception.ResourceNotFoundException;
+import com.spring.notes.app.repository.UserRepository;
+import com.spring.notes.app.service.NoteService;
+import com.spring.notes.app.service.RedisService;
+import com.spring.notes.app.service.impl.InMemoryRedisServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:standalone")
+@ActiveProfiles({"test", "standalone"})
+class StandaloneIntegrationTest {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.findByUsername("standalone").orElseGet(() -> userRepository.save(User.builder()
+                .username("standalone")
+                .email("standalone@example.com")
+                .password("password")
+                .role(User.Role.USER)
+                .enabled(true)
+                .build()));
+    }
+
+    @Test
+    void testContext_RunsWithoutRedis() {
+        assertTrue(applicationContext.getBeansOfType(RedisConnectionFactory.class).isEmpty());
+        assertInstanceOf(CaffeineCacheManager.class, applicationContext.getBean(CacheManager.class));
+        assertInstanceOf(InMemoryRedisServiceImpl.class, applicationContext.getBean(RedisService.class));
+    }
+
+    @Test
+    void testNoteLifecycle_CachedInProcess() {
+        // Given
+        NoteResponse created = noteService.createNote(CreateNoteRequest.builder()
+                .title("Standalone").content("No Redis here").build(), user);
+        assertEquals(1, countTitled("Standalone"));
+
+        // When
+        noteService.updateNote(created.getId(), UpdateNoteRequest.builder().title("Edited").build(), user);
+
+        // Then - both the note and the cached list reflect the update
+        assertEquals("Edited", noteService.getNoteById(created.getId(), user).getTitle());
+        assertEquals(0, countTitled("Standalone"));
+        assertEquals(1, countTitled("Edited"));
+
+        noteService.deleteNote(created.getId(), user);
+        assertThrows(ResourceNotFoundException.class, () -> noteService.getNoteById(created.getId(), user));
+        assertEquals(0, countTitled("Edited"));
+    }
+
+    private long countTitled(String title) {
+        List<NoteResponse> notes = noteService.getAllNotes(user);
+        return notes.stream().filter(note -> title.equals(note.getTitle())).count();
+    }
+}
@@ -0,0 +1,142 @@
+package com.spring.notes.app.service;
+
+import com.spring.notes.app.dto.response.CacheKeyspaceReport;
+import com.spring.notes.app.exception.ResourceNotFoundException;
+import com.spring.notes.app.service.impl.CacheKeyspaceServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheKeyspaceServiceTest {
+
+    @Mock
+    private RedisService redisService;
+
+    private CacheKeyspaceServiceImpl cacheKeyspaceService;
+
+    @BeforeEach
+    void setUp() {
+        cacheKeyspaceService = new CacheKeyspaceServiceImpl(redisService, 3, 1_000_000, 1.0, 2, 100, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheKeyspaceService.shutdown();
+    }
+
+    @Test
+    void testAnalyze_GroupsKeysByPrefixAcrossNodes() throws InterruptedException {
+        // Given
+        Map<String, RedisKeyInfo> keys = new LinkedHashMap<>();
+        keys.put("v1:notes::{1}:5", info("v1:notes::{1}:5", "redis-a:6379", 400, TimeUnit.MINUTES.toMillis(5)));
+        keys.put("v1:notes::{2}:7", info("v1:notes::{2}:7", "redis-b:6379", 1200, TimeUnit.MINUTES.toMillis(30)));
+        keys.put("v1:notes::{2}:8", info("v1:notes::{2}:8", "redis-b:6379", 200, TimeUnit.SECONDS.toMillis(20)));
+        keys.put("user:gen:{1}", info("user:gen:{1}", "redis-a:6379", 56, -1));
+        scanReturns(List.of(List.copyOf(keys.keySet()).subList(0, 3), List.of("user:gen:{1}")));
+        when(redisService.inspect(anyCollection())).thenAnswer(invocation -> {
+            Map<String, RedisKeyInfo> found = new LinkedHashMap<>();
+            invocation.<Collection<String>>getArgument(0).forEach(key -> found.put(key, keys.get(key)));
+            return found;
+        });
+
+        // When
+        CacheKeyspaceReport report = awaitFinished(cacheKeyspaceService.analyze().getId());
+
+        // Then
+        assertEquals(CacheKeyspaceReport.Status.COMPLETED, report.getStatus());
+        assertEquals(4, report.getScanned());
+        assertEquals(1856L, report.getEstimatedMemoryBytes());
+
+        CacheKeyspaceReport.PrefixStats notes = report.getPrefixes().get(0);
+        assertEquals("v1:notes::", notes.getPrefix());
+        assertEquals(3, notes.getKeys());
+        assertEquals(1800L, notes.getEstimatedMemoryBytes());
+        assertEquals(1L, notes.getTtl().get("<1m"));
+        assertEquals(1L, notes.getTtl().get("1m-10m"));
+        assertEquals(1L, notes.getTtl().get("10m-1h"));
+        assertEquals(List.of("v1:notes::{2}:7", "v1:notes::{1}:5"),
+                notes.getLargestKeys().stream().map(CacheKeyspaceReport.KeySize::getKey).toList());
+
+        CacheKeyspaceReport.PrefixStats generations = report.getPrefixes().get(1);
+        assertEquals("user:gen:", generations.getPrefix());
+        assertEquals(1L, generations.getTtl().get("none"));
+
+        Map<String, Long> memoryByNode = new LinkedHashMap<>();
+        report.getNodes().forEach(node -> memoryByNode.put(node.getNode(), node.getEstimatedMemoryBytes()));
+        assertEquals(Map.of("redis-a:6379", 456L, "redis-b:6379", 1400L), memoryByNode);
+    }
+
+    @Test
+    void testAnalyze_UnmeasuredKeysLeaveMemoryUnknown() throws InterruptedException {
+        // Given - the in-memory store cannot size its values
+        scanReturns(List.of(List.of("counter")));
+        when(redisService.inspect(anyCollection())).thenReturn(Map.of("counter", info("counter", "local", -1, 5000)));
+
+        // When
+        CacheKeyspaceReport report = awaitFinished(cacheKeyspaceService.analyze().getId());
+
+        // Then
+        assertNull(report.getEstimatedMemoryBytes());
+        assertEquals("(none)", report.getPrefixes().get(0).getPrefix());
+        assertEquals(1, report.getPrefixes().get(0).getSampledKeys());
+        assertTrue(report.getPrefixes().get(0).getLargestKeys().isEmpty());
+    }
+
+    @Test
+    void testScanFailure_MarksReportFailed() throws InterruptedException {
+        // Given
+        doThrow(new IllegalStateException("connection refused")).when(redisService).scan(anyString(), anyInt(), any());
+
+        // When
+        CacheKeyspaceReport report = awaitFinished(cacheKeyspaceService.analyze().getId());
+
+        // Then
+        assertEquals(CacheKeyspaceReport.Status.FAILED, report.getStatus());
+        assertEquals("connection refused", report.getError());
+    }
+
+    @Test
+    void testGetReport_UnknownId() {
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> cacheKeyspaceService.getReport("missing"));
+    }
+
+    private void scanReturns(List<List<String>> batches) {
+        doAnswer(invocation -> {
+            Predicate<List<String>> consumer = invocation.getArgument(2);
+            for (List<String> batch : batches) {
+                consumer.test(batch);
+            }
+            return null;
+        }).when(redisService).scan(anyString(), anyInt(), any());
+    }
+
+    private static RedisKeyInfo info(String key, String node, long memoryBytes, long ttlMillis) {
+        return new RedisKeyInfo(key, node, memoryBytes, ttlMillis);
+    }
+
+    private CacheKeyspaceReport awaitFinished(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        CacheKeyspaceReport report = cacheKeyspaceService.getReport(id);
+        while (report.getFinishedAt() == null && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            report = cacheKeyspaceService.getReport(id);
+        }
+        return report;
+    }
+}
@@ -0,0 +1,191 @@
+package com.spring.notes.app.service;
+
+import com.spring.notes.app.dto.response.CachePurgeResponse;
+import com.spring.notes.app.exception.ResourceNotFoundException;
+import com.spring.notes.app.service.cache.CacheInvalidationBus;
+import com.spring.notes.app.service.cache.CacheMetrics;
+import com.spring.notes.app.service.cache.CacheNamespace;
+import com.spring.notes.app.service.impl.CachePurgeServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachePurgeServiceTest {
+
+    @Mock
+    private RedisService redisService;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CachePurgeServiceImpl cachePurgeService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cachePurgeService = new CachePurgeServiceImpl(redisService, new ConcurrentMapCacheManager(),
+                invalidationBus, new CacheNamespace("v1"), meterRegistry, 2, 1_000_000, 20);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cachePurgeService.shutdown();
+    }
+
+    @Test
+    void testPurgeByPrefix_UnlinksBatchesAndKeepsGenerationCounters() throws InterruptedException {
+        // Given
+        scanReturns(List.of(List.of("notes::1:5", "user:gen:1"), List.of("notes::2:7")));
+        when(redisService.unlink(anyCollection())).thenAnswer(invocation -> (long) invocation.<Collection<?>>getArgument(0).size());
+
+        // When
+        CachePurgeResponse started = cachePurgeService.purgeByPrefix("notes::");
+        CachePurgeResponse finished = awaitFinished(started.getId());
+
+        // Then
+        assertEquals("notes::*", started.getPattern());
+        assertEquals(CachePurgeResponse.Status.COMPLETED, finished.getStatus());
+        assertEquals(3, finished.getScanned());
+        assertEquals(2, finished.getDeleted());
+        verify(redisService).unlink(List.of("notes::1:5"));
+        verify(redisService).unlink(List.of("notes::2:7"));
+        verify(invalidationBus).publishClear("notes");
+        assertEquals(2.0, meterRegistry.get(CacheMetrics.PURGED_KEYS).counter().count());
+    }
+
+    @Test
+    void testPurgeAll_ScopedToNamespaceAndKeepsVersionKeys() throws InterruptedException {
+        // Given
+        scanReturns(List.of(List.of("v1:notes::{1}:5", "v1:notes::{1}:5#v", "v1:notes::{1}:6#v"),
+                List.of("v1:userNotes::{1}:h", "v1:userNotes::{1}:v", "v1:noteCounts::{1}:g3:total")));
+        when(redisService.unlink(anyCollection())).thenAnswer(invocation -> (long) invocation.<Collection<?>>getArgument(0).size());
+
+        // When
+        CachePurgeResponse started = cachePurgeService.purgeAll();
+        CachePurgeResponse finished = awaitFinished(started.getId());
+
+        // Then - values go, while the versions and delete fences stay to refuse late older writes
+        assertEquals("v1:*", started.getPattern());
+        assertEquals(6, finished.getScanned());
+        assertEquals(3, finished.getDeleted());
+        verify(redisService).unlink(List.of("v1:notes::{1}:5"));
+        verify(redisService).unlink(List.of("v1:userNotes::{1}:h", "v1:noteCounts::{1}:g3:total"));
+    }
+
+    @Test
+    void testPurgeByUser_MatchesUserKeysInEveryCache() throws InterruptedException {
+        // Given
+        scanReturns(List.of());
+
+        // When
+        CachePurgeResponse started = cachePurgeService.purgeByUser(42L);
+        awaitFinished(started.getId());
+
+        // Then
+        verify(redisService).scan(eq("*::{42}:*"), eq(2), any());
+    }
+
+    @Test
+    void testPurgeByPrefix_EscapesGlobCharacters() {
+        // When
+        CachePurgeResponse started = cachePurgeService.purgeByPrefix("notes*[x]");
+
+        // Then
+        assertEquals("notes\\*\\[x\\]*", started.getPattern());
+    }
+
+    @Test
+    void testCancel_StopsAfterCurrentBatch() throws InterruptedException {
+        // Given
+        CountDownLatch inFirstBatch = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            Predicate<List<String>> consumer = invocation.getArgument(2);
+            for (int i = 0; i < 10; i++) {
+                if (!consumer.test(new ArrayList<>(List.of("notes::1:" + i)))) {
+                    return null;
+                }
+            }
+            return null;
+        }).when(redisService).scan(anyString(), anyInt(), any());
+        when(redisService.unlink(anyCollection())).thenAnswer(invocation -> {
+            inFirstBatch.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 1L;
+        });
+
+        // When
+        CachePurgeResponse started = cachePurgeService.purgeAll();
+        assertTrue(inFirstBatch.await(5, TimeUnit.SECONDS));
+        cachePurgeService.cancel(started.getId());
+        release.countDown();
+        CachePurgeResponse finished = awaitFinished(started.getId());
+
+        // Then
+        assertEquals(CachePurgeResponse.Status.CANCELLED, finished.getStatus());
+        assertEquals(1, finished.getDeleted());
+    }
+
+    @Test
+    void testScanFailure_MarksJobFailed() throws InterruptedException {
+        // Given
+        doThrow(new IllegalStateException("connection refused")).when(redisService).scan(anyString(), anyInt(), any());
+
+        // When
+        CachePurgeResponse finished = awaitFinished(cachePurgeService.purgeAll().getId());
+
+        // Then
+        assertEquals(CachePurgeResponse.Status.FAILED, finished.getStatus());
+        assertEquals("connection refused", finished.getError());
+    }
+
+    @Test
+    void testGetJob_UnknownId() {
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> cachePurgeService.getJob("missing"));
+    }
+
+    @Test
+    void testPurgeByPrefix_RejectsBlankPrefix() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> cachePurgeService.purgeByPrefix(" "));
+    }
+
+    private void scanReturns(List<List<String>> batches) {
+        doAnswer(invocation -> {
+            Predicate<List<String>> consumer = invocation.getArgument(2);
+            for (List<String> batch : batches) {
+                consumer.test(batch);
+            }
+            return null;
+        }).when(redisService).scan(anyString(), anyInt(), any());
+    }
+
+    private CachePurgeResponse awaitFinished(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        CachePurgeResponse job = cachePurgeService.getJob(id);
+        while (job.getFinishedAt() == null && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            job = cachePurgeService.getJob(id);
+        }
+        return job;
+    }
+}
@@ -0,0 +1,91 @@
+package com.spring.notes.app.service;
+
+import com.spring.notes.app.service.impl.InMemoryRedisServiceImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryRedisServiceTest {
+
+    private final RedisService redisService = new InMemoryRedisServiceImpl(1000);
+
+    @Test
+    void testSetWithExpiration() throws InterruptedException {
+        // Given
+        redisService.set("test:expire", "value", 100, TimeUnit.MILLISECONDS);
+        assertEquals(Optional.of("value"), redisService.get("test:expire"));
+
+        // When
+        Thread.sleep(150);
+
+        // Then
+        assertFalse(redisService.exists("test:expire"));
+        assertEquals(-2L, redisService.getTtl("test:expire"));
+    }
+
+    @Test
+    void testIncrement_KeepsTtl() {
+        // Given
+        redisService.set("test:counter", 5L, 1, TimeUnit.HOURS);
+
+        // When
+        long value = redisService.increment("test:counter", 2);
+
+        // Then
+        assertEquals(7L, value);
+        assertTrue(redisService.getTtl("test:counter") > 3500);
+        assertEquals(1L, redisService.increment("test:new-counter", 1));
+        assertEquals(-1L, redisService.getTtl("test:new-counter"));
+    }
+
+    @Test
+    void testIncrement_SeedsMissingCounter() {
+        // When
+        long created = redisService.increment("test:seeded", 1, 100);
+        long incremented = redisService.increment("test:seeded", 1, 500);
+
+        // Then
+        assertEquals(101L, created);
+        assertEquals(102L, incremented);
+    }
+
+    @Test
+    void testLease_ReleasedOnlyByOwner() {
+        // Given
+        assertTrue(redisService.tryLease("test:lease", "a", 1, TimeUnit.MINUTES));
+        assertFalse(redisService.tryLease("test:lease", "b", 1, TimeUnit.MINUTES));
+
+        // When
+        redisService.releaseLease("test:lease", "b");
+        boolean heldAfterForeignRelease = redisService.exists("test:lease");
+        redisService.releaseLease("test:lease", "a");
+
+        // Then
+        assertTrue(heldAfterForeignRelease);
+        assertFalse(redisService.exists("test:lease"));
+    }
+
+    @Test
+    void testScan_MatchesGlobPattern() {
+        // Given
+        redisService.set("v1:notes::1:5", "a");
+        redisService.set("v1:notes::2:5", "b");
+        redisService.set("v1:notePages::1:g0", "c");
+        redisService.set("v1:notes.x", "d");
+
+        // When
+        List<String> matched = new ArrayList<>();
+        redisService.scan("v1:notes::*", 1, batch -> matched.addAll(batch));
+
+        // Then
+        assertEquals(2, matched.size());
+        assertTrue(matched.containsAll(List.of("v1:notes::1:5", "v1:notes::2:5")));
+        assertEquals(2, redisService.unlink(matched));
+        assertTrue(redisService.exists("v1:notePages::1:g0"));
+    }
+}
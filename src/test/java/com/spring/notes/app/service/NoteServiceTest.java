@@ -8,18 +8,32 @@ import com.spring.notes.app.entity.Note;
 import com.spring.notes.app.entity.User;
 import com.spring.notes.app.exception.ResourceNotFoundException;
 import com.spring.notes.app.repository.NoteRepository;
+import com.spring.notes.app.service.cache.CacheAdmissionPolicy;
+import com.spring.notes.app.service.cache.CacheInvalidationBus;
+import com.spring.notes.app.service.cache.CacheWriteBatch;
+import com.spring.notes.app.service.cache.NoteCacheEngine;
+import com.spring.notes.app.service.cache.OwnedNoteFilter;
+import com.spring.notes.app.service.cache.RedisShards;
+import com.spring.notes.app.service.cache.RefreshAheadExecutor;
+import com.spring.notes.app.service.cache.SingleFlight;
+import com.spring.notes.app.service.cache.UserCacheGenerations;
+import com.spring.notes.app.service.cache.UserNoteStore;
 import com.spring.notes.app.service.impl.NoteServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -36,9 +50,14 @@ class NoteServiceTest {
     private NoteRepository noteRepository;
 
     @Mock
-    private RedisService redisService;
+    private UserCacheGenerations userCacheGenerations;
+
+    @Mock
+    private OwnedNoteFilter ownedNoteFilter;
+
+    @Mock
+    private UserNoteStore userNoteStore;
 
-    @InjectMocks
     private NoteServiceImpl noteService;
 
     private User testUser;
@@ -48,6 +67,22 @@ class NoteServiceTest {
 
     @BeforeEach
     void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SingleFlight singleFlight = new SingleFlight(
+                mock(RedisService.class), meterRegistry, false, Duration.ofSeconds(5), Duration.ofSeconds(5));
+        NoteCacheEngine noteCacheEngine = new NoteCacheEngine(
+                new ConcurrentMapCacheManager(), userCacheGenerations, singleFlight,
+                new RefreshAheadExecutor(meterRegistry, true, 1.0, 1, 10),
+                new CacheAdmissionPolicy(meterRegistry, DataSize.ofMegabytes(1), DataSize.ofMegabytes(8), 100),
+                userNoteStore, new CacheWriteBatch(RedisShards.of(mock(RedisTemplate.class), meterRegistry), mock(RedisService.class),
+                        mock(CacheInvalidationBus.class), meterRegistry, null, null, null, 10000),
+                meterRegistry, 5, 100);
+        noteService = new NoteServiceImpl(noteRepository, noteCacheEngine, ownedNoteFilter);
+        lenient().when(ownedNoteFilter.mightOwn(any(User.class), anyLong())).thenReturn(true);
+        lenient().when(userCacheGenerations.key(any(User.class))).thenReturn("1:g0");
+        lenient().when(userCacheGenerations.key(any(User.class), anyString()))
+                .thenAnswer(invocation -> "1:g0:" + invocation.getArgument(1));
+
         testUser = User.builder()
                 .id(1L)
                 .username("testuser")
@@ -69,6 +104,7 @@ class NoteServiceTest {
                 .user(testUser)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
+                .version(0L)
                 .build();
 
     createRequest = CreateNoteRequest.builder()
@@ -117,6 +153,8 @@ class NoteServiceTest {
     // UserId is not present in NoteResponse, so skip this assertion
 
         verify(noteRepository).save(any(Note.class));
+        verify(userCacheGenerations).bump(testUser.getId());
+        verify(ownedNoteFilter).add(testUser, 1L);
     }
 
     @Test
@@ -136,6 +174,20 @@ class NoteServiceTest {
         verify(noteRepository).findByIdAndUser(1L, testUser);
     }
 
+    @Test
+    void testGetNoteById_SecondReadServedFromCache() {
+        // Given
+        when(noteRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.of(testNote));
+
+        // When
+        NoteResponse first = noteService.getNoteById(1L, testUser);
+        NoteResponse second = noteService.getNoteById(1L, testUser);
+
+        // Then
+        assertEquals(first.getId(), second.getId());
+        verify(noteRepository, times(1)).findByIdAndUser(1L, testUser);
+    }
+
     @Test
     void testGetNoteById_NotFound() {
         // Given
@@ -147,6 +199,17 @@ class NoteServiceTest {
         });
 
         verify(noteRepository).findByIdAndUser(1L, testUser);
+        verify(ownedNoteFilter).recordMiss(testUser, 1L);
+    }
+
+    @Test
+    void testGetNoteById_NotOwned_SkipsDatabase() {
+        // Given
+        when(ownedNoteFilter.mightOwn(testUser, 99L)).thenReturn(false);
+
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> noteService.getNoteById(99L, testUser));
+        verify(noteRepository, never()).findByIdAndUser(anyLong(), any(User.class));
     }
 
     @Test
@@ -165,7 +228,7 @@ class NoteServiceTest {
                 .build();
 
         when(noteRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.of(testNote));
-        when(noteRepository.save(any(Note.class))).thenReturn(updatedNote);
+        when(noteRepository.saveAndFlush(any(Note.class))).thenReturn(updatedNote);
 
         // When
         NoteResponse response = noteService.updateNote(1L, updateRequest, testUser);
@@ -179,7 +242,7 @@ class NoteServiceTest {
         assertEquals(updateRequest.getCategory(), response.getCategory());
 
         verify(noteRepository).findByIdAndUser(1L, testUser);
-        verify(noteRepository).save(any(Note.class));
+        verify(noteRepository).saveAndFlush(any(Note.class));
     }
 
     @Test
@@ -193,7 +256,8 @@ class NoteServiceTest {
         });
 
         verify(noteRepository).findByIdAndUser(1L, testUser);
-        verify(noteRepository, never()).save(any(Note.class));
+        verify(noteRepository, never()).saveAndFlush(any(Note.class));
+        verify(userCacheGenerations, never()).bump(anyLong());
     }
 
     @Test
@@ -208,6 +272,45 @@ class NoteServiceTest {
         // Then
         verify(noteRepository).findByIdAndUser(1L, testUser);
         verify(noteRepository).delete(testNote);
+        verify(userCacheGenerations).bump(testUser.getId());
+        verify(userNoteStore).remove(testUser.getId(), 1L);
+    }
+
+    @Test
+    void testUpdateNote_RefreshesCachedNote() {
+        // Given
+        when(noteRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.of(testNote));
+        when(noteRepository.saveAndFlush(any(Note.class))).thenAnswer(invocation -> {
+            // The flush increments the version, as Hibernate does
+            Note flushed = invocation.getArgument(0);
+            flushed.setVersion(flushed.getVersion() + 1);
+            return flushed;
+        });
+        noteService.getNoteById(1L, testUser);
+
+        // When
+        noteService.updateNote(1L, updateRequest, testUser);
+        NoteResponse cached = noteService.getNoteById(1L, testUser);
+
+        // Then
+        assertEquals(updateRequest.getTitle(), cached.getTitle());
+        verify(noteRepository, times(2)).findByIdAndUser(1L, testUser);
+        verify(userCacheGenerations).bump(testUser.getId());
+        verify(userNoteStore).patch(eq(testUser.getId()), argThat(note -> updateRequest.getTitle().equals(note.getTitle())));
+    }
+
+    @Test
+    void testDeleteNoteAdmin_EvictsOwnersCachedNote() {
+        // Given
+        when(noteRepository.findById(1L)).thenReturn(Optional.of(testNote));
+
+        // When
+        noteService.deleteNoteAdmin(1L);
+
+        // Then
+        verify(noteRepository).delete(testNote);
+        verify(userCacheGenerations).bump(testUser.getId());
+        verify(userNoteStore).remove(testUser.getId(), 1L);
     }
 
     @Test
@@ -239,6 +342,7 @@ class NoteServiceTest {
         assertEquals(testNote.getId(), responses.get(0).getId());
 
     verify(noteRepository).findByUser(testUser);
+        verify(userNoteStore).load(eq(testUser.getId()), any(), eq(responses));
     }
 
     @Test
@@ -262,6 +366,25 @@ class NoteServiceTest {
     verify(noteRepository).findByUser(testUser, pageable);
     }
 
+    @Test
+    void testGetAllNotesWithPagination_CachedPerPage() {
+        // Given
+        Pageable firstPage = PageRequest.of(0, 10);
+        Pageable secondPage = PageRequest.of(1, 10);
+        when(noteRepository.findByUser(eq(testUser), any(Pageable.class)))
+                .thenAnswer(invocation -> new PageImpl<>(List.of(testNote), invocation.getArgument(1), 11));
+
+        // When
+        noteService.getAllNotes(testUser, firstPage);
+        noteService.getAllNotes(testUser, firstPage);
+        PageResponse<NoteResponse> second = noteService.getAllNotes(testUser, secondPage);
+
+        // Then
+        assertEquals(1, second.getPage());
+        verify(noteRepository, times(1)).findByUser(testUser, firstPage);
+        verify(noteRepository, times(1)).findByUser(testUser, secondPage);
+    }
+
     @Test
     void testGetNotesByStatus_Success() {
         // Given
@@ -300,7 +423,7 @@ class NoteServiceTest {
     void testCompleteNote_Success() {
         // Given
         when(noteRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.of(testNote));
-        when(noteRepository.save(any(Note.class))).thenReturn(testNote);
+        when(noteRepository.saveAndFlush(any(Note.class))).thenReturn(testNote);
 
         // When
         NoteResponse response = noteService.completeNote(1L, testUser);
@@ -310,7 +433,7 @@ class NoteServiceTest {
         assertEquals(Note.Status.COMPLETED, response.getStatus());
 
         verify(noteRepository).findByIdAndUser(1L, testUser);
-        verify(noteRepository).save(any(Note.class));
+        verify(noteRepository).saveAndFlush(any(Note.class));
     }
 
     @Test
@@ -1,10 +1,18 @@
 package com.spring.notes.app.service;
 
+import com.spring.notes.app.dto.response.NoteResponse;
+import com.spring.notes.app.entity.Note;
+import com.spring.notes.app.service.cache.CacheEnvelope;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
@@ -108,4 +116,150 @@ class RedisServiceTest {
         // Cleanup
         redisService.delete(key);
     }
+
+    @Test
+    void testMultiSetAndMultiGet() {
+        // Given
+        List<RedisEntry> entries = List.of(
+                RedisEntry.builder().key("test:multi:1").value("one").ttl(Duration.ofMinutes(1)).build(),
+                RedisEntry.builder().key("test:multi:2").value("two").ttl(Duration.ofMinutes(5)).build(),
+                RedisEntry.builder().key("test:multi:3").value(3L).build());
+
+        // When
+        redisService.multiSet(entries);
+        Map<String, String> result = redisService.multiGet(
+                List.of("test:multi:1", "test:multi:2", "test:multi:3", "test:multi:missing"), String.class);
+
+        // Then
+        assertEquals(Map.of("test:multi:1", "one", "test:multi:2", "two"), result);
+        assertTrue(redisService.getTtl("test:multi:1") <= 60);
+        assertTrue(redisService.getTtl("test:multi:2") > 60);
+        assertEquals(-1L, redisService.getTtl("test:multi:3"));
+
+        // Cleanup
+        redisService.multiDelete(List.of("test:multi:1", "test:multi:2", "test:multi:3"));
+    }
+
+    @Test
+    void testMultiSetWithSharedTtl() {
+        // When
+        redisService.multiSet(Map.of("test:shared:1", "a", "test:shared:2", "b"), 1, TimeUnit.MINUTES);
+
+        // Then
+        assertTrue(redisService.getTtl("test:shared:1") > 0);
+        assertTrue(redisService.getTtl("test:shared:2") > 0);
+
+        // Cleanup
+        redisService.multiDelete(List.of("test:shared:1", "test:shared:2"));
+    }
+
+    @Test
+    void testMultiDelete() {
+        // Given
+        redisService.set("test:delete:1", "a");
+        redisService.set("test:delete:2", "b");
+
+        // When
+        long deleted = redisService.multiDelete(List.of("test:delete:1", "test:delete:2", "test:delete:missing"));
+
+        // Then
+        assertEquals(2, deleted);
+        assertFalse(redisService.exists("test:delete:1"));
+        assertFalse(redisService.exists("test:delete:2"));
+    }
+
+    @Test
+    void testScanAndUnlink_RemoveOnlyMatchingKeys() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            redisService.set("test:scan:" + i, i);
+        }
+        redisService.set("test:kept", "kept");
+        List<String> scanned = new ArrayList<>();
+
+        // When
+        redisService.scan("test:scan:*", 2, batch -> {
+            assertTrue(batch.size() <= 2);
+            scanned.addAll(batch);
+            return true;
+        });
+        long unlinked = redisService.unlink(scanned);
+
+        // Then
+        assertEquals(5, scanned.size());
+        assertEquals(5, unlinked);
+        assertFalse(redisService.exists("test:scan:0"));
+        assertTrue(redisService.exists("test:kept"));
+
+        // Cleanup
+        redisService.delete("test:kept");
+    }
+
+    @Test
+    void testLease_IsExclusiveAndReleasedOnlyByOwner() {
+        // Given
+        String key = "test:lease";
+        redisService.delete(key);
+
+        // When
+        boolean first = redisService.tryLease(key, "owner-a", 5, TimeUnit.SECONDS);
+        boolean second = redisService.tryLease(key, "owner-b", 5, TimeUnit.SECONDS);
+        redisService.releaseLease(key, "owner-b");
+        boolean heldAfterForeignRelease = redisService.exists(key);
+        redisService.releaseLease(key, "owner-a");
+
+        // Then
+        assertTrue(first);
+        assertFalse(second);
+        assertTrue(heldAfterForeignRelease);
+        assertFalse(redisService.exists(key));
+    }
+
+    @Test
+    void testGetWithDtoType() {
+        // Given
+        String key = "test:dto";
+        NoteResponse value = NoteResponse.builder()
+                .id(7L)
+                .title("Cached Note")
+                .content("Cached content")
+                .status(Note.Status.ACTIVE)
+                .priority(Note.Priority.HIGH)
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        // When
+        redisService.set(key, value);
+        Optional<NoteResponse> result = redisService.get(key, NoteResponse.class);
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(value, result.get());
+
+        // Cleanup
+        redisService.delete(key);
+    }
+
+    @Test
+    void testGetWithEnvelopeType() {
+        // Given
+        String key = "test:envelope";
+        List<NoteResponse> notes = new ArrayList<>(List.of(NoteResponse.builder().id(7L).title("Listed").build()));
+        CacheEnvelope value = CacheEnvelope.builder()
+                .value(notes)
+                .delta(12)
+                .expiresAt(System.currentTimeMillis() + 60_000)
+                .build();
+
+        // When
+        redisService.set(key, value);
+        Optional<CacheEnvelope> result = redisService.get(key, CacheEnvelope.class);
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(value, result.get());
+
+        // Cleanup
+        redisService.delete(key);
+    }
 }
@@ -0,0 +1,106 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.dto.response.NoteResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheAdmissionPolicyTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CacheAdmissionPolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        policy = new CacheAdmissionPolicy(meterRegistry, DataSize.ofKilobytes(8), DataSize.ofKilobytes(16), 100);
+    }
+
+    @Test
+    void testOversizedEntry_IsRejected() {
+        // When
+        boolean admitted = policy.admit(CacheRegion.USER_NOTES, 1L, "1:g1", note(5000));
+
+        // Then
+        assertFalse(admitted);
+        assertEquals(0, policy.usage(1L));
+        assertEquals(1.0, count("userNotes", CacheMetrics.REJECTED_SIZE));
+    }
+
+    @Test
+    void testUserBudget_RejectsOnceExhausted() {
+        // When
+        boolean first = policy.admit(CacheRegion.NOTES, 1L, "1:1", note(3000));
+        boolean second = policy.admit(CacheRegion.NOTES, 1L, "1:2", note(3000));
+        boolean third = policy.admit(CacheRegion.NOTES, 1L, "1:3", note(3000));
+        boolean otherUser = policy.admit(CacheRegion.NOTES, 2L, "2:1", note(3000));
+
+        // Then
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        assertTrue(otherUser);
+        assertEquals(3.0, count("notes", CacheMetrics.ADMITTED));
+        assertEquals(1.0, count("notes", CacheMetrics.REJECTED_BUDGET));
+    }
+
+    @Test
+    void testRewritingKey_ReplacesItsCharge() {
+        // Given
+        policy.admit(CacheRegion.NOTES, 1L, "1:1", note(3000));
+        long charged = policy.usage(1L);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertTrue(policy.admit(CacheRegion.NOTES, 1L, "1:1", note(3000)));
+        }
+
+        // Then
+        assertEquals(charged, policy.usage(1L));
+    }
+
+    @Test
+    void testNewGeneration_TakesOverChargeOfSupersededEntry() {
+        // Given - pages cached before each of the user's writes
+        for (int generation = 1; generation <= 5; generation++) {
+            assertTrue(policy.admit(CacheRegion.NOTE_PAGES, 1L, "{1}:g" + generation + ":all:p0", note(3000)));
+        }
+        long charged = policy.usage(1L);
+
+        // When
+        boolean other = policy.admit(CacheRegion.NOTE_PAGES, 1L, "{1}:g5:all:p1", note(3000));
+
+        // Then
+        assertTrue(other);
+        assertEquals(2 * charged, policy.usage(1L));
+    }
+
+    @Test
+    void testRelease_FreesBudget() {
+        // Given
+        policy.admit(CacheRegion.NOTES, 1L, "1:1", note(3000));
+        policy.admit(CacheRegion.NOTES, 1L, "1:2", note(3000));
+
+        // When
+        policy.release(CacheRegion.NOTES, 1L, "1:1");
+
+        // Then
+        assertTrue(policy.admit(CacheRegion.NOTES, 1L, "1:3", note(3000)));
+    }
+
+    private NoteResponse note(int contentLength) {
+        return NoteResponse.builder().id(1L).title("Note").content("x".repeat(contentLength)).build();
+    }
+
+    private double count(String cache, String outcome) {
+        return meterRegistry.get(CacheMetrics.ADMISSIONS)
+                .tag("cache", cache)
+                .tag("tier", CacheMetrics.TIER_L2)
+                .tag("outcome", outcome)
+                .counter()
+                .count();
+    }
+}
@@ -0,0 +1,105 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.dto.response.NoteResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comparison of the JSON and compact cache codecs on a typical cached list of notes.
+ * The notes are generated from a fixed seed, so the encoded sizes are the same on every run
+ * and are asserted. Serialize and deserialize times are only measured on request, with
+ * {@code -Dbenchmark=true}, and logged rather than asserted.
+ */
+@Slf4j
+class CacheCodecBenchmarkTest {
+
+    private static final long SEED = 42;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 500;
+
+    @Test
+    void testCompactCodec_IsSmallerThanJson() {
+        // Given
+        RedisSerializer<Object> json = CompactCacheSerializerTest.jsonSerializer();
+        RedisSerializer<Object> compact = new CompactCacheSerializer(json, 1024);
+        CacheEnvelope value = new CacheEnvelope(notes(100), 15, 1_700_000_000_000L);
+
+        // When
+        byte[] jsonBytes = json.serialize(value);
+        byte[] compactBytes = compact.serialize(value);
+
+        // Then
+        log.info("json: {} bytes, compact: {} bytes", jsonBytes.length, compactBytes.length);
+        assertTrue(compactBytes.length * 2 < jsonBytes.length,
+                "compact " + compactBytes.length + " bytes vs json " + jsonBytes.length + " bytes");
+        assertNotNull(compact.deserialize(compactBytes));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void testSerializeAndDeserializeTimes_Benchmark() {
+        // Given
+        RedisSerializer<Object> json = CompactCacheSerializerTest.jsonSerializer();
+        RedisSerializer<Object> compact = new CompactCacheSerializer(json, 1024);
+        CacheEnvelope value = new CacheEnvelope(notes(100), 15, 1_700_000_000_000L);
+
+        // When
+        Result jsonResult = measure(json, value);
+        Result compactResult = measure(compact, value);
+
+        // Then
+        log.info("json:    {} bytes, serialize {} us, deserialize {} us",
+                jsonResult.bytes, jsonResult.serializeMicros, jsonResult.deserializeMicros);
+        log.info("compact: {} bytes, serialize {} us, deserialize {} us",
+                compactResult.bytes, compactResult.serializeMicros, compactResult.deserializeMicros);
+    }
+
+    private Result measure(RedisSerializer<Object> serializer, Object value) {
+        byte[] bytes = serializer.serialize(value);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            serializer.deserialize(serializer.serialize(value));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            bytes = serializer.serialize(value);
+        }
+        long serializeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            assertNotNull(serializer.deserialize(bytes));
+        }
+        long deserializeNanos = System.nanoTime() - start;
+
+        return new Result(bytes.length, serializeNanos / MEASURED_ROUNDS / 1000, deserializeNanos / MEASURED_ROUNDS / 1000);
+    }
+
+    private static List<NoteResponse> notes(int count) {
+        // Natural-ish text: repeated vocabulary in random order, like real note bodies
+        String[] words = {"meeting", "project", "deadline", "review", "the", "and", "notes", "follow", "up",
+                "with", "team", "about", "design", "budget", "release", "plan", "customer", "feedback"};
+        Random random = new Random(SEED);
+        List<NoteResponse> notes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder content = new StringBuilder();
+            int length = 200 + random.nextInt(4800);
+            while (content.length() < length) {
+                content.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            notes.add(CompactCacheSerializerTest.note(i, content.toString()));
+        }
+        return notes;
+    }
+
+    private record Result(int bytes, long serializeMicros, long deserializeMicros) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.spring.notes.app.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CacheInvalidationBusTest {
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private CacheInvalidationBus otherNode;
+    private final BlockingQueue<CacheInvalidationMessage> received = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        // A second bus on the same channel stands in for another app instance
+        otherNode = new CacheInvalidationBus(redisTemplate, objectMapper, cacheInvalidationBus.getChannel());
+        otherNode.subscribe(received::add);
+        otherNode.start();
+        awaitSubscription();
+    }
+
+    @AfterEach
+    void tearDown() {
+        otherNode.stop();
+    }
+
+    @Test
+    void testPublish_DeliveredToOtherNodes() throws InterruptedException {
+        // When
+        cacheInvalidationBus.publish("notes", "1:42");
+
+        // Then
+        CacheInvalidationMessage message = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(message);
+        assertEquals("notes", message.getCacheName());
+        assertEquals("1:42", message.getKey());
+        assertEquals(cacheInvalidationBus.getNodeId(), message.getOrigin());
+    }
+
+    @Test
+    void testPublish_IgnoresOwnMessages() throws InterruptedException {
+        // When
+        otherNode.publish("notes", "1:42");
+
+        // Then
+        assertNull(received.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    private void awaitSubscription() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            cacheInvalidationBus.publish("probe", null);
+            CacheInvalidationMessage probe = received.poll(200, TimeUnit.MILLISECONDS);
+            if (probe != null) {
+                received.clear();
+                return;
+            }
+        }
+        fail("Subscription to the invalidation channel was not established");
+    }
+}
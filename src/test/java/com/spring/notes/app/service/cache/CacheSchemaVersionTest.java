@@ -0,0 +1,85 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.dto.response.NoteResponse;
+import com.spring.notes.app.dto.response.PageResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheSchemaVersionTest {
+
+    @Test
+    void testSameShape_SameNamespace() {
+        // When
+        String first = CacheSchemaVersion.of("compact", NoteResponse.class, PageResponse.class, CacheEnvelope.class);
+        String second = CacheSchemaVersion.of("compact", NoteResponse.class, PageResponse.class, CacheEnvelope.class);
+
+        // Then
+        assertEquals(first, second);
+        assertTrue(first.matches("v[0-9a-f]{8}"));
+    }
+
+    @Test
+    void testCodec_ChangesNamespace() {
+        // When & Then
+        assertNotEquals(CacheSchemaVersion.of("compact", NoteResponse.class),
+                CacheSchemaVersion.of("json", NoteResponse.class));
+    }
+
+    @Test
+    void testShape_CoversFieldNamesAndTypes() {
+        // When
+        String shape = CacheSchemaVersion.shape("json", Cached.class);
+
+        // Then
+        assertTrue(shape.contains("id:java.lang.Long"));
+        assertTrue(shape.contains("tags:java.util.List<java.lang.String>"));
+        assertFalse(shape.contains("SERIAL"));
+        assertFalse(shape.contains("scratch"));
+    }
+
+    @Test
+    void testShape_FollowsNestedAppTypesAndEnumConstants() {
+        // When
+        String shape = CacheSchemaVersion.shape("json", Cached.class);
+
+        // Then
+        assertTrue(shape.contains(Level.class.getName() + ",LOW,MEDIUM,HIGH"));
+        assertTrue(shape.contains(Child.class.getName() + ",name:java.lang.String"));
+    }
+
+    @Test
+    void testRepeatedTypes_AreDescribedOnce() {
+        // When & Then
+        assertEquals(CacheSchemaVersion.of("json", Cached.class, Child.class),
+                CacheSchemaVersion.of("json", Cached.class, Child.class, Child.class));
+    }
+
+    @Test
+    void testNoteResponseShape_IncludesPriorityAndStatusConstants() {
+        // When
+        String shape = CacheSchemaVersion.shape("compact", NoteResponse.class);
+
+        // Then
+        assertTrue(shape.startsWith("compact#" + CompactCacheSerializer.SCHEMA_VERSION));
+        assertTrue(shape.contains("HIGH"));
+        assertTrue(shape.contains("ARCHIVED"));
+    }
+
+    enum Level { LOW, MEDIUM, HIGH }
+
+    static class Child {
+        private String name;
+    }
+
+    static class Cached {
+        private static final long SERIAL = 1L;
+        private Long id;
+        private List<String> tags;
+        private List<Child> children;
+        private Level level;
+        private transient String scratch;
+    }
+}
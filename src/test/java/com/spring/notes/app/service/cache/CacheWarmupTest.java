@@ -0,0 +1,148 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.entity.Note;
+import com.spring.notes.app.entity.User;
+import com.spring.notes.app.repository.NoteRepository;
+import com.spring.notes.app.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmupTest {
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private NoteCacheEngine noteCacheEngine;
+
+    private SimpleMeterRegistry meterRegistry;
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        alice = User.builder().id(1L).username("alice").build();
+        bob = User.builder().id(2L).username("bob").build();
+    }
+
+    @Test
+    void testWarmUp_LoadsListsCategoriesAndCountsPerBatch() {
+        // Given
+        when(noteRepository.findRecentlyActiveUserIds(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L));
+        when(noteRepository.findByUserIdIn(List.of(1L, 2L))).thenReturn(List.of(
+                note(10L, alice, "work"), note(11L, alice, null), note(12L, alice, "work"), note(20L, bob, "home")));
+        when(userRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(alice, bob));
+        NoteCacheEngine.Snapshot aliceSnapshot = new NoteCacheEngine.Snapshot("3", "{1}:g7");
+        when(noteCacheEngine.snapshot(alice)).thenReturn(aliceSnapshot);
+        CacheWarmup warmup = warmup(10, 0.9, Duration.ofMinutes(1));
+
+        // When
+        warmup.warmUp();
+
+        // Then - one batch, so one notes query for both users
+        verify(noteRepository, times(1)).findByUserIdIn(anyCollection());
+        verify(noteCacheEngine).preload(eq(alice), same(aliceSnapshot), argThat(notes -> notes.size() == 3),
+                eq(List.of("work")), eq(3L));
+        verify(noteCacheEngine).preload(eq(bob), any(), argThat(notes -> notes.size() == 1),
+                eq(List.of("home")), eq(1L));
+
+        assertEquals(1.0, warmup.coverage());
+        assertEquals(Status.UP, warmup.health().getStatus());
+        assertEquals(2.0, meterRegistry.get(CacheMetrics.WARMUP_USERS).tag("outcome", "warmed").counter().count());
+        assertEquals(1, meterRegistry.get(CacheMetrics.WARMUP_DURATION).timer().count());
+    }
+
+    @Test
+    void testWarmUp_SnapshotsBeforeQueryingNotes() {
+        // Given
+        when(noteRepository.findRecentlyActiveUserIds(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(1L));
+        when(userRepository.findAllById(List.of(1L))).thenReturn(List.of(alice));
+        when(noteRepository.findByUserIdIn(List.of(1L))).thenReturn(List.of(note(10L, alice, "work")));
+        CacheWarmup warmup = warmup(10, 0.9, Duration.ofMinutes(1));
+
+        // When
+        warmup.warmUp();
+
+        // Then - a write committing after the snapshot makes the preload a no-op in the engine
+        InOrder inOrder = inOrder(noteCacheEngine, noteRepository);
+        inOrder.verify(noteCacheEngine).snapshot(alice);
+        inOrder.verify(noteRepository).findByUserIdIn(List.of(1L));
+        inOrder.verify(noteCacheEngine).preload(eq(alice), any(), anyList(), anyList(), anyLong());
+    }
+
+    @Test
+    void testWarmUp_CountsFailedUsers() {
+        // Given
+        when(noteRepository.findRecentlyActiveUserIds(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L));
+        when(noteRepository.findByUserIdIn(anyCollection())).thenReturn(List.of());
+        when(userRepository.findAllById(List.of(1L))).thenReturn(List.of(alice));
+        when(userRepository.findAllById(List.of(2L))).thenReturn(List.of(bob));
+        doThrow(new IllegalStateException("Redis down"))
+                .when(noteCacheEngine).preload(eq(bob), any(), anyList(), anyList(), anyLong());
+        CacheWarmup warmup = warmup(1, 0.9, Duration.ofMinutes(1));
+
+        // When
+        warmup.warmUp();
+
+        // Then
+        assertEquals(0.5, warmup.coverage());
+        assertEquals(1.0, meterRegistry.get(CacheMetrics.WARMUP_USERS).tag("outcome", "failed").counter().count());
+        assertTrue(warmup.isReady());
+    }
+
+    @Test
+    void testHealth_OutOfServiceUntilStarted() {
+        // Given
+        CacheWarmup warmup = warmup(10, 0.9, Duration.ofMinutes(1));
+
+        // When & Then
+        assertFalse(warmup.isReady());
+        assertEquals(Status.OUT_OF_SERVICE, warmup.health().getStatus());
+    }
+
+    @Test
+    void testHealth_UpWhenDisabled() {
+        // Given
+        CacheWarmup warmup = new CacheWarmup(noteRepository, userRepository, noteCacheEngine, meterRegistry,
+                false, Duration.ofDays(7), 100, 10, 2, 0.9, Duration.ofMinutes(1));
+
+        // When
+        warmup.start();
+
+        // Then
+        assertEquals(Status.UP, warmup.health().getStatus());
+        verifyNoInteractions(noteRepository, noteCacheEngine);
+    }
+
+    private CacheWarmup warmup(int batchSize, double minCoverage, Duration deadline) {
+        return new CacheWarmup(noteRepository, userRepository, noteCacheEngine, meterRegistry,
+                true, Duration.ofDays(7), 100, batchSize, 2, minCoverage, deadline);
+    }
+
+    private Note note(Long id, User user, String category) {
+        return Note.builder().id(id).title("Note " + id).category(category).user(user).build();
+    }
+}
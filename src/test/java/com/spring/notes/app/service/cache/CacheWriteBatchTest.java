@@ -0,0 +1,183 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.dto.response.NoteResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CacheWriteBatchTest {
+
+    private static final String KEY = "batch-test:1";
+
+    @Autowired
+    private CacheWriteBatch writeBatch;
+
+    @Autowired
+    private CacheWriteBehind writeBehind;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private TransactionTemplate transaction;
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        cache = cacheManager.getCache(CacheRegion.NOTES.getCacheName());
+        cache.evict(KEY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.evict(KEY);
+        redisTemplate.delete(redisTemplate.keys("*" + KEY + "#v"));
+    }
+
+    @Test
+    void testWritesInTransaction_AppliedAsOneBatchAfterCommit() throws InterruptedException {
+        // Given
+        NoteResponse note = NoteResponse.builder().id(1L).title("Batched").build();
+        long batchesBefore = batchCount();
+
+        // When
+        transaction.executeWithoutResult(status -> {
+            writeBatch.put(cache, KEY, note);
+            writeBatch.increment("batch-test:counter", 0);
+            assertNull(cache.get(KEY), "nothing may reach the cache before commit");
+        });
+
+        // Then - the value itself follows from the write-behind worker
+        assertEquals(batchesBefore + 1, batchCount());
+        assertTrue(writeBehind.awaitIdle(Duration.ofSeconds(5)));
+        Cache.ValueWrapper cached = cache.get(KEY);
+        assertNotNull(cached);
+        assertEquals("Batched", ((NoteResponse) cached.get()).getTitle());
+    }
+
+    @Test
+    void testPutIfNewerInTransaction_ClearsOldValueAndRefusesLateOlderPut() throws InterruptedException {
+        // Given
+        writeBatch.putIfNewer(cache, KEY, version(1), 1, NoteCacheEngine::noteVersion);
+
+        // When
+        transaction.executeWithoutResult(status ->
+                writeBatch.putIfNewer(cache, KEY, version(3), 3, NoteCacheEngine::noteVersion));
+        writeBatch.putIfNewer(cache, KEY, version(2), 2, NoteCacheEngine::noteVersion);
+
+        // Then - the version was raised with the commit, so the stale put lost even if it ran first
+        assertTrue(writeBehind.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(3L, ((NoteResponse) cache.get(KEY).get()).getVersion());
+    }
+
+    @Test
+    void testPutIfNewerNowInTransaction_AppliedBeforeCommit() {
+        // When
+        transaction.executeWithoutResult(status -> {
+            writeBatch.putIfNewerNow(cache, KEY, version(1), 1, NoteCacheEngine::noteVersion);
+
+            // Then - a loaded value lands before the loader's lease is released
+            assertEquals(1L, ((NoteResponse) cache.get(KEY).get()).getVersion());
+        });
+    }
+
+    @Test
+    void testWritesInRolledBackTransaction_Discarded() {
+        // When
+        transaction.executeWithoutResult(status -> {
+            writeBatch.put(cache, KEY, NoteResponse.builder().id(1L).title("Phantom").build());
+            status.setRollbackOnly();
+        });
+
+        // Then
+        assertNull(cache.get(KEY));
+    }
+
+    @Test
+    void testEvictOutsideTransaction_AppliedImmediately() {
+        // Given
+        cache.put(KEY, NoteResponse.builder().id(1L).title("Cached").build());
+
+        // When
+        writeBatch.evict(cache, KEY);
+
+        // Then
+        assertNull(cache.get(KEY));
+    }
+
+    @Test
+    void testPutIfNewer_OlderVersionRefused() {
+        // Given
+        NoteResponse newer = version(2);
+        writeBatch.putIfNewer(cache, KEY, newer, 2, NoteCacheEngine::noteVersion);
+
+        // When - a slow reader arrives with what it loaded before the update
+        writeBatch.putIfNewer(cache, KEY, version(1), 1, NoteCacheEngine::noteVersion);
+
+        // Then
+        assertEquals(2L, ((NoteResponse) cache.get(KEY).get()).getVersion());
+        writeBatch.putIfNewer(cache, KEY, version(3), 3, NoteCacheEngine::noteVersion);
+        assertEquals(3L, ((NoteResponse) cache.get(KEY).get()).getVersion());
+    }
+
+    @Test
+    void testPutIfNewer_StaleLoadAtSameVersionRefused() {
+        // Given - an update committed version 2
+        writeBatch.putIfNewer(cache, KEY, version(2, "Updated"), 2, NoteCacheEngine::noteVersion);
+
+        // When - a slow reader arrives with different content stamped with the same version
+        writeBatch.putIfNewer(cache, KEY, version(2, "Stale"), 2, NoteCacheEngine::noteVersion);
+
+        // Then
+        assertEquals("Updated", ((NoteResponse) cache.get(KEY).get()).getTitle());
+    }
+
+    @Test
+    void testEvictFenced_RefusesLaterPuts() {
+        // Given
+        writeBatch.putIfNewer(cache, KEY, version(1), 1, NoteCacheEngine::noteVersion);
+
+        // When
+        writeBatch.evictFenced(cache, KEY);
+        writeBatch.putIfNewer(cache, KEY, version(2), 2, NoteCacheEngine::noteVersion);
+
+        // Then
+        assertNull(cache.get(KEY));
+    }
+
+    private static NoteResponse version(long version) {
+        return version(version, "Versioned");
+    }
+
+    private static NoteResponse version(long version, String title) {
+        return NoteResponse.builder().id(1L).title(title).version(version).build();
+    }
+
+    private long batchCount() {
+        return meterRegistry.get(CacheMetrics.WRITE_BATCH_SIZE).summary().count();
+    }
+}
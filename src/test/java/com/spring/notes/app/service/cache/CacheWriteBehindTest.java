@@ -0,0 +1,127 @@
+package com.spring.notes.app.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWriteBehindTest {
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private RedisConnection connection;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RedisCircuitBreaker circuitBreaker;
+    private CacheWriteBehind writeBehind;
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstPipelineStarted = new CountDownLatch(1);
+    private final CountDownLatch releasePipeline = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = new RedisCircuitBreaker(() -> { }, meterRegistry, 10, 10, 0.5, 1.0,
+                Duration.ofSeconds(10), Duration.ofSeconds(10));
+        // The first pipeline blocks, so the test controls what is queued behind it
+        lenient().when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            firstPipelineStarted.countDown();
+            assertTrue(releasePipeline.await(5, TimeUnit.SECONDS));
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return List.of();
+        });
+        writeBehind = new CacheWriteBehind(RedisShards.of(redisTemplate, meterRegistry), circuitBreaker, meterRegistry,
+                true, 1, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releasePipeline.countDown();
+        writeBehind.shutdown();
+        circuitBreaker.close();
+    }
+
+    @Test
+    void testRepeatedWrites_CoalescedToLatestVersion() throws InterruptedException {
+        // Given
+        writeBehind.offer("a", 1, command("a@1"));
+        assertTrue(firstPipelineStarted.await(5, TimeUnit.SECONDS));
+
+        // When - queued while the worker is busy with "a"
+        writeBehind.offer("b", 1, command("b@1"));
+        writeBehind.offer("b", 3, command("b@3"));
+        writeBehind.offer("b", 2, command("b@2"));
+        releasePipeline.countDown();
+
+        // Then
+        assertTrue(writeBehind.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(List.of("a@1", "b@3"), sent);
+        assertEquals(2.0, count("coalesced"));
+        assertEquals(2.0, count("sent"));
+    }
+
+    @Test
+    void testFullQueue_DropsInsteadOfBlocking() throws InterruptedException {
+        // Given
+        writeBehind.offer("a", 1, command("a@1"));
+        assertTrue(firstPipelineStarted.await(5, TimeUnit.SECONDS));
+        writeBehind.offer("b", 1, command("b@1"));
+
+        // When
+        boolean queued = writeBehind.offer("c", 1, command("c@1"));
+        releasePipeline.countDown();
+
+        // Then
+        assertFalse(queued);
+        assertTrue(writeBehind.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(List.of("a@1", "b@1"), sent);
+        assertEquals(1.0, count("dropped"));
+    }
+
+    @Test
+    void testOpenCircuit_DropsBatch() throws InterruptedException {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.record(0, true);
+        }
+        releasePipeline.countDown();
+
+        // When
+        writeBehind.offer("a", 1, command("a@1"));
+
+        // Then
+        assertTrue(writeBehind.awaitIdle(Duration.ofSeconds(5)));
+        assertTrue(sent.isEmpty());
+        assertEquals(1.0, count("dropped"));
+        verifyNoInteractions(redisTemplate);
+    }
+
+    private Supplier<Consumer<RedisConnection>> command(String name) {
+        return () -> ignored -> sent.add(name);
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get(CacheMetrics.WRITE_BEHIND).tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,95 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.service.RedisService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "app.redis.client-tracking.enabled=true")
+@ActiveProfiles("test")
+class ClientSideCacheTest {
+
+    private static final String KEY = "test:tracking:key";
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @AfterEach
+    void tearDown() {
+        redisService.delete(KEY);
+    }
+
+    @Test
+    void testGet_ServedLocallyUntilRedisInvalidates() throws InterruptedException {
+        // Given
+        redisService.set(KEY, "first");
+        assertEquals(Optional.of("first"), redisService.get(KEY));
+        double hitsBefore = localHits();
+        assertEquals(Optional.of("first"), redisService.get(KEY));
+        assertEquals(hitsBefore + 1, localHits());
+
+        // When - written behind this node's back, so only the server push can invalidate
+        redisTemplate.opsForValue().set(KEY, "second");
+
+        // Then
+        waitUntil(() -> Optional.of("second").equals(redisService.get(KEY)));
+    }
+
+    @Test
+    void testGet_MissingKeyInvalidatedWhenCreated() throws InterruptedException {
+        // Given
+        assertEquals(Optional.empty(), redisService.get(KEY));
+
+        // When
+        redisTemplate.opsForValue().set(KEY, "created");
+
+        // Then
+        waitUntil(() -> Optional.of("created").equals(redisService.get(KEY)));
+    }
+
+    @Test
+    void testOwnWrites_VisibleImmediately() {
+        // Given
+        redisService.set(KEY, "first");
+        redisService.get(KEY);
+
+        // When
+        redisService.set(KEY, "second");
+
+        // Then
+        assertEquals(Optional.of("second"), redisService.get(KEY));
+        redisService.multiDelete(List.of(KEY));
+        assertEquals(Optional.empty(), redisService.get(KEY));
+    }
+
+    private double localHits() {
+        return meterRegistry.get(CacheMetrics.REQUESTS)
+                .tag("tier", CacheMetrics.TIER_CLIENT)
+                .tag("result", CacheMetrics.RESULT_HIT)
+                .counter().count();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.spring.notes.app.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.spring.notes.app.dto.response.NoteResponse;
+import com.spring.notes.app.dto.response.PageResponse;
+import com.spring.notes.app.entity.Note;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactCacheSerializerTest {
+
+    private GenericJackson2JsonRedisSerializer jsonSerializer;
+    private CompactCacheSerializer serializer;
+
+    @BeforeEach
+    void setUp() {
+        jsonSerializer = jsonSerializer();
+        serializer = new CompactCacheSerializer(jsonSerializer, 1024);
+    }
+
+    @Test
+    void testNote_RoundTrips() {
+        // Given
+        NoteResponse note = note(1L, "Short content");
+
+        // When
+        byte[] bytes = serializer.serialize(note);
+
+        // Then
+        assertEquals(CompactCacheSerializer.MAGIC, bytes[0]);
+        assertEquals(note, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void testNoteWithMissingFields_RoundTrips() {
+        // Given
+        NoteResponse note = NoteResponse.builder().id(3L).title("Only a title").build();
+
+        // When & Then
+        assertEquals(note, serializer.deserialize(serializer.serialize(note)));
+    }
+
+    @Test
+    void testLargeList_IsCompressedAndRoundTrips() {
+        // Given
+        List<NoteResponse> notes = new ArrayList<>();
+        for (long i = 0; i < 50; i++) {
+            notes.add(note(i, "Lorem ipsum dolor sit amet ".repeat(100)));
+        }
+
+        // When
+        byte[] bytes = serializer.serialize(notes);
+
+        // Then
+        assertEquals(1, bytes[2] & 1, "expected the LZ4 flag");
+        assertEquals(notes, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void testEnvelopeAndScalars_RoundTrip() {
+        // Given
+        CacheEnvelope categories = new CacheEnvelope(new ArrayList<>(List.of("Work", "Home")), 12, 1_700_000_000_000L);
+        CacheEnvelope count = new CacheEnvelope(42L, 3, 1_700_000_000_000L);
+
+        // When & Then
+        assertEquals(categories, serializer.deserialize(serializer.serialize(categories)));
+        assertEquals(count, serializer.deserialize(serializer.serialize(count)));
+        assertEquals(-5L, serializer.deserialize(serializer.serialize(-5L)));
+        assertEquals("text", serializer.deserialize(serializer.serialize("text")));
+    }
+
+    @Test
+    void testPage_RoundTrips() {
+        // Given
+        PageResponse<NoteResponse> page = PageResponse.<NoteResponse>builder()
+                .content(new ArrayList<>(List.of(note(1L, "First"), note(2L, "Second"))))
+                .page(1)
+                .size(2)
+                .totalElements(5)
+                .totalPages(3)
+                .first(false)
+                .last(false)
+                .hasNext(true)
+                .hasPrevious(true)
+                .build();
+
+        // When & Then
+        assertEquals(page, serializer.deserialize(serializer.serialize(page)));
+    }
+
+    @Test
+    void testUnknownType_FallsBackToEmbeddedJson() {
+        // Given
+        Map<String, Object> value = new HashMap<>(Map.of("status", "UP"));
+
+        // When
+        Object result = serializer.deserialize(serializer.serialize(value));
+
+        // Then
+        assertEquals(value, result);
+    }
+
+    @Test
+    void testJsonWrittenByPreviousCodec_IsStillReadable() {
+        // Given
+        NoteResponse note = note(1L, "Legacy");
+        byte[] json = jsonSerializer.serialize(note);
+
+        // When & Then
+        assertEquals(note, serializer.deserialize(json));
+    }
+
+    @Test
+    void testNewerSchemaVersion_IsRejected() {
+        // Given
+        byte[] bytes = serializer.serialize(note(1L, "Future"));
+        bytes[1] = (byte) (CompactCacheSerializer.SCHEMA_VERSION + 1);
+
+        // When & Then
+        assertThrows(SerializationException.class, () -> serializer.deserialize(bytes));
+    }
+
+    static NoteResponse note(long id, String content) {
+        LocalDateTime now = LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_897_000);
+        return NoteResponse.builder()
+                .id(id)
+                .title("Note " + id)
+                .content(content)
+                .priority(Note.Priority.HIGH)
+                .status(Note.Status.ACTIVE)
+                .category("Work")
+                .createdAt(now)
+                .updatedAt(now.plusMinutes(5))
+                .version(3L)
+                .build();
+    }
+
+    static GenericJackson2JsonRedisSerializer jsonSerializer() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return GenericJackson2JsonRedisSerializer.builder()
+                .objectMapper(mapper)
+                .defaultTyping(true)
+                .build();
+    }
+}
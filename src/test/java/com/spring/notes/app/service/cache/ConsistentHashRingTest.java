@@ -0,0 +1,90 @@
+package com.spring.notes.app.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    void testAddingNode_MovesOnlyItsShareOfKeys() {
+        // Given
+        ConsistentHashRing<String> before = ring(List.of("a:6379", "b:6379", "c:6379", "d:6379"));
+        ConsistentHashRing<String> after = ring(List.of("a:6379", "b:6379", "c:6379", "d:6379", "e:6379"));
+
+        // When
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "notes::{" + i + "}:1";
+            String owner = after.nodeFor(key);
+            if (!owner.equals(before.nodeFor(key))) {
+                moved++;
+                assertEquals("e:6379", owner, "keys may only move to the new node");
+            }
+        }
+
+        // Then - about 1/5 of the keys
+        assertEquals(0.2, (double) moved / KEYS, 0.05);
+        assertEquals(after.share("e:6379"), (double) moved / KEYS, 0.01);
+    }
+
+    @Test
+    void testHashTag_KeepsUserKeysTogether() {
+        // Given
+        ConsistentHashRing<String> ring = ring(List.of("a:6379", "b:6379", "c:6379"));
+
+        // When
+        String node = ring.nodeFor("user:gen:{42}");
+
+        // Then
+        assertEquals(node, ring.nodeFor("v1:notes::{42}:7"));
+        assertEquals(node, ring.nodeFor("v1:userNotes::{42}:h"));
+        assertEquals(node, ring.nodeFor("v1:notePages::{42}:g3:all:p0:s10:unsorted"));
+        assertEquals("42", ConsistentHashRing.hashTag("x{42}y{7}"));
+        assertEquals("x{}y", ConsistentHashRing.hashTag("x{}y"));
+        assertEquals("x{42", ConsistentHashRing.hashTag("x{42"));
+    }
+
+    @Test
+    void testShares_SumToOneAndMatchKeyDistribution() {
+        // Given
+        List<String> nodes = List.of("a:6379", "b:6379", "c:6379", "d:6379");
+        ConsistentHashRing<String> ring = ring(nodes);
+
+        // When
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.nodeFor("key:" + i), 1, Integer::sum);
+        }
+
+        // Then
+        assertEquals(1.0, nodes.stream().mapToDouble(ring::share).sum(), 1e-9);
+        for (String node : nodes) {
+            assertEquals(0.25, ring.share(node), 0.08);
+            assertEquals(ring.share(node), (double) counts.get(node) / KEYS, 0.01);
+        }
+    }
+
+    @Test
+    void testPlacement_IndependentOfNodeOrder() {
+        // Given
+        ConsistentHashRing<String> ring = ring(List.of("a:6379", "b:6379", "c:6379"));
+        ConsistentHashRing<String> reordered = ring(List.of("c:6379", "a:6379", "b:6379"));
+
+        // When / Then
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ring.nodeFor("key:" + i), reordered.nodeFor("key:" + i));
+        }
+    }
+
+    private static ConsistentHashRing<String> ring(List<String> nodes) {
+        return new ConsistentHashRing<>(nodes, Function.identity(), 160);
+    }
+}
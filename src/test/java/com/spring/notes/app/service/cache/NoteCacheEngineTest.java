@@ -0,0 +1,467 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.dto.response.NoteResponse;
+import com.spring.notes.app.dto.response.PageResponse;
+import com.spring.notes.app.entity.Note;
+import com.spring.notes.app.entity.User;
+import com.spring.notes.app.service.RedisService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NoteCacheEngineTest {
+
+    @Mock
+    private UserCacheGenerations userCacheGenerations;
+
+    @Mock
+    private UserNoteStore userNoteStore;
+
+    private ConcurrentMapCacheManager cacheManager;
+    private NoteCacheEngine engine;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager();
+        engine = engine(userNoteStore);
+        user = User.builder().id(1L).username("testuser").build();
+    }
+
+    private NoteCacheEngine engine(UserNoteStore store) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SingleFlight singleFlight = new SingleFlight(
+                mock(RedisService.class), meterRegistry, false, Duration.ofSeconds(5), Duration.ofSeconds(5));
+        return new NoteCacheEngine(cacheManager, userCacheGenerations, singleFlight,
+                new RefreshAheadExecutor(meterRegistry, true, 1.0, 1, 10),
+                new CacheAdmissionPolicy(meterRegistry, DataSize.ofKilobytes(4), DataSize.ofKilobytes(16), 100),
+                store, new CacheWriteBatch(RedisShards.of(mock(RedisTemplate.class), meterRegistry), mock(RedisService.class),
+                        mock(CacheInvalidationBus.class), meterRegistry, null, null, null, 10000),
+                meterRegistry, 5, 100);
+    }
+
+    @Test
+    void testGetNote_LoadsOnceThenServesFromCache() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        NoteResponse first = engine.getNote(user, 5L, () -> {
+            loads.incrementAndGet();
+            return NoteResponse.builder().id(5L).title("Note").build();
+        });
+        NoteResponse second = engine.getNote(user, 5L, () -> {
+            loads.incrementAndGet();
+            return NoteResponse.builder().id(5L).title("Other").build();
+        });
+
+        // Then
+        assertEquals(1, loads.get());
+        assertEquals("Note", second.getTitle());
+        assertSame(first, second);
+        assertNotNull(cacheManager.getCache("notes").get("{1}:5"));
+    }
+
+    @Test
+    void testLoaderFailure_IsNotCached() {
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> engine.getNote(user, 5L, () -> {
+            throw new IllegalStateException("not found");
+        }));
+        assertNull(cacheManager.getCache("notes").get("{1}:5"));
+    }
+
+    @Test
+    void testPutNote_WritesThrough() {
+        // When
+        engine.putNote(user, NoteResponse.builder().id(5L).title("Fresh").build());
+        NoteResponse cached = engine.getNote(user, 5L, () -> fail("should be served from cache"));
+
+        // Then
+        assertEquals("Fresh", cached.getTitle());
+    }
+
+    @Test
+    void testPutNote_OlderVersionDoesNotReplaceNewer() {
+        // Given
+        engine.putNote(user, NoteResponse.builder().id(5L).title("Newer").version(2L).build());
+
+        // When
+        engine.putNote(user, NoteResponse.builder().id(5L).title("Older").version(1L).build());
+
+        // Then
+        assertEquals("Newer", engine.getNote(user, 5L, () -> fail("should be served from cache")).getTitle());
+    }
+
+    @Test
+    void testStaleLoadAtSameVersion_DoesNotReplaceUpdate() {
+        // When - the update commits while a reader's query is in flight and the reader stores last
+        NoteResponse served = engine.getNote(user, 5L, () -> {
+            engine.putNote(user, NoteResponse.builder().id(5L).title("Updated").version(2L).build());
+            return NoteResponse.builder().id(5L).title("Stale").version(2L).build();
+        });
+
+        // Then
+        assertEquals("Stale", served.getTitle());
+        assertEquals("Updated", engine.getNote(user, 5L, () -> fail("should be served from cache")).getTitle());
+    }
+
+    @Test
+    void testGetNoteInTransaction_StoredBeforeLoadReturns() {
+        // Given - note reads run in read-only transactions
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            engine.getNote(user, 5L, () -> NoteResponse.builder().id(5L).title("Loaded").version(1L).build());
+
+            // Then - cached before commit, so a single-flight lease released now finds the value
+            assertEquals("Loaded", ((NoteResponse) cacheManager.getCache("notes").get("{1}:5").get()).getTitle());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testEvictNote_ForcesReload() {
+        // Given
+        engine.putNote(user, NoteResponse.builder().id(5L).title("Old").build());
+
+        // When
+        engine.evictNote(user, 5L);
+        NoteResponse reloaded = engine.getNote(user, 5L, () -> NoteResponse.builder().id(5L).title("New").build());
+
+        // Then
+        assertEquals("New", reloaded.getTitle());
+    }
+
+    @Test
+    void testGetNotes_ServedFromNoteStore() {
+        // Given
+        List<NoteResponse> stored = new ArrayList<>(List.of(NoteResponse.builder().id(5L).build()));
+        when(userNoteStore.getAll(1L)).thenReturn(Optional.of(stored));
+
+        // When
+        List<NoteResponse> notes = engine.getNotes(user, () -> fail("should be served from the note store"));
+
+        // Then
+        assertSame(stored, notes);
+        verify(userNoteStore, never()).load(anyLong(), any(), any());
+    }
+
+    @Test
+    void testGetNotes_LoadsWithVersionReadBeforeQuery() {
+        // Given
+        when(userNoteStore.getAll(1L)).thenReturn(Optional.empty());
+        when(userNoteStore.version(1L)).thenReturn("3");
+        List<NoteResponse> notes = new ArrayList<>(List.of(NoteResponse.builder().id(5L).build()));
+
+        // When
+        List<NoteResponse> loaded = engine.getNotes(user, () -> {
+            verify(userNoteStore).version(1L);
+            return notes;
+        });
+
+        // Then
+        assertSame(notes, loaded);
+        verify(userNoteStore).load(1L, "3", notes);
+    }
+
+    @Test
+    void testPreload_WriteBetweenQueryAndStoreIsNotHidden() {
+        // Given - the warm-up snapshots, then queries the notes
+        when(userNoteStore.version(1L)).thenReturn("3");
+        when(userCacheGenerations.key(user)).thenReturn("{1}:g1");
+        NoteCacheEngine.Snapshot snapshot = engine.snapshot(user);
+        List<NoteResponse> queried = new ArrayList<>(List.of(NoteResponse.builder().id(5L).category("Old").build()));
+
+        // When - the user writes before the queried values are stored
+        when(userCacheGenerations.key(user)).thenReturn("{1}:g2");
+        when(userCacheGenerations.key(user, "total")).thenReturn("{1}:g2:total");
+        engine.preload(user, snapshot, queried, new ArrayList<>(List.of("Old")), 1L);
+
+        // Then - the note store compares against the old version, the derived values sit under the old generation
+        verify(userNoteStore).load(1L, "3", queried);
+        assertNotNull(cacheManager.getCache("noteCategories").get("{1}:g1"));
+        assertNotNull(cacheManager.getCache("noteCounts").get("{1}:g1:total"));
+        assertEquals(List.of("New"), engine.getCategories(user, () -> new ArrayList<>(List.of("New"))));
+        assertEquals(2L, engine.getTotalCount(user, () -> 2L));
+    }
+
+    @Test
+    void testPutAndEvictNote_PatchNoteStore() {
+        // Given
+        NoteResponse note = NoteResponse.builder().id(5L).title("Note").build();
+
+        // When
+        engine.putNote(user, note);
+        engine.evictNote(user, 5L);
+
+        // Then
+        verify(userNoteStore).patch(1L, note);
+        verify(userNoteStore).remove(1L, 5L);
+    }
+
+    @Test
+    void testGetTotalCount_AcceptsIntegerFromCache() {
+        // Given
+        when(userCacheGenerations.key(user, "total")).thenReturn("1:g1:total");
+        cacheManager.getCache("noteCounts").put("1:g1:total", 7);
+
+        // When
+        long count = engine.getTotalCount(user, () -> fail("should be served from cache"));
+
+        // Then
+        assertEquals(7L, count);
+    }
+
+    @Test
+    void testGetNotesWithoutNoteStore_StoresRefreshAheadEnvelope() {
+        // Given - the standalone profile has no per-user note store
+        NoteCacheEngine standalone = engine(null);
+        when(userCacheGenerations.key(user)).thenReturn("1:g1");
+
+        // When
+        standalone.getNotes(user, () -> new ArrayList<>(List.of(NoteResponse.builder().id(5L).build())));
+
+        // Then
+        Object stored = cacheManager.getCache("userNotes").get("1:g1").get();
+        CacheEnvelope envelope = assertInstanceOf(CacheEnvelope.class, stored);
+        assertTrue(envelope.getExpiresAt() > System.currentTimeMillis());
+        assertInstanceOf(List.class, envelope.getValue());
+    }
+
+    @Test
+    void testGetCategories_StoresRefreshAheadEnvelope() {
+        // Given
+        when(userCacheGenerations.key(user)).thenReturn("1:g1");
+
+        // When
+        engine.getCategories(user, () -> new ArrayList<>(List.of("Work")));
+
+        // Then
+        Object stored = cacheManager.getCache("noteCategories").get("1:g1").get();
+        CacheEnvelope envelope = assertInstanceOf(CacheEnvelope.class, stored);
+        assertTrue(envelope.getExpiresAt() > System.currentTimeMillis());
+        assertInstanceOf(List.class, envelope.getValue());
+    }
+
+    @Test
+    void testExpiredEnvelope_ServedStaleAndRefreshedInBackground() throws InterruptedException {
+        // Given
+        when(userCacheGenerations.key(user)).thenReturn("1:g1");
+        List<String> stale = new ArrayList<>(List.of("Old"));
+        cacheManager.getCache("noteCategories").put("1:g1", CacheEnvelope.builder()
+                .value(stale)
+                .delta(5)
+                .expiresAt(System.currentTimeMillis() - 1000)
+                .build());
+        CountDownLatch refreshed = new CountDownLatch(1);
+
+        // When
+        List<String> served = engine.getCategories(user, () -> {
+            refreshed.countDown();
+            return new ArrayList<>(List.of("New"));
+        });
+
+        // Then
+        assertEquals(stale, served);
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        waitUntil(() -> !((CacheEnvelope) cacheManager.getCache("noteCategories").get("1:g1").get())
+                .getValue().equals(stale));
+        assertEquals(List.of("New"), engine.getCategories(user, () -> fail("should be served from cache")));
+    }
+
+    @Test
+    void testGetPage_KeyedByFilterPageSizeAndSort() {
+        // Given
+        when(userCacheGenerations.key(eq(user), anyString()))
+                .thenAnswer(invocation -> "1:g1:" + invocation.getArgument(1));
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<PageResponse<NoteResponse>> loader = () -> {
+            loads.incrementAndGet();
+            return PageResponse.<NoteResponse>builder().content(new ArrayList<>()).build();
+        };
+        String active = NoteCacheEngine.filter("status", "ACTIVE");
+        Pageable byCreated = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt"));
+
+        // When
+        engine.getPage(user, active, byCreated, loader);
+        engine.getPage(user, active, byCreated, loader);
+        engine.getPage(user, active, PageRequest.of(1, 10, Sort.by(Sort.Direction.DESC, "createdAt")), loader);
+        engine.getPage(user, active, PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt")), loader);
+        engine.getPage(user, active, PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "title")), loader);
+        engine.getPage(user, NoteCacheEngine.filter("status", "ARCHIVED"), byCreated, loader);
+
+        // Then
+        assertEquals(5, loads.get());
+        assertNotNull(cacheManager.getCache("notePages").get("1:g1:status=ACTIVE:p0:s10:createdAt.DESC"));
+    }
+
+    @Test
+    void testGetListingPage_ServedFromNoteStoreIndex() {
+        // Given
+        Pageable byCreated = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "createdAt"));
+        List<NoteResponse> content = new ArrayList<>(List.of(NoteResponse.builder().id(5L).build()));
+        when(userNoteStore.getPage(1L, Note.Status.ACTIVE, byCreated, true))
+                .thenReturn(Optional.of(new PageImpl<>(content, byCreated, 3)));
+
+        // When
+        PageResponse<NoteResponse> page = engine.getListingPage(user, Note.Status.ACTIVE, byCreated,
+                () -> fail("should be served from the note store"));
+
+        // Then
+        assertEquals(content, page.getContent());
+        assertEquals(1, page.getPage());
+        assertEquals(3, page.getTotalElements());
+        assertEquals(2, page.getTotalPages());
+        assertTrue(page.isLast());
+        assertTrue(page.isHasPrevious());
+    }
+
+    @Test
+    void testGetListingPage_FallsBackWhenNotIndexed() {
+        // Given
+        when(userCacheGenerations.key(eq(user), anyString()))
+                .thenAnswer(invocation -> "1:g1:" + invocation.getArgument(1));
+        when(userNoteStore.getPage(eq(1L), any(), any(), anyBoolean())).thenReturn(Optional.empty());
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<PageResponse<NoteResponse>> loader = () -> {
+            loads.incrementAndGet();
+            return PageResponse.<NoteResponse>builder().content(new ArrayList<>()).build();
+        };
+
+        // When
+        engine.getListingPage(user, null, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt")), loader);
+        engine.getListingPage(user, null, PageRequest.of(5, 10, Sort.by(Sort.Direction.DESC, "createdAt")), loader);
+        engine.getListingPage(user, null, PageRequest.of(0, 500, Sort.by(Sort.Direction.DESC, "createdAt")), loader);
+        engine.getListingPage(user, null, PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "title")), loader);
+        engine.getListingPage(user, Note.Status.ARCHIVED, PageRequest.of(0, 10), loader);
+
+        // Then
+        assertEquals(5, loads.get());
+        verify(userNoteStore, times(1)).getPage(eq(1L), any(), any(), anyBoolean());
+        assertNotNull(cacheManager.getCache("notePages").get("1:g1:all:p0:s10:createdAt.DESC"));
+        assertNotNull(cacheManager.getCache("notePages").get("1:g1:status=ARCHIVED:p0:s10:unsorted"));
+    }
+
+    @Test
+    void testFilter_EncodesUserInput() {
+        // When & Then
+        assertEquals("search=a%3Ab+c", NoteCacheEngine.filter("search", "a:b c"));
+    }
+
+    @Test
+    void testInvalidateUser_BumpsGeneration() {
+        // When
+        engine.invalidateUser(user);
+
+        // Then
+        verify(userCacheGenerations).bump(1L);
+    }
+
+    @Test
+    void testOversizedValue_ServedButNotCached() {
+        // Given
+        when(userCacheGenerations.key(user)).thenReturn("1:g1");
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<String>> loader = () -> {
+            loads.incrementAndGet();
+            return new ArrayList<>(List.of("x".repeat(4096)));
+        };
+
+        // When
+        List<String> first = engine.getCategories(user, loader);
+        engine.getCategories(user, loader);
+
+        // Then
+        assertEquals(1, first.size());
+        assertEquals(2, loads.get());
+        assertNull(cacheManager.getCache("noteCategories").get("1:g1"));
+        assertEquals(2L, engine.getStatistics().get("noteCategories").get("rejections"));
+    }
+
+    @Test
+    void testOversizedNote_KeepsListOutOfNoteStore() {
+        // Given
+        when(userNoteStore.getAll(1L)).thenReturn(Optional.empty());
+        List<NoteResponse> notes = new ArrayList<>(List.of(NoteResponse.builder().id(5L).content("x".repeat(4096)).build()));
+
+        // When
+        List<NoteResponse> loaded = engine.getNotes(user, () -> notes);
+
+        // Then
+        assertSame(notes, loaded);
+        verify(userNoteStore, never()).load(anyLong(), any(), any());
+        assertEquals(1L, engine.getStatistics().get("userNotes").get("rejections"));
+    }
+
+    @Test
+    void testRefusedWriteThrough_EvictsPreviousValue() {
+        // Given
+        engine.putNote(user, NoteResponse.builder().id(5L).title("Short").build());
+
+        // When
+        engine.putNote(user, NoteResponse.builder().id(5L).title("Long").content("x".repeat(4096)).build());
+
+        // Then
+        assertNull(cacheManager.getCache("notes").get("{1}:5"));
+    }
+
+    @Test
+    void testGetStatistics_ReportsPerRegion() {
+        // Given
+        engine.getNote(user, 5L, () -> NoteResponse.builder().id(5L).build());
+        engine.getNote(user, 5L, () -> NoteResponse.builder().id(5L).build());
+
+        // When
+        Map<String, Map<String, Object>> statistics = engine.getStatistics();
+
+        // Then
+        Map<String, Object> notes = statistics.get("notes");
+        assertEquals(1L, notes.get("hits"));
+        assertEquals(1L, notes.get("misses"));
+        assertEquals(0.5, notes.get("hitRatio"));
+        assertEquals(1L, notes.get("loads"));
+        assertTrue(statistics.containsKey("userNotes"));
+        assertTrue(statistics.containsKey("noteCategories"));
+        assertTrue(statistics.containsKey("noteCounts"));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
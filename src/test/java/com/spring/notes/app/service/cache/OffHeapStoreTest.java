@@ -0,0 +1,79 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.dto.response.NoteResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapStoreTest {
+
+    private OffHeapStore store;
+
+    @BeforeEach
+    void setUp() {
+        // Uncompressed, so the size of a value is predictable: 64 blocks of 256 bytes
+        store = new OffHeapStore(16 * 1024, 256, 4 * 1024, Duration.ofMinutes(1),
+                new CompactCacheSerializer(RedisSerializer.java(), Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testNote_RoundTripsAcrossBlocks() {
+        // Given
+        NoteResponse note = NoteResponse.builder().id(1L).title("Title").content("x".repeat(1000)).build();
+
+        // When
+        boolean stored = store.put("1:1", note);
+
+        // Then
+        assertTrue(stored);
+        assertEquals(note, store.get("1:1"));
+        assertNotSame(store.get("1:1"), store.get("1:1"));
+        // 1014 bytes encoded, so four blocks
+        assertEquals(4 * 256, store.usedBytes());
+    }
+
+    @Test
+    void testReplaceAndInvalidate_ReturnBlocks() {
+        // Given
+        store.put("key", "a".repeat(1000));
+
+        // When
+        store.put("key", "b".repeat(100));
+
+        // Then
+        assertEquals("b".repeat(100), store.get("key"));
+        assertEquals(256, store.usedBytes());
+        store.invalidate("key");
+        assertNull(store.get("key"));
+        assertEquals(0, store.usedBytes());
+    }
+
+    @Test
+    void testOversizedValue_IsRefused() {
+        // Given
+        store.put("key", "small");
+
+        // When
+        boolean stored = store.put("key", "x".repeat(5000));
+
+        // Then - the previous value is dropped rather than served stale
+        assertFalse(stored);
+        assertNull(store.get("key"));
+    }
+
+    @Test
+    void testFullStore_EvictsToStayWithinCapacity() {
+        // When
+        for (int i = 0; i < 100; i++) {
+            assertTrue(store.put("key" + i, "v".repeat(1000)));
+        }
+
+        // Then
+        assertTrue(store.usedBytes() <= store.capacityBytes());
+        assertTrue(store.size() < 100);
+    }
+}
@@ -0,0 +1,180 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.entity.User;
+import com.spring.notes.app.repository.NoteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OwnedNoteFilterTest {
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OwnedNoteFilter filter;
+    private Consumer<CacheInvalidationMessage> busListener;
+    private User user;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new OwnedNoteFilter(noteRepository, invalidationBus, meterRegistry, true, 0.01, 100, Duration.ofMinutes(5));
+
+        ArgumentCaptor<Consumer<CacheInvalidationMessage>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(invalidationBus).subscribe(captor.capture());
+        busListener = captor.getValue();
+
+        user = User.builder().id(1L).username("testuser").build();
+    }
+
+    @Test
+    void testOwnedIds_AreNeverRejected() {
+        // Given
+        List<Long> owned = new ArrayList<>();
+        for (long id = 1; id <= 1000; id += 3) {
+            owned.add(id);
+        }
+        when(noteRepository.findMaxId()).thenReturn(1000L);
+        when(noteRepository.findIdsByUser(user)).thenReturn(owned);
+
+        // When & Then
+        for (Long id : owned) {
+            assertTrue(filter.mightOwn(user, id));
+        }
+        verify(noteRepository, times(1)).findIdsByUser(user);
+    }
+
+    @Test
+    void testForeignIds_AreMostlyRejected() {
+        // Given
+        when(noteRepository.findMaxId()).thenReturn(10_000L);
+        when(noteRepository.findIdsByUser(user)).thenReturn(List.of(1L, 2L, 3L));
+
+        // When
+        int passed = 0;
+        for (long id = 100; id < 10_000; id++) {
+            if (filter.mightOwn(user, id)) {
+                passed++;
+            }
+        }
+
+        // Then
+        assertTrue(passed < 9900 * 0.05, "passed: " + passed);
+    }
+
+    @Test
+    void testIdsAboveWatermark_AreNotJudged() {
+        // Given
+        when(noteRepository.findMaxId()).thenReturn(50L);
+        when(noteRepository.findIdsByUser(user)).thenReturn(List.of(1L));
+
+        // When & Then
+        assertTrue(filter.mightOwn(user, 51L));
+        assertEquals(1.0, meterRegistry.get(CacheMetrics.OWNED_NOTE_FILTER_CHECKS).tag("result", "bypassed").counter().count());
+    }
+
+    @Test
+    void testAdd_UpdatesLocalFilterAndNotifiesOtherNodes() {
+        // Given
+        when(noteRepository.findMaxId()).thenReturn(50L);
+        when(noteRepository.findIdsByUser(user)).thenReturn(List.of(1L)).thenReturn(List.of(1L, 40L));
+        filter.mightOwn(user, 1L);
+
+        // When
+        filter.add(user, 40L);
+
+        // Then
+        assertTrue(filter.mightOwn(user, 40L));
+        verify(invalidationBus).publish(OwnedNoteFilter.CACHE_NAME, "1");
+    }
+
+    @Test
+    void testAdd_DropsFilterBuiltBeforeCommitOnThisNode() {
+        // Given - the note is inserted, not yet committed
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            filter.add(user, 40L);
+
+            // A lookup builds the filter before the commit; another user's note 45 has already committed
+            when(noteRepository.findMaxId()).thenReturn(45L);
+            when(noteRepository.findIdsByUser(user)).thenReturn(List.of(1L)).thenReturn(List.of(1L, 40L));
+            filter.mightOwn(user, 1L);
+
+            // When
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Then
+        assertTrue(filter.mightOwn(user, 40L));
+        verify(noteRepository, times(2)).findIdsByUser(user);
+        verify(invalidationBus).publish(OwnedNoteFilter.CACHE_NAME, "1");
+    }
+
+    @Test
+    void testRemoteCreate_RebuildsFilter() {
+        // Given
+        when(noteRepository.findMaxId()).thenReturn(50L);
+        when(noteRepository.findIdsByUser(user)).thenReturn(List.of(1L));
+        filter.mightOwn(user, 1L);
+
+        // When
+        busListener.accept(CacheInvalidationMessage.builder()
+                .origin("other-node")
+                .cacheName(OwnedNoteFilter.CACHE_NAME)
+                .key("1")
+                .build());
+        filter.mightOwn(user, 1L);
+
+        // Then
+        verify(noteRepository, times(2)).findIdsByUser(user);
+    }
+
+    @Test
+    void testRecordMiss_CountsFalsePositives() {
+        // Given
+        when(noteRepository.findMaxId()).thenReturn(50L);
+        when(noteRepository.findIdsByUser(user)).thenReturn(List.of(7L));
+        filter.mightOwn(user, 7L);
+
+        // When: note 7 was deleted meanwhile, and 60 is above the watermark
+        filter.recordMiss(user, 7L);
+        filter.recordMiss(user, 60L);
+
+        // Then
+        assertEquals(1.0, meterRegistry.get(CacheMetrics.OWNED_NOTE_FILTER_FALSE_POSITIVES).counter().count());
+        assertEquals(1.0, meterRegistry.get(CacheMetrics.OWNED_NOTE_FILTER_FALSE_POSITIVE_RATE).gauge().value());
+    }
+
+    @Test
+    void testDisabled_PassesEverything() {
+        // Given
+        OwnedNoteFilter disabled = new OwnedNoteFilter(noteRepository, invalidationBus, new SimpleMeterRegistry(),
+                false, 0.01, 100, Duration.ofMinutes(5));
+
+        // When & Then
+        assertTrue(disabled.mightOwn(user, 12345L));
+        verifyNoInteractions(noteRepository);
+    }
+}
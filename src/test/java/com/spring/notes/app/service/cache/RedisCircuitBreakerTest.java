@@ -0,0 +1,141 @@
+package com.spring.notes.app.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisCircuitBreakerTest {
+
+    private final AtomicBoolean redisUp = new AtomicBoolean();
+    private SimpleMeterRegistry meterRegistry;
+    private RedisCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        breaker = new RedisCircuitBreaker(() -> {
+            if (!redisUp.get()) {
+                throw new RedisConnectionFailureException("down");
+            }
+        }, meterRegistry, 10, 4, 0.5, 0.8, Duration.ofSeconds(1), Duration.ofMillis(20));
+    }
+
+    @AfterEach
+    void tearDown() {
+        breaker.close();
+    }
+
+    @Test
+    void testFailureRate_OpensAfterMinimumCalls() {
+        // Given
+        breaker.execute(() -> "ok");
+        failedCall(breaker);
+        failedCall(breaker);
+        assertFalse(breaker.isOpen());
+
+        // When - 2 of 4 calls failed
+        breaker.execute(() -> "ok");
+
+        // Then
+        assertTrue(breaker.isOpen());
+        assertEquals(1.0, meterRegistry.get(CacheMetrics.CIRCUIT_STATE).gauge().value());
+        assertEquals(1.0, meterRegistry.get(CacheMetrics.CIRCUIT_TRANSITIONS).tag("state", "open").counter().count());
+    }
+
+    @Test
+    void testSlowCalls_OpenTheBreaker() {
+        // When
+        for (int i = 0; i < 4; i++) {
+            breaker.record(TimeUnit.SECONDS.toNanos(2), false);
+        }
+
+        // Then
+        assertTrue(breaker.isOpen());
+        assertEquals(4.0, meterRegistry.get(CacheMetrics.CIRCUIT_CALLS).tag("outcome", "slow").counter().count());
+    }
+
+    @Test
+    void testOpen_RejectsWithoutCallingRedis() {
+        // Given
+        trip();
+        AtomicInteger calls = new AtomicInteger();
+
+        // When & Then
+        assertThrows(RedisCircuitOpenException.class, () -> breaker.execute(calls::incrementAndGet));
+        assertEquals("fallback", breaker.executeOrElse(() -> "redis", () -> "fallback"));
+        assertEquals(0, calls.get());
+        assertEquals(2.0, meterRegistry.get(CacheMetrics.CIRCUIT_CALLS).tag("outcome", "rejected").counter().count());
+    }
+
+    @Test
+    void testProbe_RunsRecoveryHooksThenCloses() throws InterruptedException {
+        // Given
+        CountDownLatch recovered = new CountDownLatch(1);
+        AtomicBoolean openDuringHook = new AtomicBoolean();
+        breaker.onRecovery(() -> {
+            openDuringHook.compareAndSet(false, breaker.isOpen());
+            recovered.countDown();
+        });
+        trip();
+
+        // When
+        redisUp.set(true);
+
+        // Then
+        assertTrue(recovered.await(5, TimeUnit.SECONDS));
+        assertTrue(openDuringHook.get());
+        awaitClosed();
+        assertEquals("ok", breaker.execute(() -> "ok"));
+    }
+
+    @Test
+    void testFailingRecoveryHook_KeepsBreakerOpen() throws InterruptedException {
+        // Given
+        CountDownLatch attempts = new CountDownLatch(2);
+        breaker.onRecovery(() -> {
+            attempts.countDown();
+            if (attempts.getCount() > 0) {
+                throw new RedisConnectionFailureException("replay failed");
+            }
+        });
+        trip();
+
+        // When
+        redisUp.set(true);
+
+        // Then - the first probe's hook failed, the second one closes the breaker
+        assertTrue(attempts.await(5, TimeUnit.SECONDS));
+        awaitClosed();
+    }
+
+    private void trip() {
+        for (int i = 0; i < 4; i++) {
+            failedCall(breaker);
+        }
+        assertTrue(breaker.isOpen());
+    }
+
+    private void awaitClosed() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (breaker.isOpen() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(breaker.isOpen());
+    }
+
+    private static void failedCall(RedisCircuitBreaker breaker) {
+        assertThrows(RedisConnectionFailureException.class, () -> breaker.execute(() -> {
+            throw new RedisConnectionFailureException("down");
+        }));
+    }
+}
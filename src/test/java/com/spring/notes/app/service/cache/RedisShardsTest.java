@@ -0,0 +1,92 @@
+package com.spring.notes.app.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class RedisShardsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RedisShards shards;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Three stand-in nodes; nothing is sent to them
+        Map<String, RedisTemplate<String, Object>> nodes = new LinkedHashMap<>();
+        nodes.put("redis-a:6379", mock(RedisTemplate.class));
+        nodes.put("redis-b:6379", mock(RedisTemplate.class));
+        nodes.put("redis-c:6379", mock(RedisTemplate.class));
+        shards = new RedisShards(nodes, 160, meterRegistry, List.of());
+    }
+
+    @Test
+    void testUserKeys_RoutedToOneShard() {
+        // Given
+        String counterKey = "user:gen:" + RedisShards.userTag(42L);
+
+        // When
+        RedisShards.Shard shard = shards.forKey(counterKey);
+
+        // Then
+        assertEquals("{42}", RedisShards.userTag(42L));
+        assertSame(shard, shards.forKey("v1:notes::{42}:7"));
+        assertSame(shard.getTemplate(), shards.template("v1:userNotes::{42}:h"));
+    }
+
+    @Test
+    void testKeys_SpreadOverEveryShard() {
+        // Given
+        List<String> keys = IntStream.range(0, 3000).mapToObj(i -> "v1:notes::{" + i + "}:1").toList();
+
+        // When
+        Map<RedisShards.Shard, List<String>> partitions = shards.partition(keys, key -> key);
+
+        // Then
+        assertTrue(shards.isSharded());
+        assertEquals(3, partitions.size());
+        partitions.forEach((shard, shardKeys) -> {
+            assertEquals(shards.share(shard), (double) shardKeys.size() / keys.size(), 0.05);
+            shardKeys.forEach(key -> assertSame(shard, shards.forKey(key)));
+        });
+        assertEquals(keys.size(), partitions.values().stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    void testRoutedCommands_CountedPerShard() {
+        // When
+        RedisShards.Shard shard = shards.forKey("user:gen:{7}");
+        shards.forKey("v1:notes::{7}:1");
+
+        // Then
+        assertEquals(2.0, meterRegistry.get(CacheMetrics.SHARD_COMMANDS).tag("shard", shard.getName()).counter().count());
+        double shares = shards.all().stream()
+                .mapToDouble(s -> meterRegistry.get(CacheMetrics.SHARD_SHARE).tag("shard", s.getName()).gauge().value())
+                .sum();
+        assertEquals(1.0, shares, 1e-9);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSingleNode_ServesEveryKey() {
+        // Given
+        RedisTemplate<String, Object> template = mock(RedisTemplate.class);
+        RedisShards single = RedisShards.of(template, new SimpleMeterRegistry());
+
+        // When / Then
+        assertFalse(single.isSharded());
+        assertSame(template, single.template("user:gen:{1}"));
+        assertSame(single.primary(), single.forKey("anything"));
+        assertEquals(1.0, single.share(single.primary()));
+    }
+}
@@ -0,0 +1,129 @@
+package com.spring.notes.app.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshAheadExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RefreshAheadExecutor refreshAhead;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        refreshAhead = new RefreshAheadExecutor(meterRegistry, true, 1.0, 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshAhead.shutdown();
+    }
+
+    @Test
+    void testShouldRefresh_FreshEntryIsKept() {
+        // Given
+        CacheEnvelope envelope = envelope(10, System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(10));
+
+        // When & Then
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(refreshAhead.shouldRefresh(envelope));
+        }
+    }
+
+    @Test
+    void testShouldRefresh_ExpiredEntryIsAlwaysRefreshed() {
+        // Given
+        CacheEnvelope envelope = envelope(10, System.currentTimeMillis() - 1);
+
+        // When & Then
+        assertTrue(refreshAhead.shouldRefresh(envelope));
+    }
+
+    @Test
+    void testShouldRefresh_ExpensiveEntryNearExpiryIsSometimesRefreshed() {
+        // Given: recomputation takes as long as the remaining lifetime
+        CacheEnvelope envelope = envelope(1000, System.currentTimeMillis() + 1000);
+
+        // When
+        int refreshes = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (refreshAhead.shouldRefresh(envelope)) {
+                refreshes++;
+            }
+        }
+
+        // Then: P(-ln(U) >= ~1) is about e^-1
+        assertTrue(refreshes > 200 && refreshes < 550, "refreshes: " + refreshes);
+    }
+
+    @Test
+    void testShouldRefresh_Disabled() {
+        // Given
+        RefreshAheadExecutor disabled = new RefreshAheadExecutor(new SimpleMeterRegistry(), false, 1.0, 1, 1);
+
+        // When & Then
+        assertFalse(disabled.shouldRefresh(envelope(10, System.currentTimeMillis() - 1)));
+        disabled.shutdown();
+    }
+
+    @Test
+    void testSubmit_DeduplicatesSameKey() throws InterruptedException {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        Runnable refresh = () -> {
+            runs.incrementAndGet();
+            await(release);
+        };
+
+        // When
+        boolean first = refreshAhead.submit("userNotes:1:g1", refresh);
+        boolean second = refreshAhead.submit("userNotes:1:g1", refresh);
+        release.countDown();
+
+        // Then
+        assertTrue(first);
+        assertFalse(second);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (runs.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testSubmit_RejectsWhenQueueIsFull() {
+        // Given: one running and one queued refresh fill the pool
+        CountDownLatch release = new CountDownLatch(1);
+        refreshAhead.submit("a", () -> await(release));
+        refreshAhead.submit("b", () -> await(release));
+
+        // When
+        boolean accepted = refreshAhead.submit("c", () -> { });
+        release.countDown();
+
+        // Then
+        assertFalse(accepted);
+        assertEquals(1.0, meterRegistry.get(CacheMetrics.REFRESHES).tag("outcome", "rejected").counter().count());
+    }
+
+    private static CacheEnvelope envelope(long delta, long expiresAt) {
+        return CacheEnvelope.builder().value("value").delta(delta).expiresAt(expiresAt).build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.service.RedisService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Mock
+    private RedisService redisService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentCallers_ShareOneLoad() throws Exception {
+        // Given
+        SingleFlight singleFlight = singleFlight(false, Duration.ofSeconds(5));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("notes:1:5", () -> null, () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "value";
+            })));
+        }
+        waitForWaiters(CALLERS - 1);
+        release.countDown();
+
+        // Then
+        for (Future<String> result : results) {
+            assertEquals("value", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void testLoaderFailure_PropagatesToWaiters() throws Exception {
+        // Given
+        SingleFlight singleFlight = singleFlight(false, Duration.ofSeconds(5));
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When
+        Future<String> leader = executor.submit(() -> singleFlight.execute("notes:1:5", () -> null, () -> {
+            await(release);
+            throw new IllegalStateException("database down");
+        }));
+        waitForInFlight(singleFlight);
+        Future<String> waiter = executor.submit(() -> singleFlight.execute("notes:1:5", () -> null, () -> "unused"));
+        waitForWaiters(1);
+        release.countDown();
+
+        // Then
+        ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException waiterFailure = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, leaderFailure.getCause());
+        assertEquals("database down", waiterFailure.getCause().getMessage());
+    }
+
+    @Test
+    void testWaitTimeout_FallsBackToOwnLoad() throws Exception {
+        // Given
+        SingleFlight singleFlight = singleFlight(false, Duration.ofMillis(100));
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> singleFlight.execute("notes:1:5", () -> null, () -> {
+            await(release);
+            return "slow";
+        }));
+        waitForInFlight(singleFlight);
+
+        // When
+        String value = singleFlight.execute("notes:1:5", () -> null, () -> "own");
+        release.countDown();
+
+        // Then
+        assertEquals("own", value);
+        assertEquals(1.0, meterRegistry.get(CacheMetrics.SINGLE_FLIGHT).tag("outcome", "timeout").counter().count());
+    }
+
+    @Test
+    void testLeaseHeldElsewhere_WaitsForCachedValue() {
+        // Given
+        SingleFlight singleFlight = singleFlight(true, Duration.ofSeconds(5));
+        when(redisService.tryLease(eq("lease:notes:1:5"), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenReturn(false);
+        when(redisService.exists("lease:notes:1:5")).thenReturn(true);
+        AtomicInteger rechecks = new AtomicInteger();
+
+        // When
+        String value = singleFlight.execute("notes:1:5",
+                () -> rechecks.incrementAndGet() < 2 ? null : "from-other-node",
+                () -> fail("should not hit the database"));
+
+        // Then
+        assertEquals("from-other-node", value);
+    }
+
+    @Test
+    void testLeaseAcquired_LoadsAndReleases() {
+        // Given
+        SingleFlight singleFlight = singleFlight(true, Duration.ofSeconds(5));
+        when(redisService.tryLease(eq("lease:notes:1:5"), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenReturn(true);
+
+        // When
+        String value = singleFlight.execute("notes:1:5", () -> null, () -> "loaded");
+
+        // Then
+        assertEquals("loaded", value);
+        verify(redisService).releaseLease(eq("lease:notes:1:5"), anyString());
+    }
+
+    @Test
+    void testLeaseUnavailable_LoadsDirectly() {
+        // Given
+        SingleFlight singleFlight = singleFlight(true, Duration.ofSeconds(5));
+        when(redisService.tryLease(anyString(), anyString(), anyLong(), any()))
+                .thenThrow(new IllegalStateException("connection refused"));
+
+        // When
+        String value = singleFlight.execute("notes:1:5", () -> null, () -> "loaded");
+
+        // Then
+        assertEquals("loaded", value);
+    }
+
+    private SingleFlight singleFlight(boolean leaseEnabled, Duration waitTimeout) {
+        return new SingleFlight(redisService, meterRegistry, leaseEnabled, Duration.ofSeconds(5), waitTimeout);
+    }
+
+    private void waitForInFlight(SingleFlight singleFlight) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.inFlightCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void waitForWaiters(int waiters) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalesced() < waiters && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private double coalesced() {
+        return meterRegistry.get(CacheMetrics.SINGLE_FLIGHT).tag("outcome", "coalesced").counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.dto.response.NoteResponse;
+import com.spring.notes.app.entity.Note;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TwoLevelCacheTest {
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    private SimpleMeterRegistry meterRegistry;
+    private Cache remote;
+    private TwoLevelCache cache;
+    private NoteResponse note;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        remote = spy(new ConcurrentMapCache("notes", false));
+        cache = new TwoLevelCache(
+                new NearCache("notes", 1024 * 1024, Duration.ofMinutes(1), meterRegistry),
+                remote, invalidationBus, meterRegistry);
+
+        note = NoteResponse.builder()
+                .id(1L)
+                .title("Test Note")
+                .content("Test content")
+                .status(Note.Status.ACTIVE)
+                .priority(Note.Priority.MEDIUM)
+                .build();
+    }
+
+    @Test
+    void testGet_ServesRepeatedReadsFromLocalTier() {
+        // Given
+        remote.put(1L, note);
+
+        // When
+        Cache.ValueWrapper first = cache.get(1L);
+        Cache.ValueWrapper second = cache.get(1L);
+
+        // Then
+        assertNotNull(first);
+        assertEquals(note, second.get());
+        verify(remote, times(1)).get(1L);
+        assertEquals(1.0, count(CacheMetrics.TIER_L1, CacheMetrics.RESULT_HIT));
+        assertEquals(1.0, count(CacheMetrics.TIER_L1, CacheMetrics.RESULT_MISS));
+        assertEquals(1.0, count(CacheMetrics.TIER_L2, CacheMetrics.RESULT_HIT));
+    }
+
+    @Test
+    void testGet_PromotesOnlyFrequentlyReadKeys() {
+        // Given
+        TwoLevelCache doorkept = new TwoLevelCache(
+                new NearCache("notes", 1024 * 1024, Duration.ofMinutes(1), 2, meterRegistry),
+                remote, invalidationBus, meterRegistry);
+        remote.put(1L, note);
+
+        // When
+        doorkept.get(1L);
+        Object afterFirstRead = doorkept.getNearCache().getIfPresent("1");
+        doorkept.get(1L);
+
+        // Then
+        assertNull(afterFirstRead);
+        assertEquals(note, doorkept.getNearCache().getIfPresent("1"));
+        assertEquals(1.0, meterRegistry.get(CacheMetrics.ADMISSIONS)
+                .tag("tier", CacheMetrics.TIER_L1)
+                .tag("outcome", CacheMetrics.REJECTED_FREQUENCY)
+                .counter()
+                .count());
+    }
+
+    @Test
+    void testGet_MissOnBothTiers() {
+        // When
+        Cache.ValueWrapper result = cache.get(42L);
+
+        // Then
+        assertNull(result);
+        assertEquals(1.0, count(CacheMetrics.TIER_L2, CacheMetrics.RESULT_MISS));
+    }
+
+    @Test
+    void testPut_WritesBothTiersAndBroadcasts() {
+        // When
+        cache.put(1L, note);
+
+        // Then
+        assertEquals(note, remote.get(1L).get());
+        assertEquals(note, cache.getNearCache().getIfPresent("1"));
+        verify(invalidationBus).publish("notes", "1");
+    }
+
+    @Test
+    void testEvict_RemovesBothTiersAndBroadcasts() {
+        // Given
+        cache.put(1L, note);
+
+        // When
+        cache.evict(1L);
+
+        // Then
+        assertNull(remote.get(1L));
+        assertNull(cache.getNearCache().getIfPresent("1"));
+        verify(invalidationBus, times(2)).publish("notes", "1");
+    }
+
+    @Test
+    void testInvalidateLocal_KeepsRemoteTier() {
+        // Given
+        cache.put(1L, note);
+
+        // When
+        cache.invalidateLocal("1");
+
+        // Then
+        assertNull(cache.getNearCache().getIfPresent("1"));
+        assertNotNull(remote.get(1L));
+    }
+
+    @Test
+    void testOpenCircuit_ServesLocalTierOnly() {
+        // Given
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(() -> {
+            throw new IllegalStateException("Redis down");
+        }, meterRegistry, 1, 1, 0.5, 1.0, Duration.ofSeconds(1), Duration.ofMinutes(1));
+        TwoLevelCache degraded = new TwoLevelCache(
+                new NearCache("notes", 1024 * 1024, Duration.ofMinutes(1), meterRegistry),
+                remote, invalidationBus, breaker, meterRegistry);
+        degraded.put(1L, note);
+        remote.put(2L, note);
+        breaker.record(0, true);
+
+        // When
+        Cache.ValueWrapper local = degraded.get(1L);
+        Cache.ValueWrapper remoteOnly = degraded.get(2L);
+        degraded.put(1L, note);
+
+        // Then - the write only drops the local copy, which may now be stale
+        assertEquals(note, local.get());
+        assertNull(remoteOnly);
+        assertNull(degraded.get(1L));
+        verify(remote, never()).get(2L);
+        verify(remote, times(1)).put(1L, note);
+        assertEquals(2.0, count(CacheMetrics.TIER_L2, CacheMetrics.RESULT_BYPASS));
+        breaker.close();
+    }
+
+    @Test
+    void testClear_BroadcastsClear() {
+        // Given
+        cache.put(1L, note);
+
+        // When
+        cache.clear();
+
+        // Then
+        assertEquals(0, cache.getNearCache().size());
+        verify(invalidationBus).publishClear("notes");
+    }
+
+    @Test
+    void testGetWithLoader_LoadsOnceAndCaches() {
+        // When
+        NoteResponse loaded = cache.get(1L, () -> note);
+        NoteResponse cached = cache.get(1L, () -> fail("loader must not run on a hit"));
+
+        // Then
+        assertEquals(note, loaded);
+        assertEquals(note, cached);
+        assertEquals(note, remote.get(1L).get());
+    }
+
+    private double count(String tier, String result) {
+        return meterRegistry.get(CacheMetrics.REQUESTS)
+                .tag("cache", "notes")
+                .tag("tier", tier)
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+}
@@ -0,0 +1,174 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.entity.User;
+import com.spring.notes.app.service.RedisService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserCacheGenerationsTest {
+
+    @Mock
+    private RedisService redisService;
+
+    @Mock
+    private CacheWriteBatch writeBatch;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    private UserCacheGenerations generations;
+    private Consumer<CacheInvalidationMessage> busListener;
+    private User user;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        generations = new UserCacheGenerations(redisService, writeBatch, invalidationBus, 1000, Duration.ofMinutes(1));
+
+        ArgumentCaptor<Consumer<CacheInvalidationMessage>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(invalidationBus).subscribe(captor.capture());
+        busListener = captor.getValue();
+
+        user = User.builder().id(1L).username("testuser").build();
+    }
+
+    @Test
+    void testKey_StampsCurrentGeneration() {
+        // Given
+        when(redisService.increment(eq("user:gen:{1}"), eq(0L), anyLong())).thenReturn(3L);
+
+        // When
+        String key = generations.key(user);
+        String qualified = generations.key(user, "total");
+
+        // Then
+        assertEquals("{1}:g3", key);
+        assertEquals("{1}:g3:total", qualified);
+        verify(redisService, times(1)).increment(eq("user:gen:{1}"), eq(0L), anyLong());
+    }
+
+    @Test
+    void testMissingCounter_SeededAboveEarlierGenerations() {
+        // Given
+        long before = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        ArgumentCaptor<Long> readSeed = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Long> bumpSeed = ArgumentCaptor.forClass(Long.class);
+        when(redisService.increment(eq("user:gen:{1}"), eq(0L), anyLong())).thenReturn(before);
+
+        // When
+        generations.key(user);
+        generations.bump(1L);
+
+        // Then - an evicted counter restarts at the current time in microseconds, not at zero
+        verify(redisService).increment(eq("user:gen:{1}"), eq(0L), readSeed.capture());
+        verify(writeBatch).increment(eq("user:gen:{1}"), bumpSeed.capture());
+        assertTrue(readSeed.getValue() >= before);
+        assertTrue(bumpSeed.getValue() >= readSeed.getValue());
+    }
+
+    @Test
+    void testKey_NullWhileRedisIsUnavailable() {
+        // Given
+        when(redisService.increment(eq("user:gen:{1}"), eq(0L), anyLong()))
+                .thenThrow(new RedisCircuitOpenException())
+                .thenReturn(3L);
+
+        // When
+        String key = generations.key(user, "total");
+
+        // Then - the unknown generation is not cached
+        assertNull(key);
+        assertEquals("{1}:g3", generations.key(user));
+    }
+
+    @Test
+    void testBump_QueuedAndAppliedAfterFlush() {
+        // Given
+        when(redisService.increment(eq("user:gen:{1}"), eq(0L), anyLong())).thenReturn(3L, 4L);
+        String before = generations.key(user);
+        ArgumentCaptor<Runnable> afterFlush = ArgumentCaptor.forClass(Runnable.class);
+
+        // When
+        generations.bump(1L);
+        String beforeFlush = generations.key(user);
+        verify(writeBatch).afterFlush(afterFlush.capture());
+        afterFlush.getValue().run();
+
+        // Then
+        assertEquals(before, beforeFlush);
+        assertEquals("{1}:g4", generations.key(user));
+        InOrder order = inOrder(writeBatch);
+        order.verify(writeBatch).increment(eq("user:gen:{1}"), anyLong());
+        order.verify(writeBatch).publish(UserCacheGenerations.CACHE_NAME, "1");
+        order.verify(writeBatch).afterFlush(any());
+    }
+
+    @Test
+    void testBump_DoesNotAffectOtherUsers() {
+        // Given
+        when(redisService.increment(eq("user:gen:{2}"), eq(0L), anyLong())).thenReturn(9L);
+        User other = User.builder().id(2L).username("other").build();
+        String otherKey = generations.key(other);
+        ArgumentCaptor<Runnable> afterFlush = ArgumentCaptor.forClass(Runnable.class);
+
+        // When
+        generations.bump(1L);
+        verify(writeBatch).afterFlush(afterFlush.capture());
+        afterFlush.getValue().run();
+
+        // Then
+        assertEquals(otherKey, generations.key(other));
+        verify(writeBatch, never()).increment(eq("user:gen:{2}"), anyLong());
+    }
+
+    @Test
+    void testRemoteBump_RefetchesGeneration() {
+        // Given
+        when(redisService.increment(eq("user:gen:{1}"), eq(0L), anyLong())).thenReturn(3L, 5L);
+        generations.key(user);
+
+        // When
+        busListener.accept(CacheInvalidationMessage.builder()
+                .origin("other-node")
+                .cacheName(UserCacheGenerations.CACHE_NAME)
+                .key("1")
+                .build());
+
+        // Then
+        assertEquals("{1}:g5", generations.key(user));
+    }
+
+    @Test
+    void testRemoteMessageForOtherCache_IsIgnored() {
+        // Given
+        when(redisService.increment(eq("user:gen:{1}"), eq(0L), anyLong())).thenReturn(3L);
+        generations.key(user);
+
+        // When
+        busListener.accept(CacheInvalidationMessage.builder()
+                .origin("other-node")
+                .cacheName("notes")
+                .key("1")
+                .build());
+
+        // Then
+        assertEquals("{1}:g3", generations.key(user));
+        verify(invalidationBus, never()).publish(any(), any());
+    }
+}
@@ -0,0 +1,190 @@
+package com.spring.notes.app.service.cache;
+
+import com.spring.notes.app.dto.response.NoteResponse;
+import com.spring.notes.app.entity.Note;
+import com.spring.notes.app.service.RedisService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserNoteStoreTest {
+
+    private static final Long USER_ID = 9001L;
+
+    @Autowired
+    private UserNoteStore userNoteStore;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    private CacheNamespace cacheNamespace;
+
+    @AfterEach
+    void tearDown() {
+        String prefix = cacheNamespace.prefix("userNotes") + RedisShards.userTag(USER_ID) + ":";
+        List<String> keys = new ArrayList<>(List.of(prefix + "h", prefix + "z", prefix + "v", prefix + "c"));
+        for (Note.Status status : Note.Status.values()) {
+            keys.add(prefix + "c:" + status.name());
+        }
+        redisService.multiDelete(keys);
+    }
+
+    @Test
+    void testGetAll_EmptyUntilLoaded() {
+        // When & Then
+        assertTrue(userNoteStore.getAll(USER_ID).isEmpty());
+    }
+
+    @Test
+    void testLoad_ReadBackInIdOrder() {
+        // Given
+        String version = userNoteStore.version(USER_ID);
+
+        // When
+        boolean stored = userNoteStore.load(USER_ID, version, new ArrayList<>(List.of(note(12L, "Second"), note(3L, "First"))));
+        Optional<List<NoteResponse>> notes = userNoteStore.getAll(USER_ID);
+
+        // Then
+        assertTrue(stored);
+        assertTrue(notes.isPresent());
+        assertEquals(List.of(3L, 12L), notes.get().stream().map(NoteResponse::getId).toList());
+        assertEquals("First", notes.get().get(0).getTitle());
+        assertEquals(Note.Status.ACTIVE, notes.get().get(0).getStatus());
+    }
+
+    @Test
+    void testLoad_EmptyListIsCached() {
+        // When
+        userNoteStore.load(USER_ID, userNoteStore.version(USER_ID), new ArrayList<>());
+
+        // Then
+        assertEquals(Optional.of(List.of()), userNoteStore.getAll(USER_ID));
+    }
+
+    @Test
+    void testPatchAndRemove_UpdateSingleNotes() {
+        // Given
+        userNoteStore.load(USER_ID, userNoteStore.version(USER_ID), new ArrayList<>(List.of(note(3L, "First"))));
+
+        // When
+        userNoteStore.patch(USER_ID, note(3L, "Edited"));
+        userNoteStore.patch(USER_ID, note(7L, "Added"));
+        userNoteStore.remove(USER_ID, 99L);
+        List<NoteResponse> afterPatch = userNoteStore.getAll(USER_ID).orElseThrow();
+        userNoteStore.remove(USER_ID, 3L);
+        List<NoteResponse> afterRemove = userNoteStore.getAll(USER_ID).orElseThrow();
+
+        // Then
+        assertEquals(List.of("Edited", "Added"), afterPatch.stream().map(NoteResponse::getTitle).toList());
+        assertEquals(List.of(7L), afterRemove.stream().map(NoteResponse::getId).toList());
+    }
+
+    @Test
+    void testPatch_IgnoredWhileNotLoaded() {
+        // When
+        userNoteStore.patch(USER_ID, note(3L, "Orphan"));
+
+        // Then
+        assertTrue(userNoteStore.getAll(USER_ID).isEmpty());
+    }
+
+    @Test
+    void testLoad_RefusedAfterConcurrentPatch() {
+        // Given
+        String version = userNoteStore.version(USER_ID);
+        userNoteStore.patch(USER_ID, note(3L, "Committed meanwhile"));
+
+        // When
+        boolean stored = userNoteStore.load(USER_ID, version, new ArrayList<>(List.of(note(3L, "Stale"))));
+
+        // Then
+        assertFalse(stored);
+        assertTrue(userNoteStore.getAll(USER_ID).isEmpty());
+    }
+
+    @Test
+    void testGetPage_ServedFromCreationIndexes() {
+        // Given
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        userNoteStore.load(USER_ID, userNoteStore.version(USER_ID), new ArrayList<>(List.of(
+                note(1L, "Oldest", Note.Status.ACTIVE, base),
+                note(2L, "Done", Note.Status.COMPLETED, base.plusMinutes(1)),
+                note(3L, "Newest", Note.Status.ACTIVE, base.plusMinutes(2)))));
+
+        // When
+        Page<NoteResponse> newestFirst = userNoteStore.getPage(USER_ID, null, PageRequest.of(0, 2), true).orElseThrow();
+        Page<NoteResponse> secondPage = userNoteStore.getPage(USER_ID, null, PageRequest.of(1, 2), true).orElseThrow();
+        Page<NoteResponse> activeOldestFirst = userNoteStore.getPage(USER_ID, Note.Status.ACTIVE, PageRequest.of(0, 10), false).orElseThrow();
+        Page<NoteResponse> archived = userNoteStore.getPage(USER_ID, Note.Status.ARCHIVED, PageRequest.of(0, 10), true).orElseThrow();
+
+        // Then
+        assertEquals(List.of(3L, 2L), ids(newestFirst));
+        assertEquals(3, newestFirst.getTotalElements());
+        assertEquals(2, newestFirst.getTotalPages());
+        assertEquals(List.of(1L), ids(secondPage));
+        assertEquals(List.of(1L, 3L), ids(activeOldestFirst));
+        assertEquals(2, activeOldestFirst.getTotalElements());
+        assertTrue(archived.isEmpty());
+        assertEquals(0, archived.getTotalElements());
+    }
+
+    @Test
+    void testGetPage_EmptyUntilLoaded() {
+        // When & Then
+        assertTrue(userNoteStore.getPage(USER_ID, null, PageRequest.of(0, 10), true).isEmpty());
+    }
+
+    @Test
+    void testPatchAndRemove_MaintainCreationIndexes() {
+        // Given
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+        userNoteStore.load(USER_ID, userNoteStore.version(USER_ID), new ArrayList<>(List.of(
+                note(1L, "First", Note.Status.ACTIVE, base),
+                note(2L, "Second", Note.Status.ACTIVE, base.plusMinutes(1)))));
+
+        // When
+        userNoteStore.patch(USER_ID, note(1L, "First", Note.Status.ARCHIVED, base));
+        userNoteStore.patch(USER_ID, note(3L, "Third", Note.Status.ACTIVE, base.plusMinutes(2)));
+        userNoteStore.remove(USER_ID, 2L);
+
+        // Then
+        assertEquals(List.of(3L, 1L), ids(userNoteStore.getPage(USER_ID, null, PageRequest.of(0, 10), true).orElseThrow()));
+        assertEquals(List.of(3L), ids(userNoteStore.getPage(USER_ID, Note.Status.ACTIVE, PageRequest.of(0, 10), true).orElseThrow()));
+        assertEquals(List.of(1L), ids(userNoteStore.getPage(USER_ID, Note.Status.ARCHIVED, PageRequest.of(0, 10), true).orElseThrow()));
+    }
+
+    private List<Long> ids(Page<NoteResponse> page) {
+        return page.getContent().stream().map(NoteResponse::getId).toList();
+    }
+
+    private NoteResponse note(Long id, String title, Note.Status status, LocalDateTime createdAt) {
+        NoteResponse note = note(id, title);
+        note.setStatus(status);
+        note.setCreatedAt(createdAt);
+        return note;
+    }
+
+    private NoteResponse note(Long id, String title) {
+        return NoteResponse.builder()
+                .id(id)
+                .title(title)
+                .content("Content")
+                .status(Note.Status.ACTIVE)
+                .priority(Note.Priority.MEDIUM)
+                .build();
+    }
+}